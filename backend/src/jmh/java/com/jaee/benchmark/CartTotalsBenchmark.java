@@ -0,0 +1,104 @@
+package com.jaee.benchmark;
+
+import com.jaee.dto.cart.CartDto;
+import com.jaee.entity.Cart;
+import com.jaee.entity.CartItem;
+import com.jaee.entity.Money;
+import com.jaee.entity.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cart totals for 1-100 line carts: the old BigDecimal multiply/add chain
+ * against {@link Money}, plus a full {@link CartDto} render.
+ *
+ * Run with {@code ./gradlew jmh}; add {@code -prof gc} through
+ * {@code jmh.profilers} to see allocation per op.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CartTotalsBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int lines;
+
+    private Cart cart;
+    private List<BigDecimal> unitPrices;
+    private List<Integer> quantities;
+
+    @Setup
+    public void setUp() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        cart = Cart.builder().build();
+        unitPrices = new ArrayList<>();
+        quantities = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            BigDecimal price = BigDecimal.valueOf(random.nextLong(100, 500_000), 2);
+            int qty = random.nextInt(1, 5);
+            Product product = Product.builder()
+                    .id((long) i)
+                    .name("Candle " + i)
+                    .slug("candle-" + i)
+                    .price(price)
+                    .stockQty(100)
+                    .build();
+            cart.addItem(CartItem.builder()
+                    .id((long) i)
+                    .product(product)
+                    .qty(qty)
+                    .unitPriceSnapshot(Money.of(price, Money.DEFAULT_CURRENCY))
+                    .build());
+            unitPrices.add(price);
+            quantities.add(qty);
+        }
+    }
+
+    /** What CartDto and createPendingOrder used to do per line */
+    @Benchmark
+    public BigDecimal bigDecimalSubtotal() {
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            subtotal = subtotal.add(unitPrices.get(i).multiply(BigDecimal.valueOf(quantities.get(i))));
+        }
+        return subtotal;
+    }
+
+    @Benchmark
+    public long bigDecimalToPaise() {
+        return bigDecimalSubtotal().multiply(BigDecimal.valueOf(100)).longValue();
+    }
+
+    @Benchmark
+    public Money moneySubtotal() {
+        return cart.getSubtotal();
+    }
+
+    @Benchmark
+    public long moneyToPaise() {
+        return cart.getSubtotal().minorUnits();
+    }
+
+    @Benchmark
+    public CartDto cartDtoRender() {
+        return CartDto.fromEntity(cart);
+    }
+}
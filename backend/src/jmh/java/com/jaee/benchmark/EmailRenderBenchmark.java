@@ -0,0 +1,148 @@
+package com.jaee.benchmark;
+
+import com.jaee.dto.order.OrderConfirmation;
+import com.jaee.service.EmailService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order confirmation bodies rendered per millisecond across four threads,
+ * for a five-line order: the old String.format rendering against the
+ * pre-parsed templates in {@link EmailService#renderOrderConfirmation}.
+ * Setup checks that both produce the same HTML.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class EmailRenderBenchmark {
+
+    private OrderConfirmation order;
+
+    @Setup
+    public void setUp() {
+        List<OrderConfirmation.Line> lines = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 1; i <= 5; i++) {
+            BigDecimal subtotal = new BigDecimal("349.00").multiply(BigDecimal.valueOf(i));
+            lines.add(OrderConfirmation.Line.builder().name("Soy candle no. " + i).qty(i).subtotal(subtotal).build());
+            total = total.add(subtotal);
+        }
+        order = OrderConfirmation.builder()
+                .orderId(100_042L)
+                .customerEmail("buyer@example.com")
+                .totalAmount(total)
+                .items(lines)
+                .build();
+        if (!legacyRender(order).equals(EmailService.renderOrderConfirmation(order))) {
+            throw new IllegalStateException("Template output differs from the String.format rendering");
+        }
+    }
+
+    @Benchmark
+    public String oldRender() {
+        return legacyRender(order);
+    }
+
+    @Benchmark
+    public String render() {
+        return EmailService.renderOrderConfirmation(order);
+    }
+
+    /** What EmailService used to do for every message */
+    @SuppressWarnings("deprecation")
+    private static String legacyRender(OrderConfirmation order) {
+        StringBuilder itemsHtml = new StringBuilder();
+        for (OrderConfirmation.Line item : order.getItems()) {
+            itemsHtml.append(String.format("""
+                <tr>
+                    <td style="padding: 12px; border-bottom: 1px solid #f0f0f0;">
+                        <strong>%s</strong><br>
+                        <span style="color: #666;">Qty: %d</span>
+                    </td>
+                    <td style="padding: 12px; border-bottom: 1px solid #f0f0f0; text-align: right;">
+                        ₹%s
+                    </td>
+                </tr>
+                """,
+                item.getName(),
+                item.getQty(),
+                item.getSubtotal().setScale(2, BigDecimal.ROUND_HALF_UP)
+            ));
+        }
+
+        return String.format("""
+            <!DOCTYPE html>
+            <html>
+            <head>
+                <meta charset="UTF-8">
+                <style>
+                    body { font-family: 'Segoe UI', Tahoma, Geneva, Verdana, sans-serif; background-color: #FAF7F2; margin: 0; padding: 20px; }
+                    .container { max-width: 600px; margin: 0 auto; background-color: #FFFFFF; border-radius: 12px; overflow: hidden; box-shadow: 0 4px 6px rgba(0,0,0,0.1); }
+                    .header { background-color: #D4A5A5; padding: 30px; text-align: center; }
+                    .header h1 { color: #FFFFFF; margin: 0; font-size: 28px; letter-spacing: 2px; }
+                    .content { padding: 30px; }
+                    .order-number { background-color: #F5E6E0; padding: 15px; border-radius: 8px; margin-bottom: 20px; text-align: center; }
+                    .order-number h2 { margin: 0; color: #2D2D2D; font-size: 18px; }
+                    table { width: 100%%; border-collapse: collapse; }
+                    .total { font-size: 18px; font-weight: bold; color: #2D2D2D; }
+                    .footer { background-color: #FAF7F2; padding: 20px; text-align: center; color: #6B6B6B; font-size: 14px; }
+                </style>
+            </head>
+            <body>
+                <div class="container">
+                    <div class="header">
+                        <h1>JAEE</h1>
+                    </div>
+                    <div class="content">
+                        <p style="font-size: 16px; color: #2D2D2D;">Thank you for your order! 💕</p>
+
+                        <div class="order-number">
+                            <h2>Order #%d</h2>
+                        </div>
+
+                        <h3 style="color: #2D2D2D; border-bottom: 2px solid #D4A5A5; padding-bottom: 10px;">Order Details</h3>
+
+                        <table>
+                            %s
+                            <tr>
+                                <td style="padding: 15px 12px; font-weight: bold;">Total</td>
+                                <td style="padding: 15px 12px; text-align: right;" class="total">₹%s</td>
+                            </tr>
+                        </table>
+
+                        <p style="margin-top: 30px; color: #6B6B6B;">
+                            We'll send you another email when your order ships.
+                        </p>
+                    </div>
+                    <div class="footer">
+                        <p>Questions? Contact us at support@jaee.com</p>
+                        <p>© 2024 Jaee. All rights reserved.</p>
+                    </div>
+                </div>
+            </body>
+            </html>
+            """,
+            order.getOrderId(),
+            itemsHtml.toString(),
+            order.getTotalAmount().setScale(2, BigDecimal.ROUND_HALF_UP)
+        );
+    }
+}
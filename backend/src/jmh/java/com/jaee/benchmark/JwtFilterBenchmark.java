@@ -0,0 +1,104 @@
+package com.jaee.benchmark;
+
+import com.jaee.entity.User;
+import com.jaee.security.JwtAuthenticationFilter;
+import com.jaee.security.JwtService;
+import com.jaee.security.TokenRevocations;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * The JWT filter for one authenticated request: the old path (three parses,
+ * each rebuilding the key and parser), a single parse with the cached
+ * parser, and the full filter with and without verified-token cache hits.
+ *
+ * The old path also did a user lookup per request, which is not measured here.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtFilterBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-that-is-at-least-thirty-two-bytes-long";
+
+    private String token;
+    private JwtService uncachedJwtService;
+    private JwtAuthenticationFilter uncachedFilter;
+    private JwtAuthenticationFilter cachedFilter;
+
+    @Setup
+    public void setUp() {
+        JwtService cachedJwtService = new JwtService(SECRET, 3_600_000, 604_800_000, 10_000, 60);
+        uncachedJwtService = new JwtService(SECRET, 3_600_000, 604_800_000, 0, 0);
+        TokenRevocations revocations = new TokenRevocations(3_600_000, 100_000);
+        cachedFilter = new JwtAuthenticationFilter(cachedJwtService, revocations);
+        uncachedFilter = new JwtAuthenticationFilter(uncachedJwtService, revocations);
+        token = cachedJwtService.generateAccessToken(User.builder()
+                .id(42L)
+                .email("bench@jaee.test")
+                .role(User.Role.USER)
+                .build());
+    }
+
+    @Benchmark
+    public boolean oldTripleParse() {
+        String username = legacyClaim(token, Claims::getSubject);
+        return username.equals(legacyClaim(token, Claims::getSubject))
+                && !legacyClaim(token, Claims::getExpiration).before(new Date());
+    }
+
+    @Benchmark
+    public Object singleParse() {
+        return uncachedJwtService.parseAccessToken(token);
+    }
+
+    @Benchmark
+    public Object filterUncached() throws Exception {
+        return filter(uncachedFilter);
+    }
+
+    @Benchmark
+    public Object filterCached() throws Exception {
+        return filter(cachedFilter);
+    }
+
+    private Object filter(JwtAuthenticationFilter filter) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/cart");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        SecurityContextHolder.clearContext();
+        return principal;
+    }
+
+    /** What each extractClaim call used to do */
+    private static <T> T legacyClaim(String token, Function<Claims, T> resolver) {
+        return resolver.apply(Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload());
+    }
+}
@@ -0,0 +1,81 @@
+package com.jaee.benchmark;
+
+import com.jaee.service.TotpService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TOTP verifications per millisecond across four threads: the old verifier
+ * (decode, Mac.getInstance and a new key for each of the three steps)
+ * against {@link TotpService#verifyCode}. The code never matches, so both
+ * check the whole ±1 window, as a wrong guess does.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class TotpVerifyBenchmark {
+
+    private static final String WRONG_CODE = "000000";
+
+    private TotpService totpService;
+    private String secret;
+
+    @Setup
+    public void setUp() {
+        totpService = new TotpService(100_000);
+        secret = totpService.generateSecret();
+    }
+
+    @Benchmark
+    public boolean oldVerify() throws Exception {
+        int providedCode = Integer.parseInt(WRONG_CODE);
+        long currentTimeStep = System.currentTimeMillis() / 1000 / 30;
+        boolean matched = false;
+        for (int i = -1; i <= 1; i++) {
+            matched |= legacyCode(secret, currentTimeStep + i) == providedCode;
+        }
+        return matched;
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return totpService.verifyCode(42L, secret, WRONG_CODE);
+    }
+
+    /** What each generateCode call used to do */
+    private static int legacyCode(String secret, long timeStep) throws Exception {
+        byte[] key = Base64.getDecoder().decode(secret);
+        byte[] data = new byte[8];
+        for (int i = 7; i >= 0; i--) {
+            data[i] = (byte) (timeStep & 0xff);
+            timeStep >>= 8;
+        }
+        Mac mac = Mac.getInstance("HmacSHA1");
+        mac.init(new SecretKeySpec(key, "HmacSHA1"));
+        byte[] hash = mac.doFinal(data);
+        int offset = hash[hash.length - 1] & 0xf;
+        int binary = ((hash[offset] & 0x7f) << 24)
+                | ((hash[offset + 1] & 0xff) << 16)
+                | ((hash[offset + 2] & 0xff) << 8)
+                | (hash[offset + 3] & 0xff);
+        return binary % (int) Math.pow(10, 6);
+    }
+}
@@ -0,0 +1,278 @@
+package com.jaee.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jaee.entity.Product;
+import com.jaee.repository.ProductRepository;
+import com.jaee.standin.RazorpayStandInServer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives virtual-thread shoppers through register, add to cart, create-order
+ * and verify-payment over HTTP, all competing for a few hot SKUs, against a
+ * real Postgres (migrated by Flyway) and the local Razorpay stand-in with
+ * webhooks enabled. Prints throughput, per-step p50/p99, 5xx and oversell /
+ * duplicate-payment counts.
+ *
+ * Tunable with -PloadTest.shoppers, -PloadTest.hotSkus, -PloadTest.stockPerSku,
+ * -PloadTest.gatewayMedianMs and -PloadTest.gatewayP99Ms.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT)
+class CheckoutContentionLoadTest {
+
+    private static final int SHOPPERS = Integer.getInteger("loadTest.shoppers", 100);
+    private static final int HOT_SKUS = Integer.getInteger("loadTest.hotSkus", 3);
+    private static final int STOCK_PER_SKU = Integer.getInteger("loadTest.stockPerSku", 40);
+    private static final int GATEWAY_MEDIAN_MS = Integer.getInteger("loadTest.gatewayMedianMs", 80);
+    private static final int GATEWAY_P99_MS = Integer.getInteger("loadTest.gatewayP99Ms", 600);
+    private static final String PASSWORD = "load-test-password";
+
+    private static final int SERVER_PORT = freePort();
+    private static final int STAND_IN_PORT = freePort();
+
+    private enum Step { REGISTER, ADD_TO_CART, CREATE_ORDER, PAY, VERIFY_PAYMENT, CHECKOUT }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final Map<Step, List<Long>> latencies = new EnumMap<>(Step.class);
+    private final Map<String, AtomicInteger> outcomes = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RazorpayStandInServer standIn;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresSupport.register(registry);
+        registry.add("server.port", () -> SERVER_PORT);
+        registry.add("app.razorpay.test-mode", () -> false);
+        registry.add("app.razorpay.api-base-url", () -> "http://localhost:" + STAND_IN_PORT);
+        registry.add("app.razorpay.stand-in.enabled", () -> true);
+        registry.add("app.razorpay.stand-in.port", () -> STAND_IN_PORT);
+        registry.add("app.razorpay.stand-in.latency-median-ms", () -> GATEWAY_MEDIAN_MS);
+        registry.add("app.razorpay.stand-in.latency-p99-ms", () -> GATEWAY_P99_MS);
+        // Every shopper registers from localhost
+        registry.add("app.rate-limit.register.per-ip", () -> SHOPPERS);
+    }
+
+    @Test
+    void checkoutUnderContention() throws Exception {
+        for (Step step : Step.values()) {
+            latencies.put(step, Collections.synchronizedList(new ArrayList<>()));
+        }
+        List<Long> hotSkus = new ArrayList<>();
+        for (int i = 0; i < HOT_SKUS; i++) {
+            hotSkus.add(productRepository.save(Product.builder()
+                    .name("Hot Candle " + i)
+                    .slug("load-test-hot-candle-" + i)
+                    .price(new BigDecimal("799.00"))
+                    .stockQty(STOCK_PER_SKU)
+                    .build()).getId());
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        long started;
+        try (ExecutorService shoppers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < SHOPPERS; i++) {
+                int shopper = i;
+                shoppers.submit(() -> {
+                    start.await();
+                    shop(shopper, hotSkus.get(ThreadLocalRandom.current().nextInt(hotSkus.size())));
+                    return null;
+                });
+            }
+            started = System.nanoTime();
+            start.countDown();
+        }
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+        // Let the stand-in's delayed and duplicated webhooks land before counting
+        Thread.sleep(GATEWAY_P99_MS * 5L + 3000);
+
+        int oversold = 0;
+        for (Long sku : hotSkus) {
+            Integer paidQty = jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(SUM(oi.qty), 0) FROM order_items oi JOIN orders o ON o.id = oi.order_id " +
+                    "WHERE oi.product_id = ? AND o.status = 'PAID'", Integer.class, sku);
+            oversold += Math.max(0, paidQty - STOCK_PER_SKU);
+        }
+        Integer negativeStock = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM products WHERE stock_qty < 0", Integer.class);
+        Integer usersPaidTwice = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM (SELECT user_id FROM orders WHERE status = 'PAID' " +
+                "GROUP BY user_id HAVING COUNT(*) > 1) t", Integer.class);
+        Integer paymentsReused = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM (SELECT razorpay_payment_id FROM orders WHERE razorpay_payment_id IS NOT NULL " +
+                "GROUP BY razorpay_payment_id HAVING COUNT(*) > 1) t", Integer.class);
+        int completed = count("paid");
+
+        StringBuilder report = new StringBuilder()
+                .append(String.format("%n=== Checkout contention: %d shoppers, %d hot SKUs x %d stock, gateway p50/p99 %d/%d ms ===%n",
+                        SHOPPERS, HOT_SKUS, STOCK_PER_SKU, GATEWAY_MEDIAN_MS, GATEWAY_P99_MS))
+                .append(String.format("wall time %.2f s, completed checkouts %d (%.1f/s)%n",
+                        elapsedSeconds, completed, completed / elapsedSeconds))
+                .append(String.format("%-16s %8s %10s %10s%n", "step", "count", "p50 ms", "p99 ms"));
+        for (Step step : Step.values()) {
+            List<Long> samples = latencies.get(step);
+            report.append(String.format("%-16s %8d %10.1f %10.1f%n",
+                    step, samples.size(), percentile(samples, 0.50), percentile(samples, 0.99)));
+        }
+        report.append("outcomes ").append(new TreeMap<>(outcomes)).append('\n')
+                .append(String.format("oversold units %d, products below zero %d, users paid twice %d, payments reused %d%n",
+                        oversold, negativeStock, usersPaidTwice, paymentsReused))
+                .append("stand-in ").append(standIn.getBaseUrl()).append('\n');
+        System.out.println(report);
+
+        // Throughput, latency, 5xx and oversell are reported for comparison between runs; only
+        // exactly-once payment handling is a hard failure
+        assertThat(usersPaidTwice).as("users with more than one PAID order").isZero();
+        assertThat(paymentsReused).as("payments recorded against more than one order").isZero();
+        assertThat(negativeStock).as("products with negative stock").isZero();
+    }
+
+    private void shop(int shopper, long productId) {
+        try {
+            JsonNode auth = call(Step.REGISTER, post("/auth/register", null, Map.of(
+                    "name", "Shopper " + shopper,
+                    "email", "shopper" + shopper + "@load.test",
+                    "password", PASSWORD)));
+            if (auth == null) {
+                return;
+            }
+            String token = auth.path("accessToken").asText();
+
+            int qty = ThreadLocalRandom.current().nextInt(1, 3);
+            if (call(Step.ADD_TO_CART, post("/cart/items", token, Map.of("productId", productId, "qty", qty))) == null) {
+                return;
+            }
+
+            long checkoutStarted = System.nanoTime();
+            JsonNode order = call(Step.CREATE_ORDER, post("/checkout/create-order", token, Map.of()));
+            if (order == null) {
+                return;
+            }
+
+            long payStarted = System.nanoTime();
+            HttpResponse<String> paid = http.send(HttpRequest.newBuilder(URI.create(
+                            standIn.getBaseUrl() + "/v1/standin/orders/" + order.path("orderId").asText() + "/pay"))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            latencies.get(Step.PAY).add(System.nanoTime() - payStarted);
+            JsonNode callback = objectMapper.readTree(paid.body());
+
+            JsonNode verified = call(Step.VERIFY_PAYMENT, post("/checkout/verify-payment", token, Map.of(
+                    "razorpayOrderId", callback.path("razorpay_order_id").asText(),
+                    "razorpayPaymentId", callback.path("razorpay_payment_id").asText(),
+                    "razorpaySignature", callback.path("razorpay_signature").asText(),
+                    "orderReference", order.path("orderReference").asText())));
+            if (verified != null) {
+                latencies.get(Step.CHECKOUT).add(System.nanoTime() - checkoutStarted);
+                increment("paid");
+                if (!"Payment successful".equals(verified.path("message").asText())) {
+                    // The webhook finalized the order before the client callback got there
+                    increment("verify_found_already_paid");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private HttpRequest post(String path, String token, Map<String, ?> body) throws IOException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + SERVER_PORT + path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return request.build();
+    }
+
+    /** Send, time and classify one request; returns the ApiResponse data or null if it failed */
+    private JsonNode call(Step step, HttpRequest request) throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        latencies.get(step).add(System.nanoTime() - started);
+        int status = response.statusCode();
+        if (status >= 500) {
+            increment("server_error");
+            return null;
+        }
+        if (status >= 300) {
+            String reason = step.name().toLowerCase() + "_" + status;
+            if (step == Step.CREATE_ORDER && response.body().contains("Insufficient stock")) {
+                reason = "sold_out";
+            }
+            increment(reason);
+            return null;
+        }
+        return objectMapper.readTree(response.body()).path("data");
+    }
+
+    private void increment(String outcome) {
+        outcomes.computeIfAbsent(outcome, k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private int count(String outcome) {
+        AtomicInteger counter = outcomes.get(outcome);
+        return counter == null ? 0 : counter.get();
+    }
+
+    private static double percentile(List<Long> samples, double quantile) {
+        if (samples.isEmpty()) {
+            return 0;
+        }
+        List<Long> sorted = new ArrayList<>(samples);
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(quantile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index)) / 1_000_000.0;
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.jaee.loadtest;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.utils.ObjectUtils;
+import com.jaee.service.ImageService;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Heap allocated per product image upload, measured on the uploading thread,
+ * with the file already spooled to disk by the container and Cloudinary
+ * replaced by a local endpoint that discards the body: the old
+ * {@code file.getBytes()} upload against the streamed temp-file upload.
+ *
+ * Tunable with -PloadTest.uploads and -PloadTest.imageKb.
+ */
+class ImageUploadLoadTest {
+
+    private static final int UPLOADS = Integer.getInteger("loadTest.uploads", 100);
+    private static final int IMAGE_KB = Integer.getInteger("loadTest.imageKb", 4096);
+
+    @Test
+    void streamedUploadAgainstByteArrayUpload() throws Exception {
+        AtomicLong received = new AtomicLong();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            try (InputStream body = exchange.getRequestBody()) {
+                received.addAndGet(body.transferTo(OutputStream.nullOutputStream()));
+            }
+            byte[] response = "{\"secure_url\":\"https://res.cloudinary.com/standin/image/upload/v1/p.png\"}"
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        server.start();
+
+        Path image = Files.createTempFile("load-image-", ".png");
+        try {
+            byte[] bytes = new byte[IMAGE_KB * 1024];
+            ThreadLocalRandom.current().nextBytes(bytes);
+            System.arraycopy(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'}, 0, bytes, 0, 8);
+            Files.write(image, bytes);
+
+            Cloudinary cloudinary = new Cloudinary(ObjectUtils.asMap(
+                    "cloud_name", "standin",
+                    "api_key", "key",
+                    "api_secret", "secret",
+                    "upload_prefix", "http://localhost:" + server.getAddress().getPort()));
+            ImageService imageService = new ImageService(cloudinary, "jaee");
+            MultipartFile file = new SpooledPart(image);
+
+            System.out.printf("%n=== Image upload: %d x %d KB ===%n", UPLOADS, IMAGE_KB);
+            run("byte array", received, () -> cloudinary.uploader().upload(file.getBytes(),
+                    ObjectUtils.asMap("folder", "jaee/products", "resource_type", "image")));
+            run("streamed temp file", received, () -> imageService.uploadProductImage(file));
+        } finally {
+            server.stop(0);
+            Files.deleteIfExists(image);
+        }
+    }
+
+    private static void run(String label, AtomicLong received, Upload upload) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < 5; i++) {
+            upload.run();
+        }
+        long receivedBefore = received.get();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long started = System.nanoTime();
+        for (int i = 0; i < UPLOADS; i++) {
+            upload.run();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        assertThat(received.get() - receivedBefore).isGreaterThan((long) UPLOADS * IMAGE_KB * 1024);
+        System.out.printf("%-20s %,10.0f KB allocated/upload  %,6.0f uploads/s%n", label,
+                allocated / 1024.0 / UPLOADS, UPLOADS / seconds);
+    }
+
+    @FunctionalInterface
+    private interface Upload {
+        void run() throws Exception;
+    }
+
+    /** What the container hands over for a part above the file-size threshold */
+    private record SpooledPart(Path path) implements MultipartFile {
+
+        @Override
+        public String getName() {
+            return "file";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return "candle.png";
+        }
+
+        @Override
+        public String getContentType() {
+            return "image/png";
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return getSize() == 0;
+        }
+
+        @Override
+        public long getSize() {
+            return path.toFile().length();
+        }
+
+        @Override
+        public byte[] getBytes() throws IOException {
+            return Files.readAllBytes(path);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return Files.newInputStream(path);
+        }
+
+        @Override
+        public void transferTo(File dest) throws IOException {
+            Files.copy(path, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.jaee.loadtest;
+
+import com.jaee.dto.auth.OtpRequestDto;
+import com.jaee.dto.order.OrderConfirmation;
+import com.jaee.entity.OutboxMessage;
+import com.jaee.repository.OutboxMessageRepository;
+import com.jaee.service.NotificationDispatcher;
+import com.jaee.service.NotificationOutbox;
+import com.jaee.service.OtpService;
+import com.jaee.standin.LatencyDistribution;
+import com.jaee.standin.SmsStandInServer;
+import com.jaee.standin.SmtpStandInServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Notification pipeline end to end against the local SMTP and SMS
+ * stand-ins, which fail a fraction of sends. Checkouts and OTP requests
+ * enqueue concurrently; the test then drives the dispatcher as the poller
+ * would until the outbox drains. Prints what enqueueing costs the request
+ * thread, delivery throughput, and how many sends needed a retry; every
+ * message must arrive exactly once. SMS go out at the provider rate limit
+ * (10 a second by default), so OTPs set the drain time; throttled sends are
+ * put back and counted separately from retries.
+ *
+ * Tunable with -PloadTest.emails, -PloadTest.otps and -PloadTest.errorRate.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class NotificationOutboxLoadTest {
+
+    private static final int EMAILS = Integer.getInteger("loadTest.emails", 600);
+    private static final int OTPS = Integer.getInteger("loadTest.otps", 300);
+    private static final double ERROR_RATE = Double.parseDouble(System.getProperty("loadTest.errorRate", "0.05"));
+
+    private static SmtpStandInServer smtp;
+    private static SmsStandInServer sms;
+
+    @Autowired
+    private NotificationOutbox notificationOutbox;
+
+    @Autowired
+    private NotificationDispatcher notificationDispatcher;
+
+    @Autowired
+    private OtpService otpService;
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) throws IOException {
+        EmbeddedPostgresSupport.register(registry);
+
+        smtp = new SmtpStandInServer(SmtpStandInServer.Settings.builder()
+                .port(0)
+                .latency(LatencyDistribution.LOGNORMAL)
+                .latencyMedianMs(20)
+                .latencyP99Ms(200)
+                .errorRate(ERROR_RATE)
+                .build());
+        sms = new SmsStandInServer(SmsStandInServer.Settings.builder()
+                .port(0)
+                .latency(LatencyDistribution.LOGNORMAL)
+                .latencyMedianMs(40)
+                .latencyP99Ms(400)
+                .errorRate(ERROR_RATE)
+                .build());
+        smtp.start();
+        sms.start();
+
+        registry.add("spring.mail.host", () -> "localhost");
+        registry.add("spring.mail.port", smtp::getPort);
+        registry.add("spring.mail.properties.mail.smtp.auth", () -> false);
+        registry.add("spring.mail.properties.mail.smtp.starttls.enable", () -> false);
+        registry.add("app.email.enabled", () -> true);
+        registry.add("app.sms.enabled", () -> true);
+        registry.add("app.sms.twilio.api-base-url", sms::getBaseUrl);
+        registry.add("app.sms.twilio.account-sid", () -> "ACloadtest");
+        registry.add("app.sms.twilio.auth-token", () -> "loadtest");
+        registry.add("app.sms.twilio.phone-number", () -> "+15005550006");
+        registry.add("app.notifications.pool-size", () -> 16);
+        registry.add("app.notifications.backoff-base-ms", () -> 100);
+        registry.add("app.notifications.backoff-max-ms", () -> 1000);
+        // Three attempts would leave about one OTP in 8,000 undelivered at a 5% error rate
+        registry.add("app.notifications.otp-max-attempts", () -> 8);
+    }
+
+    @AfterAll
+    static void stopStandIns() {
+        smtp.stop();
+        sms.stop();
+    }
+
+    @Test
+    void outboxDrainsThroughFlakyProviders() throws Exception {
+        outboxMessageRepository.deleteAll();
+        long runId = System.nanoTime() % 1_000_000;
+
+        List<Long> enqueueLatencies = Collections.synchronizedList(new ArrayList<>());
+        long started = System.nanoTime();
+        try (ExecutorService producers = Executors.newFixedThreadPool(32)) {
+            List<Future<?>> submitted = new ArrayList<>();
+            for (int i = 0; i < EMAILS; i++) {
+                long orderId = runId * 100_000 + i;
+                submitted.add(producers.submit(() -> timed(enqueueLatencies, () ->
+                        notificationOutbox.enqueueOrderConfirmation(confirmation(orderId)))));
+            }
+            for (int i = 0; i < OTPS; i++) {
+                OtpRequestDto request = new OtpRequestDto();
+                request.setMobileNumber(String.format("+91%d%05d", 90000 + runId % 10000, i));
+                submitted.add(producers.submit(() -> timed(enqueueLatencies, () -> otpService.requestOtp(request))));
+            }
+            for (Future<?> future : submitted) {
+                future.get();
+            }
+        }
+        double enqueueSeconds = (System.nanoTime() - started) / 1e9;
+
+        // What the poller would do, without its two-second gap
+        long deadline = System.nanoTime() + 120_000_000_000L;
+        while (outboxMessageRepository.countByStatus(OutboxMessage.Status.PENDING) > 0) {
+            assertThat(System.nanoTime()).as("outbox did not drain within 120s").isLessThan(deadline);
+            notificationDispatcher.dispatchDue();
+            Thread.sleep(50);
+        }
+        double drainSeconds = (System.nanoTime() - started) / 1e9;
+
+        assertThat(outboxMessageRepository.count()).isZero();
+        assertThat(smtp.getMessagesAccepted()).isEqualTo(EMAILS);
+        assertThat(sms.getMessagesAccepted()).isEqualTo(OTPS);
+
+        Collections.sort(enqueueLatencies);
+        long retries = smtp.getInjectedErrors() + sms.getInjectedErrors();
+        System.out.printf("%n=== Notification outbox: %d emails + %d OTPs, %.0f%% provider errors ===%n",
+                EMAILS, OTPS, ERROR_RATE * 100);
+        System.out.printf("enqueue p50      %10.2f ms%n", enqueueLatencies.get(enqueueLatencies.size() / 2) / 1e6);
+        System.out.printf("enqueue p99      %10.2f ms%n", enqueueLatencies.get(enqueueLatencies.size() * 99 / 100) / 1e6);
+        System.out.printf("enqueued in      %10.2f s%n", enqueueSeconds);
+        System.out.printf("drained in       %10.2f s (%,.0f messages/s)%n", drainSeconds,
+                (EMAILS + OTPS) / drainSeconds);
+        System.out.printf("retried sends    %10d%n", retries);
+        System.out.printf("throttled SMS    %10.0f (mean wait for a token %.0f ms)%n",
+                meterRegistry.get("sms.throttled").counter().count(),
+                meterRegistry.get("sms.throttle.wait").timer().mean(TimeUnit.MILLISECONDS));
+        System.out.printf("delivered        %10d emails, %d SMS (each exactly once)%n",
+                smtp.getMessagesAccepted(), sms.getMessagesAccepted());
+    }
+
+    private static Void timed(List<Long> latencies, Runnable enqueue) {
+        long requestStarted = System.nanoTime();
+        enqueue.run();
+        latencies.add(System.nanoTime() - requestStarted);
+        return null;
+    }
+
+    private static OrderConfirmation confirmation(long orderId) {
+        return OrderConfirmation.builder()
+                .orderId(orderId)
+                .customerEmail("buyer-" + orderId + "@load.test")
+                .totalAmount(new BigDecimal("1499.00"))
+                .items(List.of(OrderConfirmation.Line.builder()
+                        .name("Soy candle")
+                        .qty(1)
+                        .subtotal(new BigDecimal("1499.00"))
+                        .build()))
+                .build();
+    }
+}
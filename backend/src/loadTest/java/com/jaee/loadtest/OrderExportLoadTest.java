@@ -0,0 +1,95 @@
+package com.jaee.loadtest;
+
+import com.jaee.entity.User;
+import com.jaee.repository.UserRepository;
+import com.jaee.service.OrderExportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Streams a large order export into a byte-counting sink while sampling
+ * heap use. The peak should stay flat however many rows are exported.
+ *
+ * Tunable with -PloadTest.exportOrders (two line items per order, all created during 2020).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class OrderExportLoadTest {
+
+    private static final int ORDERS = Integer.getInteger("loadTest.exportOrders", 300_000);
+
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresSupport.register(registry);
+    }
+
+    @Test
+    void exportStreamsInConstantMemory() throws Exception {
+        User buyer = userRepository.save(User.builder()
+                .name("Export Buyer")
+                .email("export-buyer@load.test")
+                .passwordHash("unused")
+                .build());
+        jdbcTemplate.update(
+                "INSERT INTO orders (user_id, status, total_amount, currency, customer_email, created_at, paid_at) " +
+                "SELECT ?, 'PAID', 998.00, 'INR', 'export@load.test', " +
+                "       TIMESTAMP '2020-01-01' + g * interval '1 minute', TIMESTAMP '2020-01-01' + g * interval '1 minute' " +
+                "FROM generate_series(1, ?) g", buyer.getId(), ORDERS);
+        jdbcTemplate.update(
+                "INSERT INTO order_items (order_id, name_snapshot, price_snapshot, qty) " +
+                "SELECT o.id, 'Export Candle ' || n, 499.00, n FROM orders o CROSS JOIN generate_series(1, 2) n " +
+                "WHERE o.user_id = ?", buyer.getId());
+        jdbcTemplate.execute("ANALYZE orders");
+        jdbcTemplate.execute("ANALYZE order_items");
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        AtomicLong peak = new AtomicLong(baseline);
+        AtomicLong bytes = new AtomicLong();
+        OutputStream sink = new OutputStream() {
+            @Override
+            public void write(int b) {
+                bytes.incrementAndGet();
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                if (bytes.addAndGet(len) % (1 << 20) < len) {
+                    peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                }
+            }
+        };
+
+        long started = System.nanoTime();
+        long rows = orderExportService.writeOrdersCsv(LocalDate.of(2020, 1, 1), LocalDate.of(2021, 1, 1), false, sink);
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        System.out.printf("%n=== Order export: %d orders, %d rows, %.1f MB of CSV in %.1f s (%.0f rows/s) ===%n",
+                ORDERS, rows, bytes.get() / 1048576.0, seconds, rows / seconds);
+        System.out.printf("heap used before %.1f MB, peak during export %.1f MB (max heap %.0f MB)%n",
+                baseline / 1048576.0, peak.get() / 1048576.0, memory.getHeapMemoryUsage().getMax() / 1048576.0);
+
+        assertThat(rows).isEqualTo(ORDERS * 2L);
+    }
+}
@@ -0,0 +1,125 @@
+package com.jaee.loadtest;
+
+import com.jaee.dto.common.CursorPageResponse;
+import com.jaee.dto.order.OrderSummaryDto;
+import com.jaee.entity.User;
+import com.jaee.repository.UserRepository;
+import com.jaee.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * OFFSET paging against keyset paging of one heavy buyer's order history,
+ * with other customers' orders in the table too. Prints the median latency
+ * of fetching a page at increasing depth and the plan of the keyset query.
+ *
+ * Tunable with -PloadTest.historyOrders and -PloadTest.otherOrders.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class OrderHistoryPagingLoadTest {
+
+    private static final int HEAVY_BUYER_ORDERS = Integer.getInteger("loadTest.historyOrders", 20_000);
+    private static final int OTHER_ORDERS = Integer.getInteger("loadTest.otherOrders", 100_000);
+    private static final int PAGE_SIZE = 20;
+    private static final int RUNS = 15;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresSupport.register(registry);
+    }
+
+    @Test
+    void keysetVersusOffset() {
+        User heavyBuyer = userRepository.save(User.builder()
+                .name("Heavy Buyer")
+                .email("heavy-buyer@load.test")
+                .passwordHash("unused")
+                .build());
+        User others = userRepository.save(User.builder()
+                .name("Everyone Else")
+                .email("everyone-else@load.test")
+                .passwordHash("unused")
+                .build());
+        insertOrders(heavyBuyer.getId(), HEAVY_BUYER_ORDERS);
+        insertOrders(others.getId(), OTHER_ORDERS);
+        jdbcTemplate.execute("ANALYZE orders");
+        jdbcTemplate.execute("ANALYZE order_items");
+
+        // Walk the whole history once by cursor, checking nothing is skipped or repeated
+        List<String> cursors = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        String cursor = null;
+        do {
+            cursors.add(cursor);
+            CursorPageResponse<OrderSummaryDto> page = orderService.getUserOrderHistory(heavyBuyer, cursor, PAGE_SIZE);
+            page.getContent().forEach(order -> assertThat(seen.add(order.getId())).isTrue());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertThat(seen).hasSize(HEAVY_BUYER_ORDERS);
+
+        StringBuilder report = new StringBuilder()
+                .append(String.format("%n=== Order history: %d orders for one user, %d for others, page size %d ===%n",
+                        HEAVY_BUYER_ORDERS, OTHER_ORDERS, PAGE_SIZE))
+                .append(String.format("%8s %14s %14s%n", "page", "offset ms", "keyset ms"));
+        int lastPage = cursors.size() - 1;
+        for (int page : new int[]{0, 10, 100, lastPage / 2, lastPage}) {
+            String pageCursor = cursors.get(page);
+            double offsetMs = medianMillis(() -> orderService.getUserOrders(heavyBuyer, page, PAGE_SIZE));
+            double keysetMs = medianMillis(() -> orderService.getUserOrderHistory(heavyBuyer, pageCursor, PAGE_SIZE));
+            report.append(String.format("%8d %14.2f %14.2f%n", page, offsetMs, keysetMs));
+        }
+
+        report.append("keyset plan:\n");
+        jdbcTemplate.queryForList(
+                        "EXPLAIN ANALYZE SELECT * FROM orders WHERE user_id = ? AND (created_at, id) < (now(), 9223372036854775807) " +
+                        "ORDER BY created_at DESC, id DESC LIMIT ?",
+                        String.class, heavyBuyer.getId(), PAGE_SIZE + 1)
+                .forEach(line -> report.append("  ").append(line).append('\n'));
+        System.out.println(report);
+    }
+
+    private void insertOrders(Long userId, int count) {
+        jdbcTemplate.update(
+                "INSERT INTO orders (user_id, status, total_amount, currency, customer_email, created_at, paid_at) " +
+                "SELECT ?, 'PAID', 499.00, 'INR', 'load@test', " +
+                "       now() - g * interval '7 minutes', now() - g * interval '7 minutes' " +
+                "FROM generate_series(1, ?) g", userId, count);
+        jdbcTemplate.update(
+                "INSERT INTO order_items (order_id, name_snapshot, price_snapshot, qty) " +
+                "SELECT id, 'Load Candle', 499.00, 1 FROM orders WHERE user_id = ?", userId);
+    }
+
+    private static double medianMillis(Supplier<?> query) {
+        query.get();
+        double[] samples = new double[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long started = System.nanoTime();
+            query.get();
+            samples[i] = (System.nanoTime() - started) / 1_000_000.0;
+        }
+        Arrays.sort(samples);
+        return samples[RUNS / 2];
+    }
+}
@@ -0,0 +1,250 @@
+package com.jaee.loadtest;
+
+import com.jaee.entity.OrderReference;
+import com.jaee.service.OrderPartitionJob;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * User order lookups against the monthly-partitioned orders table versus a
+ * plain copy of the same rows with the pre-partitioning indexes, followed
+ * by the partition job's move-from-default and archive paths, and a check
+ * that moving orders out of orders_default keeps their items. Lookups that
+ * carry an {@link OrderReference} are bounded to one month and so read one
+ * partition; the plain id and razorpay_order_id lookups are the fallbacks.
+ *
+ * Tunable with -PloadTest.partitionRows, -PloadTest.partitionUsers and
+ * -PloadTest.partitionMonths; rows are spread evenly over the months.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class OrderPartitionLoadTest {
+
+    private static final int ROWS = Integer.getInteger("loadTest.partitionRows", 2_000_000);
+    private static final int USERS = Integer.getInteger("loadTest.partitionUsers", 2_000);
+    private static final int MONTHS = Integer.getInteger("loadTest.partitionMonths", 36);
+    private static final int LOOKUPS = 400;
+
+    @Autowired
+    private OrderPartitionJob orderPartitionJob;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresSupport.register(registry);
+    }
+
+    @Test
+    void partitionedVersusFlat() {
+        YearMonth now = YearMonth.now();
+        YearMonth lateMonth = now.minusMonths(MONTHS / 2);
+        for (int i = 1; i <= MONTHS; i++) {
+            if (!now.minusMonths(i).equals(lateMonth)) {
+                orderPartitionJob.ensurePartition(now.minusMonths(i));
+            }
+        }
+
+        long firstUser = seedUsersAndOrders();
+        seedFlatCopy(firstUser);
+
+        // The month without a partition went to orders_default; creating it now moves the rows over
+        long inDefault = count("SELECT COUNT(*) FROM orders_default WHERE user_id >= " + firstUser);
+        assertThat(orderPartitionJob.ensurePartition(lateMonth)).isTrue();
+        assertThat(count("SELECT COUNT(*) FROM orders_default WHERE user_id >= " + firstUser)).isZero();
+        jdbcTemplate.execute("ANALYZE orders");
+
+        Random random = new Random(42);
+        long[] orderIds = jdbcTemplate.queryForList(
+                "SELECT id FROM orders_flat TABLESAMPLE SYSTEM (1) LIMIT " + LOOKUPS, Long.class)
+                .stream().mapToLong(Long::longValue).toArray();
+        Timestamp yearAgo = Timestamp.valueOf(LocalDateTime.now().minusMonths(12));
+
+        StringBuilder report = new StringBuilder()
+                .append(String.format("%n=== Orders: %d rows, %d users, %d months (%d moved out of orders_default) ===%n",
+                        ROWS, USERS, MONTHS, inDefault))
+                .append(String.format("%-34s %12s %12s %12s %12s%n", "query (median / p95 µs)",
+                        "flat p50", "flat p95", "part p50", "part p95"));
+        bench(report, "history first page", table -> jdbcTemplate.queryForList(
+                "SELECT id FROM " + table + " WHERE user_id = ? ORDER BY created_at DESC, id DESC LIMIT 21",
+                Long.class, firstUser + random.nextInt(USERS)));
+        bench(report, "history page a year back", table -> jdbcTemplate.queryForList(
+                "SELECT id FROM " + table + " WHERE user_id = ? AND created_at <= ? AND (created_at, id) < (?, ?) " +
+                "ORDER BY created_at DESC, id DESC LIMIT 21",
+                Long.class, firstUser + random.nextInt(USERS), yearAgo, yearAgo, Long.MAX_VALUE));
+        bench(report, "last 30 days for a user", table -> jdbcTemplate.queryForList(
+                "SELECT id FROM " + table + " WHERE user_id = ? AND created_at >= now() - interval '30 days'",
+                Long.class, firstUser + random.nextInt(USERS)));
+        int[] next = {0};
+        bench(report, "order by id", table -> jdbcTemplate.queryForList(
+                "SELECT status FROM " + table + " WHERE id = ?", String.class, orderIds[next[0]++ % orderIds.length]));
+        List<OrderReference> references = new ArrayList<>();
+        for (long id : orderIds) {
+            references.add(OrderReference.of(id, jdbcTemplate.queryForObject(
+                    "SELECT created_at FROM orders_flat WHERE id = ?", Timestamp.class, id).toLocalDateTime()));
+        }
+        bench(report, "order by reference", table -> {
+            OrderReference reference = references.get(next[0]++ % references.size());
+            return jdbcTemplate.queryForList(
+                    "SELECT status FROM " + table + " WHERE id = ? AND created_at >= ? AND created_at < ?", String.class,
+                    reference.id(), Timestamp.valueOf(reference.createdFrom()), Timestamp.valueOf(reference.createdTo()));
+        });
+        bench(report, "razorpay order id", table -> jdbcTemplate.queryForList(
+                "SELECT status FROM " + table + " WHERE razorpay_order_id = ?", String.class,
+                "order_load_" + orderIds[next[0]++ % orderIds.length]));
+        bench(report, "razorpay order id + reference", table -> {
+            OrderReference reference = references.get(next[0]++ % references.size());
+            return jdbcTemplate.queryForList(
+                    "SELECT status FROM " + table + " WHERE id = ? AND created_at >= ? AND created_at < ? " +
+                    "AND razorpay_order_id = ?", String.class,
+                    reference.id(), Timestamp.valueOf(reference.createdFrom()), Timestamp.valueOf(reference.createdTo()),
+                    "order_load_" + reference.id());
+        });
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusHours(2));
+        Timestamp lookback = Timestamp.valueOf(LocalDateTime.now().minusHours(48));
+        bench(report, "stale PENDING scan, all history", table -> jdbcTemplate.queryForList(
+                "SELECT id FROM " + table + " WHERE status = 'PENDING' AND created_at < ? " +
+                "ORDER BY created_at LIMIT 200", Long.class, cutoff));
+        bench(report, "stale PENDING scan, 48h lookback", table -> jdbcTemplate.queryForList(
+                "SELECT id FROM " + table + " WHERE status = 'PENDING' AND created_at >= ? AND created_at < ? " +
+                "ORDER BY created_at LIMIT 200", Long.class, lookback, cutoff));
+
+        report.append(String.format("index size: flat %s, partitioned %s (largest partition %s)%n",
+                jdbcTemplate.queryForObject("SELECT pg_size_pretty(pg_indexes_size('orders_flat'))", String.class),
+                jdbcTemplate.queryForObject(
+                        "SELECT pg_size_pretty(SUM(pg_indexes_size(inhrelid))) FROM pg_inherits " +
+                        "WHERE inhparent = 'orders'::regclass", String.class),
+                jdbcTemplate.queryForObject(
+                        "SELECT pg_size_pretty(MAX(pg_indexes_size(inhrelid))) FROM pg_inherits " +
+                        "WHERE inhparent = 'orders'::regclass", String.class)));
+        OrderReference sample = references.get(0);
+        report.append("reference plan (partitioned):\n");
+        jdbcTemplate.queryForList(
+                "EXPLAIN (ANALYZE, COSTS OFF) SELECT status FROM orders WHERE id = " + sample.id() +
+                " AND created_at >= '" + Timestamp.valueOf(sample.createdFrom()) +
+                "' AND created_at < '" + Timestamp.valueOf(sample.createdTo()) + "'", String.class)
+                .forEach(line -> report.append("  ").append(line).append('\n'));
+        report.append("keyset plan (partitioned):\n");
+        jdbcTemplate.queryForList(
+                "EXPLAIN (ANALYZE, COSTS OFF) SELECT id FROM orders WHERE user_id = " + firstUser +
+                " AND created_at <= now() - interval '12 months' ORDER BY created_at DESC, id DESC LIMIT 21", String.class)
+                .forEach(line -> report.append("  ").append(line).append('\n'));
+
+        // Archive everything older than two and a half years
+        YearMonth firstKept = now.minusMonths(MONTHS - 6L);
+        long expected = count("SELECT COUNT(*) FROM orders WHERE user_id >= " + firstUser +
+                " AND created_at < '" + Timestamp.valueOf(firstKept.atDay(1).atStartOfDay()) + "'");
+        long started = System.nanoTime();
+        long archived = orderPartitionJob.archiveBefore(firstKept);
+        report.append(String.format("archived %d orders from %d months in %d ms%n",
+                archived, 6, (System.nanoTime() - started) / 1_000_000));
+        System.out.println(report);
+
+        assertThat(archived).isGreaterThanOrEqualTo(expected);
+        assertThat(count("SELECT COUNT(*) FROM orders_archive WHERE user_id >= " + firstUser)).isEqualTo(expected);
+        assertThat(count("SELECT COUNT(*) FROM order_items oi WHERE NOT EXISTS " +
+                "(SELECT 1 FROM orders o WHERE o.id = oi.order_id AND o.created_at = oi.order_created_at)")).isZero();
+        assertThat(count("SELECT COUNT(*) FROM order_items oi JOIN orders_archive a " +
+                "ON a.order_id = oi.order_id AND a.created_at = oi.order_created_at")).isZero();
+    }
+
+    @Test
+    void movingOrdersOutOfDefaultKeepsTheirItems() {
+        YearMonth month = YearMonth.of(2001, 1);
+        Timestamp createdAt = Timestamp.valueOf(month.atDay(15).atTime(12, 0));
+        long userId = jdbcTemplate.queryForObject("INSERT INTO users (name, email, password_hash) " +
+                "VALUES ('Default Mover', 'default-mover-' || clock_timestamp() || '@load.test', 'unused') RETURNING id",
+                Long.class);
+        long orderId = jdbcTemplate.queryForObject(
+                "INSERT INTO orders (user_id, status, total_amount, currency, created_at) " +
+                "VALUES (?, 'PAID', 998.00, 'INR', ?) RETURNING id", Long.class, userId, createdAt);
+        jdbcTemplate.update("INSERT INTO order_items (order_id, order_created_at, name_snapshot, price_snapshot, qty) " +
+                "VALUES (?, ?, 'Moved Candle', 499.00, 1), (?, ?, 'Moved Diffuser', 499.00, 1)",
+                orderId, createdAt, orderId, createdAt);
+        assertThat(count("SELECT COUNT(*) FROM orders_default WHERE id = " + orderId)).isOne();
+
+        assertThat(orderPartitionJob.ensurePartition(month)).isTrue();
+
+        assertThat(count("SELECT COUNT(*) FROM orders_default WHERE id = " + orderId)).isZero();
+        assertThat(count("SELECT COUNT(*) FROM orders_p2001_01 WHERE id = " + orderId)).isOne();
+        assertThat(jdbcTemplate.queryForList("SELECT name_snapshot FROM order_items WHERE order_id = ? ORDER BY id",
+                String.class, orderId)).containsExactly("Moved Candle", "Moved Diffuser");
+    }
+
+    /** Users plus ROWS orders spread evenly over the last MONTHS months; returns the first user id */
+    private long seedUsersAndOrders() {
+        jdbcTemplate.update("INSERT INTO users (name, email, password_hash) " +
+                "SELECT 'Partition User ' || g, 'partition-' || g || '@load.test', 'unused' FROM generate_series(1, ?) g",
+                USERS);
+        long firstUser = count("SELECT MIN(id) FROM users WHERE email LIKE 'partition-%@load.test'");
+        jdbcTemplate.update(
+                "INSERT INTO orders (user_id, status, total_amount, currency, customer_email, created_at, paid_at) " +
+                "SELECT ? + (g % ?), CASE WHEN g % 500 = 0 THEN 'PENDING' WHEN g % 20 = 0 THEN 'CANCELLED' ELSE 'PAID' END, " +
+                "       499.00, 'INR', 'partition@load.test', t, t " +
+                "FROM generate_series(1, ?) g, " +
+                "     LATERAL (SELECT now() - (? * interval '1 month') * (1 - g::float8 / ?) AS t) ts",
+                firstUser, USERS, ROWS, MONTHS, ROWS);
+        jdbcTemplate.update("UPDATE orders SET razorpay_order_id = 'order_load_' || id WHERE user_id >= ?", firstUser);
+        jdbcTemplate.update(
+                "INSERT INTO order_items (order_id, order_created_at, name_snapshot, price_snapshot, qty) " +
+                "SELECT id, created_at, 'Partition Candle', 499.00, 1 FROM orders WHERE user_id >= ? AND created_at < ?",
+                firstUser, Timestamp.valueOf(YearMonth.now().minusMonths(MONTHS - 6L).atDay(1).atStartOfDay()));
+        return firstUser;
+    }
+
+    /** The same rows in an unpartitioned table with the indexes orders had before V13 */
+    private void seedFlatCopy(long firstUser) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS orders_flat");
+        jdbcTemplate.execute("CREATE TABLE orders_flat (LIKE orders INCLUDING DEFAULTS)");
+        jdbcTemplate.update("INSERT INTO orders_flat SELECT * FROM orders WHERE user_id >= ?", firstUser);
+        jdbcTemplate.execute("ALTER TABLE orders_flat ADD PRIMARY KEY (id)");
+        jdbcTemplate.execute("CREATE INDEX ON orders_flat (user_id, created_at DESC, id DESC)");
+        jdbcTemplate.execute("CREATE INDEX ON orders_flat (status)");
+        jdbcTemplate.execute("CREATE INDEX ON orders_flat (razorpay_order_id)");
+        jdbcTemplate.execute("CREATE INDEX ON orders_flat (created_at) WHERE status = 'PENDING'");
+        jdbcTemplate.execute("CREATE INDEX ON orders_flat (paid_at) WHERE paid_at IS NOT NULL");
+        jdbcTemplate.execute("ANALYZE orders_flat");
+    }
+
+    /** Runs the query LOOKUPS times against each table and reports median and p95 latency */
+    private static void bench(StringBuilder report, String name, Function<String, List<?>> query) {
+        double[] flat = time(() -> query.apply("orders_flat"));
+        double[] partitioned = time(() -> query.apply("orders"));
+        report.append(String.format("%-34s %12.0f %12.0f %12.0f %12.0f%n",
+                name, flat[0], flat[1], partitioned[0], partitioned[1]));
+    }
+
+    private static double[] time(Runnable query) {
+        for (int i = 0; i < 20; i++) {
+            query.run();
+        }
+        double[] micros = new double[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            long started = System.nanoTime();
+            query.run();
+            micros[i] = (System.nanoTime() - started) / 1_000.0;
+        }
+        Arrays.sort(micros);
+        return new double[]{micros[LOOKUPS / 2], micros[LOOKUPS * 95 / 100]};
+    }
+
+    private long count(String sql) {
+        Long value = jdbcTemplate.queryForObject(sql, Long.class);
+        return value == null ? 0 : value;
+    }
+}
@@ -0,0 +1,193 @@
+package com.jaee.loadtest;
+
+import com.jaee.dto.auth.AuthResponse;
+import com.jaee.dto.auth.RefreshTokenRequest;
+import com.jaee.entity.User;
+import com.jaee.exception.UnauthorizedException;
+import com.jaee.repository.RefreshTokenRepository;
+import com.jaee.repository.UserRepository;
+import com.jaee.security.JwtService;
+import com.jaee.security.RevokedRefreshTokens;
+import com.jaee.service.AuthService;
+import com.jaee.service.RefreshTokenService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Refresh throughput: concurrent sessions each rotating their refresh token
+ * in a loop through AuthService.refreshToken, then every superseded token
+ * replayed once. Prints refreshes per second with p50/p99, how fast replays
+ * are turned away next to tokens that need the database to reject, and the
+ * table size afterwards (one row per session). Also checks rotation and
+ * replay against Postgres, including a node whose filter has not seen the
+ * rotation and a rotation that rolls back.
+ *
+ * Tunable with -PloadTest.sessions and -PloadTest.refreshesPerSession.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class RefreshTokenLoadTest {
+
+    private static final int SESSIONS = Integer.getInteger("loadTest.sessions", 64);
+    private static final int REFRESHES_PER_SESSION = Integer.getInteger("loadTest.refreshesPerSession", 200);
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresSupport.register(registry);
+    }
+
+    @Test
+    void refreshThroughput() throws Exception {
+        List<String> tokens = new ArrayList<>();
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < SESSIONS; i++) {
+            User user = userRepository.save(User.builder()
+                    .name("Session " + i)
+                    .email("refresh-" + i + "-" + System.nanoTime() + "@load.test")
+                    .passwordHash("unused")
+                    .build());
+            userIds.add(user.getId());
+            tokens.add(refreshTokenService.issue(user));
+        }
+
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        List<String> superseded = Collections.synchronizedList(new ArrayList<>());
+        long started = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(Math.min(SESSIONS, 32))) {
+            List<Future<?>> sessions = new ArrayList<>();
+            for (String first : tokens) {
+                sessions.add(executor.submit(() -> {
+                    String token = first;
+                    for (int i = 0; i < REFRESHES_PER_SESSION; i++) {
+                        long requestStarted = System.nanoTime();
+                        AuthResponse response = authService.refreshToken(request(token));
+                        latencies.add(System.nanoTime() - requestStarted);
+                        superseded.add(token);
+                        token = response.getRefreshToken();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> session : sessions) {
+                session.get();
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        long replayStarted = System.nanoTime();
+        for (String token : superseded) {
+            assertThatThrownBy(() -> authService.refreshToken(request(token)))
+                    .isInstanceOf(UnauthorizedException.class);
+        }
+        double replayMicros = (System.nanoTime() - replayStarted) / 1e3 / superseded.size();
+
+        // Tokens the filter has never seen still cost the UPDATE that finds nothing
+        long unknownStarted = System.nanoTime();
+        for (int i = 0; i < superseded.size(); i++) {
+            String unknown = "unknown-" + i;
+            assertThatThrownBy(() -> authService.refreshToken(request(unknown)))
+                    .isInstanceOf(UnauthorizedException.class);
+        }
+        double unknownMicros = (System.nanoTime() - unknownStarted) / 1e3 / superseded.size();
+
+        Integer rows = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM refresh_tokens WHERE user_id = ANY (?)", Integer.class,
+                (Object) userIds.toArray(Long[]::new));
+        assertThat(rows).isEqualTo(SESSIONS);
+
+        Collections.sort(latencies);
+        System.out.printf("%n=== Refresh: %d sessions x %d rotations ===%n", SESSIONS, REFRESHES_PER_SESSION);
+        System.out.printf("throughput      %,10.0f refreshes/s%n", latencies.size() / seconds);
+        System.out.printf("latency p50     %10.2f ms%n", latencies.get(latencies.size() / 2) / 1e6);
+        System.out.printf("latency p99     %10.2f ms%n", latencies.get(latencies.size() * 99 / 100) / 1e6);
+        System.out.printf("replay rejected %10.2f us each (%d replays)%n", replayMicros, superseded.size());
+        System.out.printf("unknown rejected%10.2f us each (database lookup)%n", unknownMicros);
+        System.out.printf("rows afterwards %10d (one per session)%n", rows);
+    }
+
+    @Test
+    void rotationAndReplay() {
+        User user = userRepository.save(User.builder()
+                .name("Rotation")
+                .email("rotation-" + System.nanoTime() + "@load.test")
+                .passwordHash("unused")
+                .build());
+        // Same database, empty filter: what another node sees
+        RefreshTokenService otherNode = new RefreshTokenService(refreshTokenRepository,
+                new RevokedRefreshTokens(jwtService.getRefreshExpirationMs(), 1_000), jwtService);
+
+        String first = refreshTokenService.issue(user);
+        RefreshTokenService.Rotation second = refreshTokenService.rotate(first);
+        assertThat(second.userId()).isEqualTo(user.getId());
+        assertThatThrownBy(() -> refreshTokenService.rotate(first))
+                .isInstanceOf(UnauthorizedException.class)
+                .hasMessageContaining("revoked");
+        assertThatThrownBy(() -> otherNode.rotate(first))
+                .isInstanceOf(UnauthorizedException.class)
+                .hasMessageContaining("Invalid");
+
+        // A rotation that rolls back leaves the token usable on this node too
+        String third = otherNode.rotate(second.refreshToken()).refreshToken();
+        transactionTemplate.executeWithoutResult(status -> {
+            refreshTokenService.rotate(third);
+            status.setRollbackOnly();
+        });
+        String fourth = refreshTokenService.rotate(third).refreshToken();
+        assertThatThrownBy(() -> otherNode.rotate(third)).isInstanceOf(UnauthorizedException.class);
+
+        refreshTokenService.revoke(fourth);
+        assertThatThrownBy(() -> refreshTokenService.rotate(fourth))
+                .isInstanceOf(UnauthorizedException.class)
+                .hasMessageContaining("revoked");
+        assertThatThrownBy(() -> otherNode.rotate(fourth)).isInstanceOf(UnauthorizedException.class);
+
+        String expiring = refreshTokenService.issue(user);
+        jdbcTemplate.update("UPDATE refresh_tokens SET expires_at = now() - interval '1 minute' WHERE user_id = ?",
+                user.getId());
+        assertThatThrownBy(() -> otherNode.rotate(expiring)).isInstanceOf(UnauthorizedException.class);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM refresh_tokens WHERE user_id = ?",
+                Integer.class, user.getId())).isEqualTo(1);
+    }
+
+    private static RefreshTokenRequest request(String token) {
+        RefreshTokenRequest request = new RefreshTokenRequest();
+        request.setRefreshToken(token);
+        return request;
+    }
+}
@@ -0,0 +1,128 @@
+package com.jaee.loadtest;
+
+import com.jaee.dto.order.OrderConfirmation;
+import com.jaee.service.EmailService;
+import com.jaee.service.SmtpConnectionPool;
+import com.jaee.standin.LatencyDistribution;
+import com.jaee.standin.SmtpStandInServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Confirmation emails per second into the local SMTP sink from four sending
+ * threads (the notification pool's default): a new connection per message,
+ * as JavaMailSenderImpl does, against the pooled keep-alive connections.
+ * Runs once over bare loopback and once with a delay before the greeting
+ * standing in for the TLS handshake and AUTH of a remote relay. Prints
+ * throughput and connections opened for each.
+ *
+ * Tunable with -PloadTest.messages and -PloadTest.connectLatencyMs.
+ */
+class SmtpThroughputLoadTest {
+
+    private static final int SENDERS = 4;
+    private static final int MESSAGES = Integer.getInteger("loadTest.messages", 2000);
+    private static final long CONNECT_LATENCY_MS = Long.getLong("loadTest.connectLatencyMs", 50);
+
+    @Test
+    void pooledConnectionsAgainstConnectionPerMessage() throws Exception {
+        for (long connectLatencyMs : new long[]{0, CONNECT_LATENCY_MS}) {
+            SmtpStandInServer smtp = new SmtpStandInServer(SmtpStandInServer.Settings.builder()
+                    .port(0)
+                    .connectLatencyMs(connectLatencyMs)
+                    .latency(LatencyDistribution.NONE)
+                    .build());
+            smtp.start();
+            try {
+                JavaMailSenderImpl mailSender = mailSender(smtp.getPort());
+                SmtpConnectionPool pool = new SmtpConnectionPool(mailSender, SENDERS, 30_000, 100,
+                        new SimpleMeterRegistry());
+
+                System.out.printf("%n=== SMTP: %d messages, %d senders, %dms connect latency ===%n",
+                        MESSAGES, SENDERS, connectLatencyMs);
+                run("connection per message", smtp, () -> mailSender.createMimeMessage(), mailSender::send);
+                run("pooled connections", smtp, pool::createMimeMessage, pool::send);
+                pool.closeAll();
+            } finally {
+                smtp.stop();
+            }
+        }
+    }
+
+    private static void run(String label, SmtpStandInServer smtp, MessageFactory messages,
+                            Consumer<MimeMessage> send) throws Exception {
+        long acceptedBefore = smtp.getMessagesAccepted();
+        long connectionsBefore = smtp.getConnections();
+        long started = System.nanoTime();
+        try (ExecutorService senders = Executors.newFixedThreadPool(SENDERS)) {
+            List<Future<?>> results = new ArrayList<>();
+            for (int s = 0; s < SENDERS; s++) {
+                int sender = s;
+                results.add(senders.submit(() -> {
+                    for (int i = sender; i < MESSAGES; i += SENDERS) {
+                        send.accept(confirmation(messages.create(), i));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        assertThat(smtp.getMessagesAccepted() - acceptedBefore).isEqualTo(MESSAGES);
+        System.out.printf("%-24s %,8.0f messages/s  %,6d connections%n", label, MESSAGES / seconds,
+                smtp.getConnections() - connectionsBefore);
+    }
+
+    private static MimeMessage confirmation(MimeMessage message, int i) {
+        OrderConfirmation order = OrderConfirmation.builder()
+                .orderId((long) i)
+                .customerEmail("buyer-" + i + "@load.test")
+                .totalAmount(new BigDecimal("1047.00"))
+                .items(List.of(
+                        OrderConfirmation.Line.builder().name("Soy candle").qty(2).subtotal(new BigDecimal("698.00")).build(),
+                        OrderConfirmation.Line.builder().name("Wax melt").qty(1).subtotal(new BigDecimal("349.00")).build()))
+                .build();
+        try {
+            MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+            helper.setFrom("orders@jaee.com", "Jaee");
+            helper.setTo(order.getCustomerEmail());
+            helper.setSubject("Order Confirmation - Jaee #" + order.getOrderId());
+            helper.setText(EmailService.renderOrderConfirmation(order), true);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return message;
+    }
+
+    private static JavaMailSenderImpl mailSender(int port) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(port);
+        Properties properties = new Properties();
+        properties.put("mail.smtp.auth", "false");
+        mailSender.setJavaMailProperties(properties);
+        return mailSender;
+    }
+
+    @FunctionalInterface
+    private interface MessageFactory {
+        MimeMessage create();
+    }
+}
@@ -0,0 +1,136 @@
+package com.jaee.config;
+
+import com.jaee.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.List;
+
+@Configuration
+@EnableAsync
+@Slf4j
+public class AsyncConfig {
+
+    public static final String NOTIFICATION_EXECUTOR = "notificationExecutor";
+    public static final String ROLLUP_EXECUTOR = "rollupExecutor";
+    public static final String ROLLUP_REBUILD_EXECUTOR = "rollupRebuildExecutor";
+    public static final String HASHING_EXECUTOR = "hashingExecutor";
+
+    @Value("${app.notifications.pool-size:4}")
+    private int notificationPoolSize;
+
+    @Value("${app.notifications.queue-capacity:500}")
+    private int notificationQueueCapacity;
+
+    @Value("${app.stats.rollup.queue-capacity:10000}")
+    private int rollupQueueCapacity;
+
+    @Value("${app.security.hashing.pool-size:0}")
+    private int hashingPoolSize;
+
+    @Value("${app.security.hashing.queue-capacity:64}")
+    private int hashingQueueCapacity;
+
+    /**
+     * Bounded pool that sends notification_outbox messages. The pool size
+     * caps concurrent SMTP and SMS calls; the dispatcher only claims as many
+     * messages as the queue has room for, and anything it cannot hand over
+     * stays in the outbox for the next poll.
+     */
+    @Bean(name = NOTIFICATION_EXECUTOR)
+    public ThreadPoolTaskExecutor notificationExecutor(MeterRegistry meterRegistry) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(notificationPoolSize);
+        executor.setMaxPoolSize(notificationPoolSize);
+        executor.setQueueCapacity(notificationQueueCapacity);
+        executor.setThreadNamePrefix("notification-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), NOTIFICATION_EXECUTOR, List.of())
+                .bindTo(meterRegistry);
+        return executor;
+    }
+
+    /**
+     * Single thread that applies paid orders to the sales rollups. One writer
+     * per node keeps payments from queuing on the same day's rollup row; if
+     * the queue overflows the order is skipped and a rebuild will pick it up.
+     */
+    @Bean(name = ROLLUP_EXECUTOR)
+    public ThreadPoolTaskExecutor rollupExecutor(MeterRegistry meterRegistry) {
+        Counter rejected = Counter.builder("stats.rollup.rejected")
+                .description("Paid orders not applied to the sales rollups because the queue was full")
+                .register(meterRegistry);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(rollupQueueCapacity);
+        executor.setThreadNamePrefix("rollup-");
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            rejected.increment();
+            log.error("Rollup executor saturated ({} queued), sales rollups need a rebuild", pool.getQueue().size());
+        });
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), ROLLUP_EXECUTOR, List.of())
+                .bindTo(meterRegistry);
+        return executor;
+    }
+
+    /**
+     * Runs the sales rollup rebuild started from the admin endpoint, off the
+     * request thread and off the rollup thread, whose queue of paid orders
+     * must keep draining meanwhile. The rebuild fans out on its own pool.
+     */
+    @Bean(name = ROLLUP_REBUILD_EXECUTOR)
+    public ThreadPoolTaskExecutor rollupRebuildExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("rollup-rebuild-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * BCrypt for logins, registrations, password changes and OTP checks. One
+     * thread per core (by default) caps the CPU auth can take; once the short
+     * queue is full the caller gets a 429 straight away instead of holding a
+     * request thread that catalog traffic needs.
+     */
+    @Bean(name = HASHING_EXECUTOR)
+    public ThreadPoolTaskExecutor hashingExecutor(MeterRegistry meterRegistry) {
+        Counter rejected = Counter.builder("auth.hashing.rejected")
+                .description("Password hashes refused because the hashing executor queue was full")
+                .register(meterRegistry);
+        int poolSize = hashingPoolSize > 0 ? hashingPoolSize : Runtime.getRuntime().availableProcessors();
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(hashingQueueCapacity);
+        executor.setThreadNamePrefix("hashing-");
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            rejected.increment();
+            throw new TooManyRequestsException("Too many sign-in requests right now, please try again shortly");
+        });
+        executor.initialize();
+
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), HASHING_EXECUTOR, List.of())
+                .bindTo(meterRegistry);
+        return executor;
+    }
+}
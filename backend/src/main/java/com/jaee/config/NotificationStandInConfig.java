@@ -0,0 +1,70 @@
+package com.jaee.config;
+
+import com.jaee.standin.LatencyDistribution;
+import com.jaee.standin.SmsStandInServer;
+import com.jaee.standin.SmtpStandInServer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Starts the local SMTP and SMS stand-ins alongside the app when
+ * {@code app.notifications.stand-in.enabled=true}. Point mail at the SMTP
+ * port and {@code app.sms.twilio.api-base-url} at the SMS one to run the
+ * notification outbox end to end without network access.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.notifications.stand-in.enabled", havingValue = "true")
+public class NotificationStandInConfig {
+
+    @Value("${app.notifications.stand-in.smtp-port:2525}")
+    private int smtpPort;
+
+    @Value("${app.notifications.stand-in.sms-port:8090}")
+    private int smsPort;
+
+    @Value("${app.notifications.stand-in.latency:LOGNORMAL}")
+    private LatencyDistribution latency;
+
+    @Value("${app.notifications.stand-in.smtp-connect-latency-ms:0}")
+    private long smtpConnectLatencyMs;
+
+    @Value("${app.notifications.stand-in.smtp-latency-median-ms:80}")
+    private long smtpLatencyMedianMs;
+
+    @Value("${app.notifications.stand-in.smtp-latency-p99-ms:800}")
+    private long smtpLatencyP99Ms;
+
+    @Value("${app.notifications.stand-in.sms-latency-median-ms:200}")
+    private long smsLatencyMedianMs;
+
+    @Value("${app.notifications.stand-in.sms-latency-p99-ms:1500}")
+    private long smsLatencyP99Ms;
+
+    @Value("${app.notifications.stand-in.error-rate:0.0}")
+    private double errorRate;
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public SmtpStandInServer smtpStandInServer() {
+        return new SmtpStandInServer(SmtpStandInServer.Settings.builder()
+                .port(smtpPort)
+                .connectLatencyMs(smtpConnectLatencyMs)
+                .latency(latency)
+                .latencyMedianMs(smtpLatencyMedianMs)
+                .latencyP99Ms(smtpLatencyP99Ms)
+                .errorRate(errorRate)
+                .build());
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public SmsStandInServer smsStandInServer() {
+        return new SmsStandInServer(SmsStandInServer.Settings.builder()
+                .port(smsPort)
+                .latency(latency)
+                .latencyMedianMs(smsLatencyMedianMs)
+                .latencyP99Ms(smsLatencyP99Ms)
+                .errorRate(errorRate)
+                .build());
+    }
+}
@@ -0,0 +1,77 @@
+package com.jaee.config;
+
+import com.jaee.standin.LatencyDistribution;
+import com.jaee.standin.RazorpayStandInServer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Starts the local Razorpay stand-in alongside the app when
+ * {@code app.razorpay.stand-in.enabled=true}. Point the gateway at it with
+ * {@code app.razorpay.api-base-url} and turn test mode off to exercise the
+ * real client, signature and webhook code paths without network access.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.razorpay.stand-in.enabled", havingValue = "true")
+public class RazorpayStandInConfig {
+
+    @Value("${app.razorpay.key-id}")
+    private String keyId;
+
+    @Value("${app.razorpay.key-secret}")
+    private String keySecret;
+
+    @Value("${app.razorpay.webhook-secret}")
+    private String webhookSecret;
+
+    @Value("${app.razorpay.stand-in.port:8089}")
+    private int port;
+
+    @Value("${app.razorpay.stand-in.webhook-url:http://localhost:${server.port:8080}/webhooks/razorpay}")
+    private String webhookUrl;
+
+    @Value("${app.razorpay.stand-in.latency:LOGNORMAL}")
+    private LatencyDistribution latency;
+
+    @Value("${app.razorpay.stand-in.latency-median-ms:150}")
+    private long latencyMedianMs;
+
+    @Value("${app.razorpay.stand-in.latency-p99-ms:1200}")
+    private long latencyP99Ms;
+
+    @Value("${app.razorpay.stand-in.error-rate:0.0}")
+    private double errorRate;
+
+    @Value("${app.razorpay.stand-in.webhook-delay-median-ms:300}")
+    private long webhookDelayMedianMs;
+
+    @Value("${app.razorpay.stand-in.webhook-delay-p99-ms:3000}")
+    private long webhookDelayP99Ms;
+
+    @Value("${app.razorpay.stand-in.webhook-duplicate-rate:0.1}")
+    private double webhookDuplicateRate;
+
+    @Value("${app.razorpay.stand-in.webhook-reorder-rate:0.2}")
+    private double webhookReorderRate;
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public RazorpayStandInServer razorpayStandInServer() {
+        return new RazorpayStandInServer(RazorpayStandInServer.Settings.builder()
+                .port(port)
+                .keyId(keyId)
+                .keySecret(keySecret)
+                .webhookSecret(webhookSecret)
+                .webhookUrl(webhookUrl.isBlank() ? null : webhookUrl)
+                .latency(latency)
+                .latencyMedianMs(latencyMedianMs)
+                .latencyP99Ms(latencyP99Ms)
+                .errorRate(errorRate)
+                .webhookDelayMedianMs(webhookDelayMedianMs)
+                .webhookDelayP99Ms(webhookDelayP99Ms)
+                .webhookDuplicateRate(webhookDuplicateRate)
+                .webhookReorderRate(webhookReorderRate)
+                .build());
+    }
+}
@@ -0,0 +1,83 @@
+package com.jaee.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+
+/**
+ * Polls the replica's replay lag. The replica counts as usable only while
+ * the last check succeeded, was recent, found the WAL receiver streaming and
+ * saw lag under the limit, so a lagging, disconnected, unreachable or
+ * unmonitored replica sends reads back to the primary.
+ *
+ * The replica's user needs pg_read_all_stats (or pg_monitor) to see the WAL
+ * receiver's status; without it the replica is never used.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    /**
+     * Seconds since the last replayed transaction, or 0 when everything
+     * received has been replayed (an idle primary otherwise looks like lag).
+     * NULL unless the replica is streaming from the primary: a disconnected
+     * receiver has replayed all it received too, however far behind it is.
+     */
+    private static final String LAG_SQL =
+            "SELECT CASE " +
+            "WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming') THEN NULL " +
+            "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END";
+
+    private final JdbcTemplate replica;
+    private final long maxLagMs;
+    private final long staleAfterMs;
+
+    private volatile double lagSeconds = Double.NaN;
+    private volatile long checkedAt;
+    private volatile boolean withinLimit;
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, long maxLagMs, long checkIntervalMs,
+                             MeterRegistry meterRegistry) {
+        this.replica = new JdbcTemplate(replicaDataSource);
+        this.replica.setQueryTimeout(Math.max(1, (int) (checkIntervalMs / 1000)));
+        this.maxLagMs = maxLagMs;
+        this.staleAfterMs = checkIntervalMs * 3;
+        Gauge.builder("db.replica.lag", this, monitor -> monitor.lagSeconds)
+                .description("Replay lag of the read replica at the last check")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-interval-ms:2000}")
+    public void check() {
+        boolean wasUsable = isReplicaUsable();
+        try {
+            Double lag = replica.queryForObject(LAG_SQL, Double.class);
+            lagSeconds = lag == null ? Double.NaN : lag;
+            withinLimit = lag != null && lag * 1000 <= maxLagMs;
+            if (lag == null && wasUsable) {
+                log.warn("Replica is not streaming from the primary, reading from primary");
+            }
+        } catch (RuntimeException e) {
+            lagSeconds = Double.NaN;
+            withinLimit = false;
+            if (wasUsable) {
+                log.warn("Replica lag check failed, reading from primary: {}", e.getMessage());
+            }
+        }
+        checkedAt = System.currentTimeMillis();
+        if (wasUsable && !withinLimit && !Double.isNaN(lagSeconds)) {
+            log.warn("Replica is {}s behind, reading from primary until it catches up", lagSeconds);
+        } else if (!wasUsable && withinLimit) {
+            log.info("Replica usable again ({}s behind)", lagSeconds);
+        }
+    }
+
+    public boolean isReplicaUsable() {
+        return withinLimit && System.currentTimeMillis() - checkedAt <= staleAfterMs;
+    }
+}
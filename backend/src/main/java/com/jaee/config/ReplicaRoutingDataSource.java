@@ -0,0 +1,54 @@
+package com.jaee.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Sends connections for read-only transactions to the replica pool while the
+ * replica is usable, and everything else to the primary.
+ *
+ * The route is decided when a connection is first needed, so this must sit
+ * behind a LazyConnectionDataSourceProxy: the transaction manager opens the
+ * connection before the read-only flag is visible on the thread.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route { PRIMARY, REPLICA }
+
+    private final BooleanSupplier replicaUsable;
+    private final Counter primaryRoutes;
+    private final Counter replicaRoutes;
+    private final Counter fallbackRoutes;
+
+    public ReplicaRoutingDataSource(BooleanSupplier replicaUsable, MeterRegistry meterRegistry) {
+        this.replicaUsable = replicaUsable;
+        this.primaryRoutes = routeCounter(meterRegistry, "primary");
+        this.replicaRoutes = routeCounter(meterRegistry, "replica");
+        this.fallbackRoutes = routeCounter(meterRegistry, "fallback");
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            primaryRoutes.increment();
+            return Route.PRIMARY;
+        }
+        if (!replicaUsable.getAsBoolean()) {
+            fallbackRoutes.increment();
+            return Route.PRIMARY;
+        }
+        replicaRoutes.increment();
+        return Route.REPLICA;
+    }
+
+    private static Counter routeCounter(MeterRegistry meterRegistry, String route) {
+        return Counter.builder("db.route")
+                .description("Connections handed out by the routing data source, by route")
+                .tag("route", route)
+                .register(meterRegistry);
+    }
+}
@@ -5,16 +5,29 @@ import com.jaee.dto.category.CategoryDto;
 import com.jaee.dto.common.ApiResponse;
 import com.jaee.dto.product.ProductCreateRequest;
 import com.jaee.dto.product.ProductDto;
+import com.jaee.dto.stats.RollupRebuildResult;
+import com.jaee.dto.stats.SalesStatsDto;
+import com.jaee.exception.BadRequestException;
 import com.jaee.service.CategoryService;
+import com.jaee.service.OrderExportService;
 import com.jaee.service.ProductService;
+import com.jaee.service.SalesRollupService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
 
 @RestController
 @RequestMapping("/admin")
@@ -26,6 +39,8 @@ public class AdminController {
 
     private final CategoryService categoryService;
     private final ProductService productService;
+    private final SalesRollupService salesRollupService;
+    private final OrderExportService orderExportService;
 
     // Category endpoints
     @PostMapping("/categories")
@@ -76,4 +91,47 @@ public class AdminController {
         productService.deleteProduct(id);
         return ResponseEntity.ok(ApiResponse.success("Product deleted", null));
     }
+
+    // Sales stats endpoints
+    @GetMapping("/stats")
+    @Operation(summary = "Sales for the last N days and all-time best-selling products, from the rollup tables")
+    public ResponseEntity<ApiResponse<SalesStatsDto>> getSalesStats(@RequestParam(defaultValue = "30") int days) {
+        SalesStatsDto stats = salesRollupService.getStats(days);
+        return ResponseEntity.ok(ApiResponse.success(stats));
+    }
+
+    @PostMapping("/stats/rebuild")
+    @Operation(summary = "Start recomputing the sales rollups from all paid orders in the background")
+    public ResponseEntity<ApiResponse<RollupRebuildResult>> rebuildSalesStats() {
+        RollupRebuildResult result = salesRollupService.startRebuild();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(ApiResponse.success("Sales rollup rebuild started", result));
+    }
+
+    @GetMapping("/stats/rebuild")
+    @Operation(summary = "State of the latest sales rollup rebuild")
+    public ResponseEntity<ApiResponse<RollupRebuildResult>> getSalesStatsRebuild() {
+        return ResponseEntity.ok(ApiResponse.success(salesRollupService.rebuildStatus()));
+    }
+
+    // Order export endpoints
+    @GetMapping("/orders/export")
+    @Operation(summary = "Stream orders created in [from, to) as CSV, one row per line item; defaults to last month")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "false") boolean gzip
+    ) {
+        LocalDate end = to != null ? to : LocalDate.now().withDayOfMonth(1);
+        LocalDate start = from != null ? from : end.minusMonths(1);
+        if (!start.isBefore(end)) {
+            throw new BadRequestException("'from' must be before 'to'");
+        }
+
+        String filename = "orders-" + start + "-to-" + end + (gzip ? ".csv.gz" : ".csv");
+        StreamingResponseBody body = out -> orderExportService.writeOrdersCsv(start, end, gzip, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : MediaType.parseMediaType("text/csv"))
+                .body(body);
+    }
 }
@@ -2,7 +2,7 @@ package com.jaee.controller;
 
 import com.jaee.dto.auth.*;
 import com.jaee.dto.common.ApiResponse;
-import com.jaee.entity.User;
+import com.jaee.security.AuthenticatedUser;
 import com.jaee.service.AuthService;
 import com.jaee.service.OtpService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -46,10 +46,10 @@ public class AuthController {
     @PostMapping("/logout")
     @Operation(summary = "Logout user")
     public ResponseEntity<ApiResponse<Void>> logout(
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal AuthenticatedUser principal,
             @RequestBody(required = false) RefreshTokenRequest request
     ) {
-        authService.logout(user, request != null ? request.getRefreshToken() : null);
+        authService.logout(principal, request != null ? request.getRefreshToken() : null);
         return ResponseEntity.ok(ApiResponse.success("Logged out successfully", null));
     }
 
@@ -5,7 +5,7 @@ import com.jaee.dto.cart.CartDto;
 import com.jaee.dto.cart.MergeCartRequest;
 import com.jaee.dto.cart.UpdateCartItemRequest;
 import com.jaee.dto.common.ApiResponse;
-import com.jaee.entity.User;
+import com.jaee.security.AuthenticatedUser;
 import com.jaee.service.CartService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -27,49 +27,49 @@ public class CartController {
 
     @GetMapping
     @Operation(summary = "Get current user's cart")
-    public ResponseEntity<ApiResponse<CartDto>> getCart(@AuthenticationPrincipal User user) {
-        CartDto cart = cartService.getCart(user);
+    public ResponseEntity<ApiResponse<CartDto>> getCart(@AuthenticationPrincipal AuthenticatedUser principal) {
+        CartDto cart = cartService.getCart(principal.reference());
         return ResponseEntity.ok(ApiResponse.success(cart));
     }
 
     @PostMapping("/items")
     @Operation(summary = "Add item to cart")
     public ResponseEntity<ApiResponse<CartDto>> addToCart(
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal AuthenticatedUser principal,
             @Valid @RequestBody AddToCartRequest request
     ) {
-        CartDto cart = cartService.addToCart(user, request);
+        CartDto cart = cartService.addToCart(principal.reference(), request);
         return ResponseEntity.ok(ApiResponse.success("Item added to cart", cart));
     }
 
     @PatchMapping("/items/{itemId}")
     @Operation(summary = "Update cart item quantity")
     public ResponseEntity<ApiResponse<CartDto>> updateCartItem(
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal AuthenticatedUser principal,
             @PathVariable Long itemId,
             @Valid @RequestBody UpdateCartItemRequest request
     ) {
-        CartDto cart = cartService.updateCartItem(user, itemId, request);
+        CartDto cart = cartService.updateCartItem(principal.reference(), itemId, request);
         return ResponseEntity.ok(ApiResponse.success(cart));
     }
 
     @DeleteMapping("/items/{itemId}")
     @Operation(summary = "Remove item from cart")
     public ResponseEntity<ApiResponse<CartDto>> removeCartItem(
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal AuthenticatedUser principal,
             @PathVariable Long itemId
     ) {
-        CartDto cart = cartService.removeCartItem(user, itemId);
+        CartDto cart = cartService.removeCartItem(principal.reference(), itemId);
         return ResponseEntity.ok(ApiResponse.success(cart));
     }
 
     @PostMapping("/merge")
     @Operation(summary = "Merge guest cart into user cart")
     public ResponseEntity<ApiResponse<CartDto>> mergeCart(
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal AuthenticatedUser principal,
             @Valid @RequestBody MergeCartRequest request
     ) {
-        CartDto cart = cartService.mergeCart(user, request);
+        CartDto cart = cartService.mergeCart(principal.reference(), request);
         return ResponseEntity.ok(ApiResponse.success("Cart merged successfully", cart));
     }
 }
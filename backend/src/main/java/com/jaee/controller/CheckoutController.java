@@ -1,7 +1,8 @@
 package com.jaee.controller;
 
 import com.jaee.dto.common.ApiResponse;
-import com.jaee.entity.User;
+import com.jaee.security.AuthenticatedUser;
+import com.jaee.security.UserCache;
 import com.jaee.service.CheckoutService;
 import com.razorpay.RazorpayException;
 import io.swagger.v3.oas.annotations.Operation;
@@ -25,26 +26,28 @@ import java.util.Map;
 public class CheckoutController {
 
     private final CheckoutService checkoutService;
+    private final UserCache userCache;
 
     @PostMapping("/create-order")
     @Operation(summary = "Create Razorpay order for checkout")
     public ResponseEntity<ApiResponse<Map<String, Object>>> createOrder(
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal AuthenticatedUser principal
     ) throws RazorpayException {
-        Map<String, Object> orderData = checkoutService.createOrder(user);
+        Map<String, Object> orderData = checkoutService.createOrder(userCache.get(principal));
         return ResponseEntity.ok(ApiResponse.success("Order created successfully", orderData));
     }
 
     @PostMapping("/verify-payment")
     @Operation(summary = "Verify Razorpay payment after checkout")
     public ResponseEntity<ApiResponse<Map<String, Object>>> verifyPayment(
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal AuthenticatedUser principal,
             @Valid @RequestBody PaymentVerificationRequest request
     ) {
         Map<String, Object> result = checkoutService.verifyPayment(
                 request.getRazorpayOrderId(),
                 request.getRazorpayPaymentId(),
-                request.getRazorpaySignature()
+                request.getRazorpaySignature(),
+                request.getOrderReference()
         );
         return ResponseEntity.ok(ApiResponse.success("Payment verified successfully", result));
     }
@@ -59,5 +62,8 @@ public class CheckoutController {
 
         @NotBlank(message = "Razorpay signature is required")
         private String razorpaySignature;
+
+        /** orderReference from create-order; lets the lookup read one partition */
+        private String orderReference;
     }
 }
@@ -1,9 +1,11 @@
 package com.jaee.controller;
 
 import com.jaee.dto.common.ApiResponse;
+import com.jaee.dto.common.CursorPageResponse;
 import com.jaee.dto.common.PageResponse;
 import com.jaee.dto.order.OrderDto;
-import com.jaee.entity.User;
+import com.jaee.dto.order.OrderSummaryDto;
+import com.jaee.security.AuthenticatedUser;
 import com.jaee.service.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -24,22 +26,33 @@ public class OrderController {
 
     @GetMapping
     @Operation(summary = "Get current user's orders")
-    public ResponseEntity<ApiResponse<PageResponse<OrderDto>>> getUserOrders(
-            @AuthenticationPrincipal User user,
+    public ResponseEntity<ApiResponse<PageResponse<OrderSummaryDto>>> getUserOrders(
+            @AuthenticationPrincipal AuthenticatedUser principal,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size
     ) {
-        PageResponse<OrderDto> orders = orderService.getUserOrders(user, page, size);
+        PageResponse<OrderSummaryDto> orders = orderService.getUserOrders(principal.reference(), page, size);
         return ResponseEntity.ok(ApiResponse.success(orders));
     }
 
-    @GetMapping("/{orderId}")
-    @Operation(summary = "Get order by ID")
-    public ResponseEntity<ApiResponse<OrderDto>> getOrderById(
-            @AuthenticationPrincipal User user,
-            @PathVariable Long orderId
+    @GetMapping("/history")
+    @Operation(summary = "Get current user's orders, cursor paginated (no total count)")
+    public ResponseEntity<ApiResponse<CursorPageResponse<OrderSummaryDto>>> getUserOrderHistory(
+            @AuthenticationPrincipal AuthenticatedUser principal,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        CursorPageResponse<OrderSummaryDto> orders = orderService.getUserOrderHistory(principal.reference(), cursor, size);
+        return ResponseEntity.ok(ApiResponse.success(orders));
+    }
+
+    @GetMapping("/{reference}")
+    @Operation(summary = "Get order by reference (yyyyMM-id)")
+    public ResponseEntity<ApiResponse<OrderDto>> getOrder(
+            @AuthenticationPrincipal AuthenticatedUser principal,
+            @PathVariable String reference
     ) {
-        OrderDto order = orderService.getOrderById(user, orderId);
+        OrderDto order = orderService.getOrder(principal.reference(), reference);
         return ResponseEntity.ok(ApiResponse.success(order));
     }
 
@@ -4,7 +4,8 @@ import com.jaee.dto.auth.AuthResponse;
 import com.jaee.dto.auth.OtpResponseDto;
 import com.jaee.dto.common.ApiResponse;
 import com.jaee.dto.user.*;
-import com.jaee.entity.User;
+import com.jaee.security.AuthenticatedUser;
+import com.jaee.security.UserCache;
 import com.jaee.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -23,41 +24,42 @@ import org.springframework.web.bind.annotation.*;
 public class UserController {
 
     private final UserService userService;
+    private final UserCache userCache;
 
     @GetMapping
     @Operation(summary = "Get current user profile")
-    public ResponseEntity<ApiResponse<AuthResponse.UserDto>> getCurrentUser(@AuthenticationPrincipal User user) {
-        AuthResponse.UserDto userDto = userService.getCurrentUser(user);
+    public ResponseEntity<ApiResponse<AuthResponse.UserDto>> getCurrentUser(@AuthenticationPrincipal AuthenticatedUser principal) {
+        AuthResponse.UserDto userDto = userService.getCurrentUser(userCache.get(principal));
         return ResponseEntity.ok(ApiResponse.success(userDto));
     }
 
     @PutMapping("/profile")
     @Operation(summary = "Update user profile (name)")
     public ResponseEntity<ApiResponse<AuthResponse.UserDto>> updateProfile(
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal AuthenticatedUser principal,
             @Valid @RequestBody UpdateProfileRequest request
     ) {
-        AuthResponse.UserDto updatedUser = userService.updateProfile(user, request);
+        AuthResponse.UserDto updatedUser = userService.updateProfile(principal.id(), request);
         return ResponseEntity.ok(ApiResponse.success("Profile updated successfully", updatedUser));
     }
 
     @PostMapping("/change-password")
     @Operation(summary = "Change user password")
     public ResponseEntity<ApiResponse<Void>> changePassword(
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal AuthenticatedUser principal,
             @Valid @RequestBody ChangePasswordRequest request
     ) {
-        userService.changePassword(user, request);
+        userService.changePassword(principal.id(), request);
         return ResponseEntity.ok(ApiResponse.success("Password changed successfully", null));
     }
 
     @PostMapping("/mobile/request-otp")
     @Operation(summary = "Request OTP to change mobile number")
     public ResponseEntity<ApiResponse<OtpResponseDto>> requestMobileChangeOtp(
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal AuthenticatedUser principal,
             @Valid @RequestBody ChangeMobileRequest request
     ) {
-        String devOtp = userService.requestMobileChangeOtp(user, request);
+        String devOtp = userService.requestMobileChangeOtp(userCache.get(principal), request);
         OtpResponseDto response = new OtpResponseDto(devOtp);
         String message = devOtp != null 
             ? "OTP generated (Dev Mode - shown on screen)" 
@@ -68,37 +70,37 @@ public class UserController {
     @PostMapping("/mobile/verify")
     @Operation(summary = "Verify OTP and update mobile number")
     public ResponseEntity<ApiResponse<AuthResponse.UserDto>> verifyAndChangeMobile(
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal AuthenticatedUser principal,
             @Valid @RequestBody VerifyMobileChangeRequest request
     ) {
-        AuthResponse.UserDto updatedUser = userService.verifyAndChangeMobile(user, request);
+        AuthResponse.UserDto updatedUser = userService.verifyAndChangeMobile(principal.id(), request);
         return ResponseEntity.ok(ApiResponse.success("Mobile number updated successfully", updatedUser));
     }
 
     @PostMapping("/2fa/setup")
     @Operation(summary = "Setup two-factor authentication")
-    public ResponseEntity<ApiResponse<TwoFactorSetupResponse>> setup2FA(@AuthenticationPrincipal User user) {
-        TwoFactorSetupResponse response = userService.setup2FA(user);
+    public ResponseEntity<ApiResponse<TwoFactorSetupResponse>> setup2FA(@AuthenticationPrincipal AuthenticatedUser principal) {
+        TwoFactorSetupResponse response = userService.setup2FA(principal.id());
         return ResponseEntity.ok(ApiResponse.success("Scan the QR code with your authenticator app", response));
     }
 
     @PostMapping("/2fa/enable")
     @Operation(summary = "Enable two-factor authentication after verifying code")
     public ResponseEntity<ApiResponse<Void>> enable2FA(
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal AuthenticatedUser principal,
             @Valid @RequestBody TwoFactorVerifyRequest request
     ) {
-        userService.enable2FA(user, request);
+        userService.enable2FA(principal.id(), request);
         return ResponseEntity.ok(ApiResponse.success("Two-factor authentication enabled successfully", null));
     }
 
     @PostMapping("/2fa/disable")
     @Operation(summary = "Disable two-factor authentication")
     public ResponseEntity<ApiResponse<Void>> disable2FA(
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal AuthenticatedUser principal,
             @Valid @RequestBody TwoFactorVerifyRequest request
     ) {
-        userService.disable2FA(user, request);
+        userService.disable2FA(principal.id(), request);
         return ResponseEntity.ok(ApiResponse.success("Two-factor authentication disabled successfully", null));
     }
 }
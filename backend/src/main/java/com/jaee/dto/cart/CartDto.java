@@ -26,14 +26,10 @@ public class CartDto {
                 .map(CartItemDto::fromEntity)
                 .collect(Collectors.toList());
         
-        BigDecimal subtotal = itemDtos.stream()
-                .map(CartItemDto::getSubtotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
         return CartDto.builder()
                 .id(cart.getId())
                 .items(itemDtos)
-                .subtotal(subtotal)
+                .subtotal(cart.getSubtotal().toBigDecimal())
                 .itemCount(itemDtos.size())
                 .build();
     }
@@ -61,9 +57,9 @@ public class CartDto {
                     .productName(item.getProduct().getName())
                     .productSlug(item.getProduct().getSlug())
                     .productImage(item.getProduct().getImages().isEmpty() ? null : item.getProduct().getImages().get(0))
-                    .unitPrice(item.getUnitPriceSnapshot())
+                    .unitPrice(item.getUnitPriceSnapshot().toBigDecimal())
                     .qty(item.getQty())
-                    .subtotal(item.getSubtotal())
+                    .subtotal(item.getSubtotal().toBigDecimal())
                     .inStock(item.getProduct().isInStock())
                     .availableQty(item.getProduct().getStockQty())
                     .build();
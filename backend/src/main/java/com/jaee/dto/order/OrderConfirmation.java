@@ -0,0 +1,44 @@
+package com.jaee.dto.order;
+
+import com.jaee.entity.Order;
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Detached copy of what the confirmation email needs, built while the
+ * order's session is still open. Stored as JSON in the notification outbox
+ * until the email is sent.
+ */
+@Value
+@Builder
+@Jacksonized
+public class OrderConfirmation {
+    Long orderId;
+    String customerEmail;
+    BigDecimal totalAmount;
+    List<Line> items;
+
+    public static OrderConfirmation fromEntity(Order order) {
+        return OrderConfirmation.builder()
+                .orderId(order.getId())
+                .customerEmail(order.getCustomerEmail())
+                .totalAmount(order.getTotalAmount().toBigDecimal())
+                .items(order.getItems().stream()
+                        .map(item -> new Line(item.getNameSnapshot(), item.getQty(), item.getSubtotal().toBigDecimal()))
+                        .toList())
+                .build();
+    }
+
+    @Value
+    @Builder
+    @Jacksonized
+    public static class Line {
+        String name;
+        int qty;
+        BigDecimal subtotal;
+    }
+}
@@ -2,6 +2,7 @@ package com.jaee.dto.order;
 
 import com.jaee.entity.Order;
 import com.jaee.entity.OrderItem;
+import com.jaee.entity.OrderReference;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -18,6 +19,8 @@ import java.util.stream.Collectors;
 @AllArgsConstructor
 public class OrderDto {
     private Long id;
+    /** What links and support refer to the order by; see {@link OrderReference} */
+    private String reference;
     private String status;
     private BigDecimal totalAmount;
     private String currency;
@@ -31,8 +34,9 @@ public class OrderDto {
     public static OrderDto fromEntity(Order order) {
         return OrderDto.builder()
                 .id(order.getId())
+                .reference(OrderReference.of(order).toString())
                 .status(order.getStatus().name())
-                .totalAmount(order.getTotalAmount())
+                .totalAmount(order.getTotalAmount().toBigDecimal())
                 .currency(order.getCurrency())
                 .items(order.getItems().stream()
                         .map(OrderItemDto::fromEntity)
@@ -63,9 +67,9 @@ public class OrderDto {
                     .id(item.getId())
                     .productId(item.getProduct() != null ? item.getProduct().getId() : null)
                     .name(item.getNameSnapshot())
-                    .price(item.getPriceSnapshot())
+                    .price(item.getPriceSnapshot().toBigDecimal())
                     .qty(item.getQty())
-                    .subtotal(item.getSubtotal())
+                    .subtotal(item.getSubtotal().toBigDecimal())
                     .imageUrl(item.getImageUrl())
                     .build();
         }
@@ -0,0 +1,43 @@
+package com.jaee.dto.order;
+
+import com.jaee.entity.Money;
+import com.jaee.entity.Order;
+import com.jaee.entity.OrderReference;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One row of the order list. Built straight from an aggregate query, so
+ * the line items are never loaded; use {@link OrderDto} for a single order.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryDto {
+    private Long id;
+    private String reference;
+    private String status;
+    private BigDecimal totalAmount;
+    private String currency;
+    private int lineCount;
+    private int itemCount;
+    private String firstItemName;
+    private String firstImageUrl;
+    private LocalDateTime createdAt;
+    private LocalDateTime paidAt;
+
+    /** Used by the JPQL constructor expression in OrderRepository */
+    public OrderSummaryDto(Long id, Order.OrderStatus status, Money totalAmount, String currency,
+                           LocalDateTime createdAt, LocalDateTime paidAt,
+                           Long lineCount, Long itemCount, String firstItemName, String firstImageUrl) {
+        this(id, OrderReference.of(id, createdAt).toString(), status.name(), totalAmount.toBigDecimal(), currency,
+                lineCount.intValue(), itemCount.intValue(), firstItemName, firstImageUrl,
+                createdAt, paidAt);
+    }
+}
@@ -0,0 +1,44 @@
+package com.jaee.dto.stats;
+
+import com.jaee.entity.SalesRollupState;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/** The latest sales rollup rebuild; the totals are set once it has SUCCEEDED */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupRebuildResult {
+    private String status;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private LocalDateTime paidBefore;
+    private Integer chunks;
+    private Integer days;
+    private Integer products;
+    private Long paidOrders;
+    private Long durationMs;
+    private String error;
+
+    public static RollupRebuildResult fromEntity(SalesRollupState state) {
+        return RollupRebuildResult.builder()
+                .status(state.getRebuildStatus() == null ? null : state.getRebuildStatus().name())
+                .startedAt(state.getRebuildStartedAt())
+                .finishedAt(state.getRebuildFinishedAt())
+                .paidBefore(state.getRebuiltBefore())
+                .chunks(state.getRebuildChunks())
+                .days(state.getRebuildDays())
+                .products(state.getRebuildProducts())
+                .paidOrders(state.getRebuildPaidOrders())
+                .durationMs(state.getRebuildStartedAt() == null || state.getRebuildFinishedAt() == null ? null
+                        : Duration.between(state.getRebuildStartedAt(), state.getRebuildFinishedAt()).toMillis())
+                .error(state.getRebuildError())
+                .build();
+    }
+}
@@ -0,0 +1,71 @@
+package com.jaee.dto.stats;
+
+import com.jaee.entity.DailySalesRollup;
+import com.jaee.entity.Money;
+import com.jaee.entity.ProductSalesRollup;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesStatsDto {
+    private LocalDate from;
+    private LocalDate to;
+    private long paidOrders;
+    private long units;
+    private BigDecimal revenue;
+    private String currency;
+    private List<DailySales> daily;
+    /** All-time best sellers, not limited to from..to; the rollup keeps no per-day product totals */
+    private List<ProductSales> topProducts;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DailySales {
+        private LocalDate date;
+        private long paidOrders;
+        private long units;
+        private BigDecimal revenue;
+
+        public static DailySales fromEntity(DailySalesRollup rollup) {
+            return DailySales.builder()
+                    .date(rollup.getSalesDate())
+                    .paidOrders(rollup.getPaidOrders())
+                    .units(rollup.getUnits())
+                    .revenue(Money.ofMinor(rollup.getRevenueMinor(), Money.DEFAULT_CURRENCY).toBigDecimal())
+                    .build();
+        }
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ProductSales {
+        private Long productId;
+        private String name;
+        private long paidOrders;
+        private long units;
+        private BigDecimal revenue;
+
+        public static ProductSales fromEntity(ProductSalesRollup rollup) {
+            return ProductSales.builder()
+                    .productId(rollup.getProductId())
+                    .name(rollup.getProductName())
+                    .paidOrders(rollup.getPaidOrders())
+                    .units(rollup.getUnits())
+                    .revenue(Money.ofMinor(rollup.getRevenueMinor(), Money.DEFAULT_CURRENCY).toBigDecimal())
+                    .build();
+        }
+    }
+}
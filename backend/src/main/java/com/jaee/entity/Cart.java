@@ -48,6 +48,20 @@ public class Cart {
         items.clear();
     }
 
+    /** Sum of line subtotals, without allocating per line */
+    public Money getSubtotal() {
+        String currency = items.isEmpty() ? Money.DEFAULT_CURRENCY : items.get(0).getUnitPriceSnapshot().currency();
+        long minorUnits = 0;
+        for (CartItem item : items) {
+            Money unitPrice = item.getUnitPriceSnapshot();
+            if (!currency.equals(unitPrice.currency())) {
+                throw new IllegalStateException("Cart mixes currencies " + currency + " and " + unitPrice.currency());
+            }
+            minorUnits = Math.addExact(minorUnits, Math.multiplyExact(unitPrice.minorUnits(), item.getQty()));
+        }
+        return Money.ofMinor(minorUnits, currency);
+    }
+
     @PreUpdate
     public void preUpdate() {
         this.updatedAt = LocalDateTime.now();
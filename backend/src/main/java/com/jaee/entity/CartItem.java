@@ -3,7 +3,6 @@ package com.jaee.entity;
 import jakarta.persistence.*;
 import lombok.*;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
@@ -31,12 +30,12 @@ public class CartItem {
     private Integer qty;
 
     @Column(precision = 10, scale = 2)
-    private BigDecimal unitPriceSnapshot;
+    private Money unitPriceSnapshot;
 
     @Builder.Default
     private LocalDateTime createdAt = LocalDateTime.now();
 
-    public BigDecimal getSubtotal() {
-        return unitPriceSnapshot.multiply(BigDecimal.valueOf(qty));
+    public Money getSubtotal() {
+        return unitPriceSnapshot.times(qty);
     }
 }
@@ -0,0 +1,33 @@
+package com.jaee.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "daily_sales_rollup")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailySalesRollup {
+
+    @Id
+    private LocalDate salesDate;
+
+    @Column(nullable = false)
+    private long paidOrders;
+
+    @Column(nullable = false)
+    private long units;
+
+    @Column(nullable = false)
+    private long revenueMinor;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private LocalDateTime updatedAt = LocalDateTime.now();
+}
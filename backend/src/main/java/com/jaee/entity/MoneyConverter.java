@@ -0,0 +1,26 @@
+package com.jaee.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Maps {@link Money} onto the existing DECIMAL(10, 2) amount columns.
+ *
+ * Those columns carry no currency of their own and every amount in the
+ * store is INR, so values are read back as {@link Money#DEFAULT_CURRENCY}.
+ */
+@Converter(autoApply = true)
+public class MoneyConverter implements AttributeConverter<Money, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Money money) {
+        return money == null ? null : money.toBigDecimal();
+    }
+
+    @Override
+    public Money convertToEntityAttribute(BigDecimal amount) {
+        return amount == null ? null : Money.of(amount, Money.DEFAULT_CURRENCY);
+    }
+}
@@ -3,8 +3,8 @@ package com.jaee.entity;
 import jakarta.persistence.*;
 import lombok.*;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -34,7 +34,7 @@ public class Order {
     private String razorpayPaymentId;
 
     @Column(precision = 10, scale = 2, nullable = false)
-    private BigDecimal totalAmount;
+    private Money totalAmount;
 
     @Builder.Default
     private String currency = "INR";
@@ -49,14 +49,20 @@ public class Order {
 
     private String customerPhone;
 
+    /** Microseconds, as stored, so the month in the order's reference matches its partition */
     @Builder.Default
-    private LocalDateTime createdAt = LocalDateTime.now();
+    private LocalDateTime createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
 
     private LocalDateTime paidAt;
 
+    /** Set when the order needs manual follow-up; null for nearly every order */
+    @Enumerated(EnumType.STRING)
+    private Attention attention;
+
     public void addItem(OrderItem item) {
         items.add(item);
         item.setOrder(this);
+        item.setOrderCreatedAt(createdAt);
     }
 
     public enum OrderStatus {
@@ -66,4 +72,11 @@ public class Order {
         SHIPPED,
         FULFILLED
     }
+
+    public enum Attention {
+        /** Paid, but stock ran out for at least one item */
+        STOCK_SHORTFALL,
+        /** A payment was captured after the order was cancelled and has to be refunded */
+        PAID_AFTER_CANCEL
+    }
 }
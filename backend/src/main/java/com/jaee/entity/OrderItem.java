@@ -3,7 +3,7 @@ package com.jaee.entity;
 import jakarta.persistence.*;
 import lombok.*;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "order_items")
@@ -22,6 +22,10 @@ public class OrderItem {
     @JoinColumn(name = "order_id", nullable = false)
     private Order order;
 
+    /** The order's partition key, the second half of the foreign key to orders (see V17) */
+    @Column(name = "order_created_at", nullable = false)
+    private LocalDateTime orderCreatedAt;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id")
     private Product product;
@@ -30,14 +34,21 @@ public class OrderItem {
     private String nameSnapshot;
 
     @Column(precision = 10, scale = 2, nullable = false)
-    private BigDecimal priceSnapshot;
+    private Money priceSnapshot;
 
     @Column(nullable = false)
     private Integer qty;
 
     private String imageUrl;
 
-    public BigDecimal getSubtotal() {
-        return priceSnapshot.multiply(BigDecimal.valueOf(qty));
+    @PrePersist
+    void copyOrderCreatedAt() {
+        if (orderCreatedAt == null && order != null) {
+            orderCreatedAt = order.getCreatedAt();
+        }
+    }
+
+    public Money getSubtotal() {
+        return priceSnapshot.times(qty);
     }
 }
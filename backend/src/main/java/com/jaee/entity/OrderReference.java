@@ -0,0 +1,62 @@
+package com.jaee.entity;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The reference an order is known by outside the backend: the month it was
+ * created in and its id, e.g. {@code 202610-1234}. orders is partitioned by
+ * month of created_at (see V13), so a lookup by reference reads exactly one
+ * partition. Used in /orders/{reference}, as the Razorpay receipt and in the
+ * checkout notes, so payment callbacks can carry it back.
+ */
+public record OrderReference(YearMonth month, long id) {
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final Pattern FORMAT = Pattern.compile("(\\d{6})-(\\d{1,18})");
+
+    public static OrderReference of(Order order) {
+        return of(order.getId(), order.getCreatedAt());
+    }
+
+    public static OrderReference of(Long id, LocalDateTime createdAt) {
+        return new OrderReference(YearMonth.from(createdAt), id);
+    }
+
+    /** Empty unless the value has the {@code yyyyMM-id} form */
+    public static Optional<OrderReference> parse(String value) {
+        if (value == null) {
+            return Optional.empty();
+        }
+        Matcher matcher = FORMAT.matcher(value.trim());
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new OrderReference(YearMonth.parse(matcher.group(1), MONTH),
+                    Long.parseLong(matcher.group(2))));
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+
+    /** Inclusive lower bound of the order's partition */
+    public LocalDateTime createdFrom() {
+        return month.atDay(1).atStartOfDay();
+    }
+
+    /** Exclusive upper bound of the order's partition */
+    public LocalDateTime createdTo() {
+        return month.plusMonths(1).atDay(1).atStartOfDay();
+    }
+
+    @Override
+    public String toString() {
+        return month.format(MONTH) + "-" + id;
+    }
+}
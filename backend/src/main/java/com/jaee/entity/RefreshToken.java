@@ -18,8 +18,9 @@ public class RefreshToken {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    /** SHA-256 of the token; the token itself is only ever held by the client */
     @Column(nullable = false, unique = true)
-    private String token;
+    private byte[] tokenHash;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
@@ -31,14 +32,7 @@ public class RefreshToken {
     @Builder.Default
     private LocalDateTime createdAt = LocalDateTime.now();
 
-    @Builder.Default
-    private Boolean revoked = false;
-
     public boolean isExpired() {
         return LocalDateTime.now().isAfter(expiresAt);
     }
-
-    public boolean isValid() {
-        return !revoked && !isExpired();
-    }
 }
@@ -0,0 +1,53 @@
+package com.jaee.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * The single row (id 1) every node reads the sales rollup watermark and the
+ * latest rebuild's progress from
+ */
+@Entity
+@Table(name = "sales_rollup_state")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SalesRollupState {
+
+    public static final short ID = 1;
+
+    @Id
+    private Short id;
+
+    /** Orders paid before this were counted by the last rebuild; null until one runs */
+    private LocalDateTime rebuiltBefore;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private RebuildStatus rebuildStatus;
+
+    private LocalDateTime rebuildStartedAt;
+
+    private LocalDateTime rebuildFinishedAt;
+
+    private Integer rebuildChunks;
+
+    private Integer rebuildDays;
+
+    private Integer rebuildProducts;
+
+    private Long rebuildPaidOrders;
+
+    @Column(length = 500)
+    private String rebuildError;
+
+    public enum RebuildStatus {
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+}
@@ -54,6 +54,11 @@ public class User implements UserDetails {
 
     private LocalDateTime passwordChangedAt;
 
+    // Only ever changed by UserRepository.incrementTokenVersion, never by a merge of a stale copy
+    @Builder.Default
+    @Column(nullable = false, updatable = false)
+    private Integer tokenVersion = 0;
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
@@ -0,0 +1,12 @@
+package com.jaee.event;
+
+import com.jaee.dto.order.OrderConfirmation;
+import lombok.Value;
+
+/**
+ * Published inside the transaction that moves an order to PAID
+ */
+@Value
+public class OrderPaidEvent {
+    OrderConfirmation confirmation;
+}
@@ -0,0 +1,15 @@
+package com.jaee.exception;
+
+import lombok.Getter;
+
+/** The SMS provider's rate limit has no token to spare soon enough; try again later */
+@Getter
+public class SmsThrottledException extends RuntimeException {
+
+    private final long retryAfterMs;
+
+    public SmsThrottledException(String provider, long retryAfterMs) {
+        super("SMS provider " + provider + " rate limit reached, retry in " + retryAfterMs + "ms");
+        this.retryAfterMs = retryAfterMs;
+    }
+}
@@ -0,0 +1,27 @@
+package com.jaee.repository;
+
+import com.jaee.entity.DailySalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DailySalesRollupRepository extends JpaRepository<DailySalesRollup, LocalDate> {
+
+    List<DailySalesRollup> findBySalesDateBetweenOrderBySalesDate(LocalDate from, LocalDate to);
+
+    @Modifying
+    @Query("UPDATE DailySalesRollup r SET r.paidOrders = r.paidOrders + :orders, r.units = r.units + :units, " +
+           "r.revenueMinor = r.revenueMinor + :revenueMinor, r.updatedAt = :now WHERE r.salesDate = :salesDate")
+    int increment(@Param("salesDate") LocalDate salesDate,
+                  @Param("orders") long orders,
+                  @Param("units") long units,
+                  @Param("revenueMinor") long revenueMinor,
+                  @Param("now") LocalDateTime now);
+}
@@ -1,25 +1,226 @@
 package com.jaee.repository;
 
+import com.jaee.dto.order.OrderSummaryDto;
 import com.jaee.entity.Order;
+import com.jaee.entity.OrderReference;
 import com.jaee.entity.User;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    Page<Order> findByUserOrderByCreatedAtDesc(User user, Pageable pageable);
-    
+    /**
+     * Order list rows with item counts and the first line item, computed by
+     * correlated subqueries so the items collection is never initialised and
+     * the outer query can still stop after the page's rows.
+     */
+    String SUMMARY_SELECT =
+            "SELECT new com.jaee.dto.order.OrderSummaryDto(o.id, o.status, o.totalAmount, o.currency, o.createdAt, o.paidAt, " +
+            "(SELECT COUNT(i) FROM OrderItem i WHERE i.order = o), " +
+            "(SELECT COALESCE(SUM(i.qty), 0L) FROM OrderItem i WHERE i.order = o), " +
+            "(SELECT i.nameSnapshot FROM OrderItem i WHERE i.order = o ORDER BY i.id LIMIT 1), " +
+            "(SELECT i.imageUrl FROM OrderItem i WHERE i.order = o ORDER BY i.id LIMIT 1)) " +
+            "FROM Order o ";
+    String SUMMARY_ORDER = " ORDER BY o.createdAt DESC, o.id DESC";
+
+    /**
+     * One OFFSET page of a user's order ids. The summaries are fetched for
+     * these ids separately, otherwise the subqueries run for every skipped row.
+     */
+    @Query(value = "SELECT o.id FROM Order o WHERE o.user = :user ORDER BY o.createdAt DESC, o.id DESC",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.user = :user")
+    Page<Long> findIdsByUser(@Param("user") User user, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE o.id IN :ids" + SUMMARY_ORDER)
+    List<OrderSummaryDto> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /** First page of order history; walks idx_order_user_created */
+    @Query(SUMMARY_SELECT + "WHERE o.user = :user" + SUMMARY_ORDER)
+    List<OrderSummaryDto> findSummariesByUser(@Param("user") User user, Limit limit);
+
+    /**
+     * Order history page after a (createdAt, id) cursor. The plain createdAt
+     * bound is implied by the row comparison but is what lets Postgres skip
+     * the monthly partitions newer than the cursor.
+     */
+    @Query(SUMMARY_SELECT + "WHERE o.user = :user AND o.createdAt <= :createdAt " +
+           "AND (o.createdAt, o.id) < (:createdAt, :id)" + SUMMARY_ORDER)
+    List<OrderSummaryDto> findSummariesByUserBefore(@Param("user") User user,
+                                                    @Param("createdAt") LocalDateTime createdAt,
+                                                    @Param("id") Long id,
+                                                    Limit limit);
+
+    /**
+     * Lookups by {@link OrderReference} bound createdAt to the reference's
+     * month, which is exactly one partition of orders; the id then picks the
+     * row from that partition's primary key.
+     */
+    default Optional<Order> findByReferenceAndUserWithItems(OrderReference reference, User user) {
+        return findByIdAndUserWithItems(reference.id(), user, reference.createdFrom(), reference.createdTo());
+    }
+
+    default Optional<Order> findByReference(OrderReference reference) {
+        return findByIdCreatedBetween(reference.id(), reference.createdFrom(), reference.createdTo());
+    }
+
+    default Optional<Order> findWithItems(Order order) {
+        OrderReference reference = OrderReference.of(order);
+        return findByIdWithItemsCreatedBetween(reference.id(), reference.createdFrom(), reference.createdTo());
+    }
+
+    default int updateRazorpayOrderId(Order order, String razorpayOrderId) {
+        OrderReference reference = OrderReference.of(order);
+        return updateRazorpayOrderId(reference.id(), reference.createdFrom(), reference.createdTo(), razorpayOrderId);
+    }
+
+    default int updateStatusIfCurrent(Order order, Order.OrderStatus expectedStatus, Order.OrderStatus newStatus) {
+        OrderReference reference = OrderReference.of(order);
+        return updateStatusIfCurrent(reference.id(), reference.createdFrom(), reference.createdTo(),
+                expectedStatus, newStatus);
+    }
+
+    /** Moves a PENDING order to PAID; returns 0 if another caller already did, or it was cancelled */
+    default int markPaidIfPending(Order order, String paymentId, LocalDateTime paidAt) {
+        OrderReference reference = OrderReference.of(order);
+        return markPaidIfCurrent(reference.id(), reference.createdFrom(), reference.createdTo(),
+                Order.OrderStatus.PENDING, Order.OrderStatus.PAID, paymentId, paidAt);
+    }
+
+    default Optional<Order.OrderStatus> findStatus(Order order) {
+        OrderReference reference = OrderReference.of(order);
+        return findStatus(reference.id(), reference.createdFrom(), reference.createdTo());
+    }
+
+    default int flagAttention(Order order, Order.Attention attention) {
+        OrderReference reference = OrderReference.of(order);
+        return updateAttention(reference.id(), reference.createdFrom(), reference.createdTo(), attention);
+    }
+
+    /** Records the first payment captured for a cancelled order; 0 once one has been recorded */
+    default int recordPaymentAfterCancel(Order order, String paymentId) {
+        OrderReference reference = OrderReference.of(order);
+        return recordPaymentIfCurrent(reference.id(), reference.createdFrom(), reference.createdTo(),
+                Order.OrderStatus.CANCELLED, paymentId, Order.Attention.PAID_AFTER_CANCEL);
+    }
+
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items WHERE o.id = :id AND o.user = :user " +
+           "AND o.createdAt >= :createdFrom AND o.createdAt < :createdTo")
+    Optional<Order> findByIdAndUserWithItems(@Param("id") Long id,
+                                             @Param("user") User user,
+                                             @Param("createdFrom") LocalDateTime createdFrom,
+                                             @Param("createdTo") LocalDateTime createdTo);
+
+    /** Bare-id lookup for links issued before order references; probes every partition */
     @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items WHERE o.id = :id AND o.user = :user")
     Optional<Order> findByIdAndUserWithItems(@Param("id") Long id, @Param("user") User user);
-    
+
+    /**
+     * Payment callbacks that carry no order reference; probes every
+     * partition's razorpay_order_id index
+     */
     Optional<Order> findByRazorpayOrderId(String razorpayOrderId);
-    
+
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items WHERE o.id = :id")
+    Optional<Order> findByIdWithItems(@Param("id") Long id);
+
+    @Query("SELECT o FROM Order o WHERE o.id = :id AND o.createdAt >= :createdFrom AND o.createdAt < :createdTo")
+    Optional<Order> findByIdCreatedBetween(@Param("id") Long id,
+                                           @Param("createdFrom") LocalDateTime createdFrom,
+                                           @Param("createdTo") LocalDateTime createdTo);
+
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items WHERE o.id = :id " +
+           "AND o.createdAt >= :createdFrom AND o.createdAt < :createdTo")
+    Optional<Order> findByIdWithItemsCreatedBetween(@Param("id") Long id,
+                                                    @Param("createdFrom") LocalDateTime createdFrom,
+                                                    @Param("createdTo") LocalDateTime createdTo);
+
     @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items WHERE o.razorpayOrderId = :orderId")
     Optional<Order> findByRazorpayOrderIdWithItems(@Param("orderId") String orderId);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.razorpayOrderId = :razorpayOrderId " +
+           "WHERE o.id = :id AND o.createdAt >= :createdFrom AND o.createdAt < :createdTo")
+    int updateRazorpayOrderId(@Param("id") Long id,
+                              @Param("createdFrom") LocalDateTime createdFrom,
+                              @Param("createdTo") LocalDateTime createdTo,
+                              @Param("razorpayOrderId") String razorpayOrderId);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :newStatus WHERE o.id = :id AND o.status = :expectedStatus " +
+           "AND o.createdAt >= :createdFrom AND o.createdAt < :createdTo")
+    int updateStatusIfCurrent(@Param("id") Long id,
+                              @Param("createdFrom") LocalDateTime createdFrom,
+                              @Param("createdTo") LocalDateTime createdTo,
+                              @Param("expectedStatus") Order.OrderStatus expectedStatus,
+                              @Param("newStatus") Order.OrderStatus newStatus);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :newStatus, o.paidAt = :paidAt, o.razorpayPaymentId = :paymentId " +
+           "WHERE o.id = :id AND o.status = :expectedStatus " +
+           "AND o.createdAt >= :createdFrom AND o.createdAt < :createdTo")
+    int markPaidIfCurrent(@Param("id") Long id,
+                          @Param("createdFrom") LocalDateTime createdFrom,
+                          @Param("createdTo") LocalDateTime createdTo,
+                          @Param("expectedStatus") Order.OrderStatus expectedStatus,
+                          @Param("newStatus") Order.OrderStatus newStatus,
+                          @Param("paymentId") String paymentId,
+                          @Param("paidAt") LocalDateTime paidAt);
+
+    @Query("SELECT o.status FROM Order o WHERE o.id = :id " +
+           "AND o.createdAt >= :createdFrom AND o.createdAt < :createdTo")
+    Optional<Order.OrderStatus> findStatus(@Param("id") Long id,
+                                           @Param("createdFrom") LocalDateTime createdFrom,
+                                           @Param("createdTo") LocalDateTime createdTo);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.attention = :attention WHERE o.id = :id " +
+           "AND o.createdAt >= :createdFrom AND o.createdAt < :createdTo")
+    int updateAttention(@Param("id") Long id,
+                        @Param("createdFrom") LocalDateTime createdFrom,
+                        @Param("createdTo") LocalDateTime createdTo,
+                        @Param("attention") Order.Attention attention);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.razorpayPaymentId = :paymentId, o.attention = :attention " +
+           "WHERE o.id = :id AND o.status = :expectedStatus AND o.razorpayPaymentId IS NULL " +
+           "AND o.createdAt >= :createdFrom AND o.createdAt < :createdTo")
+    int recordPaymentIfCurrent(@Param("id") Long id,
+                               @Param("createdFrom") LocalDateTime createdFrom,
+                               @Param("createdTo") LocalDateTime createdTo,
+                               @Param("expectedStatus") Order.OrderStatus expectedStatus,
+                               @Param("paymentId") String paymentId,
+                               @Param("attention") Order.Attention attention);
+
+    /**
+     * Locks a batch of stale PENDING orders created in [notBefore, cutoff);
+     * rows locked by another node are skipped, not waited on. Both bounds
+     * are on the partition key, so only the months in between are scanned.
+     */
+    @Query(value = "SELECT id FROM orders WHERE status = 'PENDING' AND created_at >= :notBefore " +
+                   "AND created_at < :cutoff ORDER BY created_at LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<Long> lockStalePendingOrderIds(@Param("notBefore") LocalDateTime notBefore,
+                                        @Param("cutoff") LocalDateTime cutoff,
+                                        @Param("limit") int limit);
+
+    /** Batch form for ids from {@link #lockStalePendingOrderIds}, with the same createdAt bounds */
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :newStatus WHERE o.id IN :ids AND o.status = :expectedStatus " +
+           "AND o.createdAt >= :createdFrom AND o.createdAt < :createdTo")
+    int updateStatusIfCurrent(@Param("ids") Collection<Long> ids,
+                              @Param("createdFrom") LocalDateTime createdFrom,
+                              @Param("createdTo") LocalDateTime createdTo,
+                              @Param("expectedStatus") Order.OrderStatus expectedStatus,
+                              @Param("newStatus") Order.OrderStatus newStatus);
 }
@@ -0,0 +1,48 @@
+package com.jaee.repository;
+
+import com.jaee.entity.OutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    /** Locks a batch of due messages; rows locked by another node are skipped, not waited on */
+    @Query(value = "SELECT * FROM notification_outbox WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+                   "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxMessage> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /** Hides claimed messages from other dispatchers until the lease runs out */
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.nextAttemptAt = :leaseUntil WHERE m.id IN :ids")
+    int lease(@Param("ids") Collection<Long> ids, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.attempts = m.attempts + 1, m.nextAttemptAt = :nextAttemptAt, " +
+           "m.status = :status, m.lastError = :error WHERE m.id = :id")
+    int recordFailure(@Param("id") Long id,
+                      @Param("status") OutboxMessage.Status status,
+                      @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                      @Param("error") String error);
+
+    /** FAILED rows are kept for inspection, but an OTP's code must not be */
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.payload = '' WHERE m.id = :id")
+    int redactPayload(@Param("id") Long id);
+
+    @Modifying
+    @Query("DELETE FROM OutboxMessage m WHERE m.id = :id")
+    int deleteSent(@Param("id") Long id);
+
+    long countByStatus(OutboxMessage.Status status);
+
+    @Query("SELECT min(m.createdAt) FROM OutboxMessage m WHERE m.status = :status")
+    LocalDateTime oldestCreatedAt(@Param("status") OutboxMessage.Status status);
+}
@@ -0,0 +1,29 @@
+package com.jaee.repository;
+
+import com.jaee.entity.ProductSalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ProductSalesRollupRepository extends JpaRepository<ProductSalesRollup, Long> {
+
+    /** Best sellers by revenue; reads the head of idx_product_sales_revenue */
+    List<ProductSalesRollup> findTop10ByOrderByRevenueMinorDesc();
+
+    @Modifying
+    @Query("UPDATE ProductSalesRollup r SET r.paidOrders = r.paidOrders + :orders, r.units = r.units + :units, " +
+           "r.revenueMinor = r.revenueMinor + :revenueMinor, r.productName = :productName, r.updatedAt = :now " +
+           "WHERE r.productId = :productId")
+    int increment(@Param("productId") Long productId,
+                  @Param("productName") String productName,
+                  @Param("orders") long orders,
+                  @Param("units") long units,
+                  @Param("revenueMinor") long revenueMinor,
+                  @Param("now") LocalDateTime now);
+}
@@ -5,6 +5,7 @@ import com.jaee.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -12,13 +13,28 @@ import java.util.Optional;
 
 @Repository
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
-    Optional<RefreshToken> findByToken(String token);
-    
+
+    /**
+     * Swap a live token's digest for its successor's in one statement, so a
+     * refresh is a single UPDATE rather than SELECT, revoke and INSERT.
+     * Returns the owner, or empty if the token is unknown, already rotated or expired.
+     */
+    @Query(value = "UPDATE refresh_tokens SET token_hash = :next, expires_at = :expiresAt, created_at = :now " +
+                   "WHERE token_hash = :current AND expires_at > :now RETURNING user_id", nativeQuery = true)
+    Optional<Long> rotate(@Param("current") byte[] current,
+                          @Param("next") byte[] next,
+                          @Param("expiresAt") LocalDateTime expiresAt,
+                          @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken rt WHERE rt.tokenHash = :tokenHash")
+    int deleteByTokenHash(@Param("tokenHash") byte[] tokenHash);
+
     @Modifying
     @Query("DELETE FROM RefreshToken rt WHERE rt.user = :user")
-    void deleteByUser(User user);
+    void deleteByUser(@Param("user") User user);
     
     @Modifying
-    @Query("DELETE FROM RefreshToken rt WHERE rt.expiresAt < :now OR rt.revoked = true")
-    void deleteExpiredOrRevokedTokens(LocalDateTime now);
+    @Query("DELETE FROM RefreshToken rt WHERE rt.expiresAt < :now")
+    void deleteExpiredTokens(LocalDateTime now);
 }
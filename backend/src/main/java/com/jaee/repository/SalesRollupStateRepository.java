@@ -0,0 +1,20 @@
+package com.jaee.repository;
+
+import com.jaee.entity.SalesRollupState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface SalesRollupStateRepository extends JpaRepository<SalesRollupState, Short> {
+
+    /**
+     * Locks the state row until the transaction ends. Exclusive rather than
+     * shared: incremental updates already queue on the same day's rollup row,
+     * so this costs them nothing extra.
+     */
+    @Query(value = "SELECT * FROM sales_rollup_state WHERE id = 1 FOR UPDATE", nativeQuery = true)
+    Optional<SalesRollupState> lockState();
+}
@@ -0,0 +1,27 @@
+package com.jaee.security;
+
+import com.jaee.entity.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Principal built from a verified access token's claims, without a database
+ * lookup. Endpoints that need more of the user than this go through UserCache.
+ */
+public record AuthenticatedUser(Long id, String username, User.Role role, int tokenVersion, Instant expiresAt) {
+
+    public List<GrantedAuthority> authorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+
+    /**
+     * A User carrying only the id and role, for repository queries and
+     * associations that key on the user and read nothing else from it
+     */
+    public User reference() {
+        return User.builder().id(id).role(role).build();
+    }
+}
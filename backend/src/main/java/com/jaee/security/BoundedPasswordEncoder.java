@@ -0,0 +1,79 @@
+package com.jaee.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a CPU-heavy encoder on a dedicated, bounded executor. The calling
+ * thread still waits for the result, but at most pool-size hashes run at
+ * once, and the executor's rejection (a 429) surfaces here unchanged when
+ * its queue is full.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final AsyncTaskExecutor executor;
+
+    private final Timer encodeWait;
+    private final Timer encodeDuration;
+    private final Timer matchesWait;
+    private final Timer matchesDuration;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, AsyncTaskExecutor executor, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.encodeWait = timer("auth.hashing.wait", "encode", "Time a hash spent queued for the hashing executor", meterRegistry);
+        this.encodeDuration = timer("auth.hashing.duration", "encode", "Time spent computing a hash", meterRegistry);
+        this.matchesWait = timer("auth.hashing.wait", "matches", "Time a hash spent queued for the hashing executor", meterRegistry);
+        this.matchesDuration = timer("auth.hashing.duration", "matches", "Time spent computing a hash", meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword), encodeWait, encodeDuration);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword), matchesWait, matchesDuration);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Callable<T> hash, Timer wait, Timer duration) {
+        long submittedAt = System.nanoTime();
+        Future<T> future = executor.submit(() -> {
+            wait.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+            return duration.recordCallable(hash);
+        });
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a password hash", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private static Timer timer(String name, String op, String description, MeterRegistry meterRegistry) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("op", op)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,52 @@
+package com.jaee.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets held as a single "theoretical arrival time" each (GCRA):
+ * taking a token is one compare-and-set, with no lock and no refill thread.
+ * A bucket untouched for longer than the longest refill period is full
+ * again, so it is simply dropped from the map.
+ */
+@Component
+@ConditionalOnProperty(name = "app.rate-limit.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRateLimiter implements RateLimiter {
+
+    private final Cache<String, AtomicLong> buckets;
+
+    public InMemoryRateLimiter(@Value("${app.rate-limit.max-keys:100000}") long maxKeys,
+                               @Value("${app.rate-limit.idle-minutes:15}") long idleMinutes) {
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .maximumSize(maxKeys)
+                .build();
+    }
+
+    @Override
+    public long tryAcquire(RateLimit limit, String key) {
+        AtomicLong arrival = buckets.get(limit.name() + ':' + key, k -> new AtomicLong(Long.MIN_VALUE));
+        long interval = limit.intervalNanos();
+        long burst = interval * limit.capacity();
+        while (true) {
+            long now = System.nanoTime();
+            long current = arrival.get();
+            // A bucket idle long enough to be full again starts from now, so it never holds more than capacity
+            long next = (current == Long.MIN_VALUE || current - now < 0 ? now : current) + interval;
+            long ahead = next - now;
+            if (ahead > burst) {
+                return Math.max(1, TimeUnit.NANOSECONDS.toMillis(ahead - burst));
+            }
+            if (arrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
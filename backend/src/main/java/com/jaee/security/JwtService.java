@@ -1,6 +1,11 @@
 package com.jaee.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.jaee.entity.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
@@ -8,6 +13,12 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -16,14 +27,58 @@ import java.util.function.Function;
 @Service
 public class JwtService {
 
-    @Value("${app.jwt.secret}")
-    private String secretKey;
-
-    @Value("${app.jwt.access-expiration-ms}")
-    private long accessExpirationMs;
-
-    @Value("${app.jwt.refresh-expiration-ms}")
-    private long refreshExpirationMs;
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String ROLE_CLAIM = "role";
+    private static final String TOKEN_VERSION_CLAIM = "ver";
+
+    private final long accessExpirationMs;
+    private final long refreshExpirationMs;
+
+    // Derived once; both are immutable and thread-safe
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+
+    /**
+     * Principals of recently verified access tokens, keyed by the token's
+     * SHA-256. An entry never outlives its token; revocation is checked on
+     * every request regardless, by the filter.
+     */
+    private final Cache<ByteBuffer, AuthenticatedUser> verified;
+
+    public JwtService(@Value("${app.jwt.secret}") String secretKey,
+                      @Value("${app.jwt.access-expiration-ms}") long accessExpirationMs,
+                      @Value("${app.jwt.refresh-expiration-ms}") long refreshExpirationMs,
+                      @Value("${app.jwt.verified-cache.max-size:10000}") long verifiedCacheSize,
+                      @Value("${app.jwt.verified-cache.ttl-seconds:60}") long verifiedCacheTtlSeconds) {
+        this.accessExpirationMs = accessExpirationMs;
+        this.refreshExpirationMs = refreshExpirationMs;
+        // Use the secret key directly as bytes (no Base64 decoding)
+        // This allows using plain text secrets in development
+        this.signingKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+        long ttlNanos = Duration.ofSeconds(verifiedCacheTtlSeconds).toNanos();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new Expiry<ByteBuffer, AuthenticatedUser>() {
+                    @Override
+                    public long expireAfterCreate(ByteBuffer hash, AuthenticatedUser principal, long currentTime) {
+                        return Math.min(ttlNanos, Duration.between(Instant.now(), principal.expiresAt()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(ByteBuffer hash, AuthenticatedUser principal, long currentTime,
+                                                  long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(ByteBuffer hash, AuthenticatedUser principal, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
 
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
@@ -34,8 +89,34 @@ public class JwtService {
         return claimsResolver.apply(claims);
     }
 
-    public String generateAccessToken(UserDetails userDetails) {
-        return generateAccessToken(new HashMap<>(), userDetails);
+    /**
+     * Access token carrying the user id, role and token version, so requests
+     * can be authenticated from the token alone
+     */
+    public String generateAccessToken(User user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(USER_ID_CLAIM, user.getId());
+        claims.put(ROLE_CLAIM, user.getRole().name());
+        claims.put(TOKEN_VERSION_CLAIM, user.getTokenVersion());
+        return generateAccessToken(claims, user);
+    }
+
+    /**
+     * Verify an access token once and build the principal from its claims.
+     * Returns null for tokens issued before the claims existed; the client
+     * then refreshes into a new one. Throws if the signature or expiry is bad.
+     */
+    public AuthenticatedUser parseAccessToken(String token) {
+        ByteBuffer hash = sha256(token);
+        AuthenticatedUser cached = verified.getIfPresent(hash);
+        if (cached != null) {
+            return cached;
+        }
+        AuthenticatedUser principal = toPrincipal(extractAllClaims(token));
+        if (principal != null) {
+            verified.put(hash, principal);
+        }
+        return principal;
     }
 
     public String generateAccessToken(Map<String, Object> extraClaims, UserDetails userDetails) {
@@ -52,36 +133,32 @@ public class JwtService {
                 .subject(userDetails.getUsername())
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    private static AuthenticatedUser toPrincipal(Claims claims) {
+        Number userId = claims.get(USER_ID_CLAIM, Number.class);
+        String role = claims.get(ROLE_CLAIM, String.class);
+        Number tokenVersion = claims.get(TOKEN_VERSION_CLAIM, Number.class);
+        if (userId == null || role == null || tokenVersion == null || claims.getExpiration() == null) {
+            return null;
+        }
+        return new AuthenticatedUser(userId.longValue(), claims.getSubject(), User.Role.valueOf(role),
+                tokenVersion.intValue(), claims.getExpiration().toInstant());
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
 
-    private SecretKey getSigningKey() {
-        // Use the secret key directly as bytes (no Base64 decoding)
-        // This allows using plain text secrets in development
-        byte[] keyBytes = secretKey.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static ByteBuffer sha256(String token) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
     public long getRefreshExpirationMs() {
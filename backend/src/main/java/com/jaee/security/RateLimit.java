@@ -0,0 +1,19 @@
+package com.jaee.security;
+
+import java.time.Duration;
+
+/**
+ * A token bucket: {@code capacity} requests at once, refilled evenly over
+ * {@code period}. The name identifies the bucket family in keys and metrics.
+ */
+public record RateLimit(String name, int capacity, Duration period) {
+
+    public static RateLimit perMinute(String name, int capacity) {
+        return new RateLimit(name, capacity, Duration.ofMinutes(1));
+    }
+
+    /** Time to earn back one token */
+    public long intervalNanos() {
+        return period.toNanos() / capacity;
+    }
+}
@@ -0,0 +1,229 @@
+package com.jaee.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jaee.dto.common.ApiResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Token-bucket limits on the unauthenticated auth endpoints, per client IP
+ * and per submitted email or mobile number. Runs ahead of the JWT filter, so
+ * an over-limit request is refused before any token parsing, database query
+ * or password hash.
+ *
+ * The client IP is {@code getRemoteAddr()}; behind a proxy, set
+ * {@code server.forward-headers-strategy} so it is the real client's.
+ * Bodies the filter has to read are capped at {@value #MAX_BODY_BYTES} bytes;
+ * anything larger is refused with a 413 before it is buffered.
+ */
+@Component
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    /** Limits for one endpoint; {@code field} names the body property keyed by {@code perField} */
+    private record Rule(RateLimit perIp, String field, RateLimit perField) {
+    }
+
+    // A login or OTP body is well under 1 KB
+    static final int MAX_BODY_BYTES = 8 * 1024;
+
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Rule> rules;
+    private final Map<String, Counter> allowed = new HashMap<>();
+    private final Map<String, Counter> rejected = new HashMap<>();
+
+    public RateLimitFilter(RateLimiter rateLimiter,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.rate-limit.login.per-ip:20}") int loginPerIp,
+                           @Value("${app.rate-limit.login.per-email:5}") int loginPerEmail,
+                           @Value("${app.rate-limit.register.per-ip:5}") int registerPerIp,
+                           @Value("${app.rate-limit.otp-request.per-ip:10}") int otpRequestPerIp,
+                           @Value("${app.rate-limit.otp-request.per-mobile:3}") int otpRequestPerMobile,
+                           @Value("${app.rate-limit.otp-verify.per-ip:20}") int otpVerifyPerIp,
+                           @Value("${app.rate-limit.otp-verify.per-mobile:10}") int otpVerifyPerMobile,
+                           @Value("${app.rate-limit.refresh.per-ip:30}") int refreshPerIp) {
+        this.rateLimiter = rateLimiter;
+        this.objectMapper = objectMapper;
+        this.rules = Map.of(
+                "/auth/login", new Rule(RateLimit.perMinute("login.ip", loginPerIp),
+                        "email", RateLimit.perMinute("login.email", loginPerEmail)),
+                "/auth/register", new Rule(RateLimit.perMinute("register.ip", registerPerIp), null, null),
+                "/auth/otp/request", new Rule(RateLimit.perMinute("otp-request.ip", otpRequestPerIp),
+                        "mobileNumber", RateLimit.perMinute("otp-request.mobile", otpRequestPerMobile)),
+                "/auth/otp/verify", new Rule(RateLimit.perMinute("otp-verify.ip", otpVerifyPerIp),
+                        "mobileNumber", RateLimit.perMinute("otp-verify.mobile", otpVerifyPerMobile)),
+                "/auth/refresh", new Rule(RateLimit.perMinute("refresh.ip", refreshPerIp), null, null));
+
+        for (Rule rule : rules.values()) {
+            for (RateLimit limit : rule.perField() != null ? List.of(rule.perIp(), rule.perField()) : List.of(rule.perIp())) {
+                allowed.put(limit.name(), counter(meterRegistry, limit, "allowed"));
+                rejected.put(limit.name(), counter(meterRegistry, limit, "rejected"));
+            }
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !rules.containsKey(path(request));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        Rule rule = rules.get(path(request));
+
+        if (!acquire(rule.perIp(), request.getRemoteAddr(), response)) {
+            return;
+        }
+
+        HttpServletRequest forwarded = request;
+        if (rule.perField() != null) {
+            byte[] body = request.getContentLengthLong() > MAX_BODY_BYTES
+                    ? null
+                    : request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+            if (body == null || body.length > MAX_BODY_BYTES) {
+                reject(response, HttpStatus.PAYLOAD_TOO_LARGE, "Request body too large");
+                return;
+            }
+            String key = bodyField(body, rule.field());
+            if (key != null && !acquire(rule.perField(), key, response)) {
+                return;
+            }
+            forwarded = new CachedBodyRequest(request, body);
+        }
+
+        filterChain.doFilter(forwarded, response);
+    }
+
+    private boolean acquire(RateLimit limit, String key, HttpServletResponse response) throws IOException {
+        long retryAfterMs = rateLimiter.tryAcquire(limit, key);
+        if (retryAfterMs == 0) {
+            allowed.get(limit.name()).increment();
+            return true;
+        }
+        rejected.get(limit.name()).increment();
+        log.debug("Rate limit {} exceeded", limit.name());
+
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf((retryAfterMs + 999) / 1000));
+        reject(response, HttpStatus.TOO_MANY_REQUESTS, "Too many requests. Please try again shortly.");
+        return false;
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), ApiResponse.error(message));
+    }
+
+    /**
+     * The email or mobile number from the JSON body, normalized so formatting
+     * variants share a bucket. Malformed bodies are left for validation to reject.
+     */
+    private String bodyField(byte[] body, String field) {
+        try {
+            JsonNode value = objectMapper.readTree(body).get(field);
+            if (value == null || !value.isTextual() || value.asText().isBlank()) {
+                return null;
+            }
+            String text = value.asText();
+            if ("mobileNumber".equals(field)) {
+                String digits = text.replaceAll("\\D", "");
+                return digits.length() > 10 ? digits.substring(digits.length() - 10) : digits;
+            }
+            return text.trim().toLowerCase(Locale.ROOT);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, RateLimit limit, String outcome) {
+        return Counter.builder("auth.rate_limit")
+                .description("Auth requests checked against a rate limit")
+                .tag("limit", limit.name())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /** Replays the already read (small) auth request body downstream */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    // Auth controllers read their body synchronously; nothing here starts async processing
+                    throw new IllegalStateException("Async reads are not supported on a rate-limited auth request body");
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.jaee.security;
+
+/**
+ * Takes tokens from rate-limit buckets. The default is {@link InMemoryRateLimiter},
+ * one set of buckets per node; a deployment that needs limits shared across
+ * nodes provides another implementation (Redis, say) under a different
+ * {@code app.rate-limit.store} value.
+ */
+public interface RateLimiter {
+
+    /**
+     * Take a token from the bucket for this limit and key.
+     * @return 0 if one was taken, otherwise the milliseconds until one is available
+     */
+    long tryAcquire(RateLimit limit, String key);
+}
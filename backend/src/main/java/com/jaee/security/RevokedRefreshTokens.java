@@ -0,0 +1,108 @@
+package com.jaee.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of refresh-token digests this node has rotated away or
+ * logged out, so replaying one fails without a database round trip. The
+ * digests are SHA-256, already uniformly random, so the filter's probe
+ * positions come straight from their bits.
+ *
+ * A false positive rejects a live token (its holder signs in again); the
+ * filter is sized for about one in a million at the expected number of
+ * revocations per token lifetime. Bloom filters cannot forget, so two
+ * generations are kept and the older is dropped each token lifetime;
+ * by then every token it held has expired anyway.
+ *
+ * Other nodes do not see these entries; there the database rejects the
+ * token as before.
+ */
+@Component
+public class RevokedRefreshTokens {
+
+    // Optimal for a one-in-a-million false positive rate: about 28.8 bits per entry, 20 probes
+    private static final double BITS_PER_ENTRY = 28.8;
+    private static final int PROBES = 20;
+
+    private final long bits;
+    private final long generationNanos;
+
+    private volatile Generation current;
+    private volatile Generation previous;
+
+    public RevokedRefreshTokens(@Value("${app.jwt.refresh-expiration-ms}") long refreshExpirationMs,
+                                @Value("${app.jwt.revoked-refresh-filter.expected-entries:1000000}") long expectedEntries) {
+        // Rounded up to whole longs
+        this.bits = ((long) (expectedEntries * BITS_PER_ENTRY) + 63) & ~63L;
+        this.generationNanos = refreshExpirationMs * 1_000_000L;
+        this.current = new Generation(bits, System.nanoTime());
+        this.previous = new Generation(bits, System.nanoTime());
+    }
+
+    public void add(byte[] tokenHash) {
+        currentGeneration().add(tokenHash);
+    }
+
+    public boolean mightContain(byte[] tokenHash) {
+        return currentGeneration().mightContain(tokenHash) || previous.mightContain(tokenHash);
+    }
+
+    private Generation currentGeneration() {
+        Generation generation = current;
+        if (System.nanoTime() - generation.startedAt < generationNanos) {
+            return generation;
+        }
+        synchronized (this) {
+            if (current == generation) {
+                previous = generation;
+                current = new Generation(bits, System.nanoTime());
+            }
+            return current;
+        }
+    }
+
+    private static final class Generation {
+
+        private final AtomicLongArray words;
+        private final long bits;
+        private final long startedAt;
+
+        Generation(long bits, long startedAt) {
+            this.words = new AtomicLongArray(Math.toIntExact(bits / 64));
+            this.bits = bits;
+            this.startedAt = startedAt;
+        }
+
+        void add(byte[] tokenHash) {
+            ByteBuffer hash = ByteBuffer.wrap(tokenHash);
+            long h1 = hash.getLong(0);
+            long h2 = hash.getLong(8);
+            for (int i = 0; i < PROBES; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bits);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long value;
+                do {
+                    value = words.get(word);
+                } while ((value & mask) == 0 && !words.compareAndSet(word, value, value | mask));
+            }
+        }
+
+        boolean mightContain(byte[] tokenHash) {
+            ByteBuffer hash = ByteBuffer.wrap(tokenHash);
+            long h1 = hash.getLong(0);
+            long h2 = hash.getLong(8);
+            for (int i = 0; i < PROBES; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bits);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.jaee.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * In-memory revocation epochs: the lowest token version still accepted for
+ * each user whose tokens were revoked on this node. Entries only need to
+ * outlive the access tokens they reject, so they expire with them.
+ *
+ * Other nodes do not see these entries; a revoked access token stays usable
+ * there until it expires, as every access token did before versions existed.
+ * Refresh tokens are revoked in the database, so no node will renew it.
+ */
+@Component
+public class TokenRevocations {
+
+    private final Cache<Long, Integer> minimumVersions;
+
+    public TokenRevocations(@Value("${app.jwt.access-expiration-ms}") long accessExpirationMs,
+                            @Value("${app.security.revocations.max-size:100000}") long maxSize) {
+        this.minimumVersions = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(accessExpirationMs))
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    /** Reject this user's access tokens issued before the given version */
+    public void revokeBefore(Long userId, int currentVersion) {
+        minimumVersions.asMap().merge(userId, currentVersion, Math::max);
+    }
+
+    public boolean isRevoked(AuthenticatedUser principal) {
+        Integer minimum = minimumVersions.getIfPresent(principal.id());
+        return minimum != null && principal.tokenVersion() < minimum;
+    }
+}
@@ -0,0 +1,48 @@
+package com.jaee.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jaee.entity.User;
+import com.jaee.exception.UnauthorizedException;
+import com.jaee.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Small bounded cache of User entities for the endpoints that only read more
+ * than the token's claims (profile, checkout contact details). Entries are
+ * detached snapshots shared between requests and live for a short TTL, so
+ * they must never be modified or saved: anything that changes a user loads
+ * the row inside its own transaction. UserService evicts a user after a
+ * committed change, so only changes made on another node can be served stale.
+ */
+@Component
+public class UserCache {
+
+    private final UserRepository userRepository;
+    private final Cache<Long, User> users;
+
+    public UserCache(UserRepository userRepository,
+                     @Value("${app.security.user-cache.max-size:10000}") long maxSize,
+                     @Value("${app.security.user-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    public User get(AuthenticatedUser principal) {
+        User user = users.get(principal.id(), id -> userRepository.findById(id).orElse(null));
+        if (user == null) {
+            throw new UnauthorizedException("User no longer exists");
+        }
+        return user;
+    }
+
+    public void evict(Long userId) {
+        users.invalidate(userId);
+    }
+}
@@ -1,12 +1,11 @@
 package com.jaee.service;
 
 import com.jaee.dto.auth.*;
-import com.jaee.entity.RefreshToken;
 import com.jaee.entity.User;
 import com.jaee.exception.BadRequestException;
 import com.jaee.exception.UnauthorizedException;
-import com.jaee.repository.RefreshTokenRepository;
 import com.jaee.repository.UserRepository;
+import com.jaee.security.AuthenticatedUser;
 import com.jaee.security.JwtService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -16,16 +15,13 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
-import java.util.UUID;
-
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenService refreshTokenService;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
@@ -67,38 +63,28 @@ public class AuthService {
 
     @Transactional
     public AuthResponse refreshToken(RefreshTokenRequest request) {
-        RefreshToken refreshToken = refreshTokenRepository.findByToken(request.getRefreshToken())
+        // One UPDATE swaps the old token for the new one
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.getRefreshToken());
+        User user = userRepository.findById(rotation.userId())
                 .orElseThrow(() -> new UnauthorizedException("Invalid refresh token"));
 
-        if (!refreshToken.isValid()) {
-            refreshTokenRepository.delete(refreshToken);
-            throw new UnauthorizedException("Refresh token expired or revoked");
-        }
-
-        User user = refreshToken.getUser();
-        
-        // Revoke old token and create new one
-        refreshToken.setRevoked(true);
-        refreshTokenRepository.save(refreshToken);
-
-        return createAuthResponse(user);
+        return createAuthResponse(user, rotation.refreshToken());
     }
 
     @Transactional
-    public void logout(User user, String refreshToken) {
+    public void logout(AuthenticatedUser principal, String refreshToken) {
         if (refreshToken != null && !refreshToken.isBlank()) {
-            refreshTokenRepository.findByToken(refreshToken)
-                    .ifPresent(token -> {
-                        token.setRevoked(true);
-                        refreshTokenRepository.save(token);
-                    });
+            refreshTokenService.revoke(refreshToken);
         }
-        log.info("User logged out: {}", user.getUsername());
+        log.info("User logged out: {}", principal.username());
     }
 
     private AuthResponse createAuthResponse(User user) {
+        return createAuthResponse(user, refreshTokenService.issue(user));
+    }
+
+    private AuthResponse createAuthResponse(User user, String refreshToken) {
         String accessToken = jwtService.generateAccessToken(user);
-        String refreshToken = createRefreshToken(user);
 
         return AuthResponse.builder()
                 .accessToken(accessToken)
@@ -113,17 +99,4 @@ public class AuthService {
                         .build())
                 .build();
     }
-
-    private String createRefreshToken(User user) {
-        String token = UUID.randomUUID().toString();
-        
-        RefreshToken refreshToken = RefreshToken.builder()
-                .token(token)
-                .user(user)
-                .expiresAt(LocalDateTime.now().plusSeconds(jwtService.getRefreshExpirationMs() / 1000))
-                .build();
-
-        refreshTokenRepository.save(refreshToken);
-        return token;
-    }
 }
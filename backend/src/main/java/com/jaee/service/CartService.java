@@ -6,6 +6,7 @@ import com.jaee.dto.cart.MergeCartRequest;
 import com.jaee.dto.cart.UpdateCartItemRequest;
 import com.jaee.entity.Cart;
 import com.jaee.entity.CartItem;
+import com.jaee.entity.Money;
 import com.jaee.entity.Product;
 import com.jaee.entity.User;
 import com.jaee.exception.BadRequestException;
@@ -65,7 +66,7 @@ public class CartService {
                     .cart(cart)
                     .product(product)
                     .qty(request.getQty())
-                    .unitPriceSnapshot(product.getPrice())
+                    .unitPriceSnapshot(Money.of(product.getPrice(), product.getCurrency()))
                     .build();
             cart.addItem(newItem);
             cartItemRepository.save(newItem);
@@ -140,7 +141,7 @@ public class CartService {
                         .cart(cart)
                         .product(product)
                         .qty(qtyToAdd)
-                        .unitPriceSnapshot(product.getPrice())
+                        .unitPriceSnapshot(Money.of(product.getPrice(), product.getCurrency()))
                         .build();
                 cart.addItem(newItem);
                 cartItemRepository.save(newItem);
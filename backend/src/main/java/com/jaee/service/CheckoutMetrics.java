@@ -0,0 +1,187 @@
+package com.jaee.service;
+
+import com.jaee.entity.Order;
+import com.jaee.exception.BadRequestException;
+import com.jaee.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-stage timings for the checkout flows.
+ *
+ * {@link #trace} wraps one create-order / verify / webhook call and collects
+ * every {@link #stage} timed on the same thread. When the call ends each
+ * stage is recorded as {@code checkout.stage} and the whole call as
+ * {@code checkout.total}, tagged with flow, mode (test/live) and outcome, and
+ * a one-line breakdown is logged for a sample of calls plus every slow one.
+ * A stage timed outside a trace is recorded on its own with outcome success
+ * or error.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CheckoutMetrics {
+
+    private static final ThreadLocal<Trace> CURRENT = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.razorpay.test-mode:true}")
+    private boolean testMode;
+
+    @Value("${app.checkout.metrics.log-sample-rate:0.01}")
+    private double logSampleRate;
+
+    @Value("${app.checkout.metrics.slow-threshold-ms:2000}")
+    private long slowThresholdMs;
+
+    /**
+     * Time a whole checkout flow and the stages run inside it
+     */
+    public <T, E extends Exception> T trace(String flow, Step<T, E> body) throws E {
+        if (CURRENT.get() != null) {
+            return body.run();
+        }
+        Trace trace = new Trace(flow);
+        CURRENT.set(trace);
+        try {
+            T result = body.run();
+            finish(trace, trace.outcome != null ? trace.outcome : "success");
+            return result;
+        } catch (Exception e) {
+            finish(trace, outcomeOf(e));
+            throw e;
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Time one stage of the current checkout flow
+     */
+    public <T, E extends Exception> T stage(String name, Step<T, E> body) throws E {
+        Trace trace = CURRENT.get();
+        long started = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = body.run();
+            failed = false;
+            return result;
+        } finally {
+            long elapsed = System.nanoTime() - started;
+            if (trace != null) {
+                trace.stages.add(new StageTiming(name, elapsed));
+            } else {
+                stageTimer("none", name, failed ? "error" : "success").record(elapsed, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Override the outcome tag of the current flow, e.g. for a duplicate callback
+     */
+    public void outcome(String outcome) {
+        Trace trace = CURRENT.get();
+        if (trace != null) {
+            trace.outcome = outcome;
+        }
+    }
+
+    /**
+     * Count an order flagged for manual follow-up
+     */
+    public void attention(Order.Attention reason) {
+        Counter.builder("checkout.attention")
+                .description("Orders flagged for manual follow-up")
+                .tag("reason", reason.name())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private void finish(Trace trace, String outcome) {
+        long total = System.nanoTime() - trace.started;
+        for (StageTiming stage : trace.stages) {
+            stageTimer(trace.flow, stage.name(), outcome).record(stage.nanos(), TimeUnit.NANOSECONDS);
+        }
+        Timer.builder("checkout.total")
+                .description("End-to-end checkout flow latency")
+                .tag("flow", trace.flow)
+                .tag("mode", mode())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(total, TimeUnit.NANOSECONDS);
+
+        boolean slow = total >= TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+        if (slow || ThreadLocalRandom.current().nextDouble() < logSampleRate) {
+            StringBuilder line = new StringBuilder("checkout_timing flow=").append(trace.flow)
+                    .append(" mode=").append(mode())
+                    .append(" outcome=").append(outcome)
+                    .append(" slow=").append(slow)
+                    .append(" total_ms=").append(millis(total));
+            for (StageTiming stage : trace.stages) {
+                line.append(' ').append(stage.name()).append("_ms=").append(millis(stage.nanos()));
+            }
+            log.info(line.toString());
+        }
+    }
+
+    private Timer stageTimer(String flow, String stage, String outcome) {
+        return Timer.builder("checkout.stage")
+                .description("Latency of one checkout stage")
+                .tag("flow", flow)
+                .tag("stage", stage)
+                .tag("mode", mode())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private String mode() {
+        return testMode ? "test" : "live";
+    }
+
+    private static String outcomeOf(Exception e) {
+        if (e instanceof BadRequestException) {
+            return "rejected";
+        }
+        if (e instanceof ServiceUnavailableException) {
+            return "unavailable";
+        }
+        return "error";
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+    }
+
+    @FunctionalInterface
+    public interface Step<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    private record StageTiming(String name, long nanos) {
+    }
+
+    private static final class Trace {
+        private final String flow;
+        private final long started = System.nanoTime();
+        private final List<StageTiming> stages = new ArrayList<>();
+        private String outcome;
+
+        private Trace(String flow) {
+            this.flow = flow;
+        }
+    }
+}
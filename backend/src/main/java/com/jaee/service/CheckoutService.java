@@ -4,23 +4,18 @@ import com.jaee.entity.*;
 import com.jaee.exception.BadRequestException;
 import com.jaee.repository.CartRepository;
 import com.jaee.repository.OrderRepository;
-import com.jaee.repository.ProductRepository;
-import com.razorpay.Order;
-import com.razorpay.RazorpayClient;
 import com.razorpay.RazorpayException;
 import com.razorpay.Utils;
-import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -29,9 +24,10 @@ public class CheckoutService {
 
     private final CartRepository cartRepository;
     private final OrderRepository orderRepository;
-    private final ProductRepository productRepository;
-    private final CartService cartService;
-    private final EmailService emailService;
+    private final PaymentFinalizer paymentFinalizer;
+    private final CheckoutMetrics checkoutMetrics;
+    private final RazorpayGateway razorpayGateway;
+    private final TransactionTemplate transactionTemplate;
 
     @Value("${app.razorpay.key-id}")
     private String razorpayKeyId;
@@ -45,106 +41,93 @@ public class CheckoutService {
     @Value("${app.razorpay.test-mode:true}")
     private boolean testMode;
 
-    private RazorpayClient razorpayClient;
-
-    @PostConstruct
-    public void init() {
-        if (testMode) {
-            log.info("🧪 Razorpay TEST MODE enabled - payments will be simulated");
-            return;
-        }
-        try {
-            razorpayClient = new RazorpayClient(razorpayKeyId, razorpayKeySecret);
-            log.info("Razorpay client initialized");
-        } catch (RazorpayException e) {
-            log.error("Failed to initialize Razorpay client: {}", e.getMessage());
-        }
-    }
-
     /**
-     * Create a Razorpay order for checkout
+     * Create a Razorpay order for checkout.
+     *
+     * Runs in three short phases so no pooled connection is held while we wait
+     * on the gateway: a local transaction creates the pending order, the
+     * Razorpay call runs outside any transaction, and a second local
+     * transaction records the gateway order id.
      */
-    @Transactional
     public Map<String, Object> createOrder(User user) throws RazorpayException {
-        Cart cart = cartRepository.findByUserWithItems(user)
-                .orElseThrow(() -> new BadRequestException("Cart is empty"));
+        return checkoutMetrics.trace("create_order", () -> doCreateOrder(user));
+    }
 
-        if (cart.getItems().isEmpty()) {
-            throw new BadRequestException("Cart is empty");
-        }
+    private Map<String, Object> doCreateOrder(User user) throws RazorpayException {
+        // Phase 1: validate cart and persist the pending order
+        com.jaee.entity.Order pendingOrder = transactionTemplate.execute(status -> {
+            Cart cart = checkoutMetrics.stage("cart_fetch", () -> cartRepository.findByUserWithItems(user))
+                    .orElseThrow(() -> new BadRequestException("Cart is empty"));
 
-        // Validate stock
-        for (CartItem item : cart.getItems()) {
-            Product product = item.getProduct();
-            if (!product.getActive()) {
-                throw new BadRequestException("Product '" + product.getName() + "' is no longer available");
+            if (cart.getItems().isEmpty()) {
+                throw new BadRequestException("Cart is empty");
             }
-            if (product.getStockQty() < item.getQty()) {
-                throw new BadRequestException("Insufficient stock for '" + product.getName() + 
-                        "'. Available: " + product.getStockQty());
-            }
-        }
 
-        // Create pending order in our database
-        com.jaee.entity.Order pendingOrder = createPendingOrder(user, cart);
+            // Validate stock
+            checkoutMetrics.stage("stock_validation", () -> {
+                for (CartItem item : cart.getItems()) {
+                    Product product = item.getProduct();
+                    if (!product.getActive()) {
+                        throw new BadRequestException("Product '" + product.getName() + "' is no longer available");
+                    }
+                    if (product.getStockQty() < item.getQty()) {
+                        throw new BadRequestException("Insufficient stock for '" + product.getName() + 
+                                "'. Available: " + product.getStockQty());
+                    }
+                }
+                return null;
+            });
 
-        // Calculate total in paise (Razorpay expects amount in smallest currency unit)
-        long amountInPaise = pendingOrder.getTotalAmount()
-                .multiply(BigDecimal.valueOf(100))
-                .longValue();
+            return checkoutMetrics.stage("create_pending_order", () -> createPendingOrder(user, cart));
+        });
 
-        // TEST MODE: Simulate Razorpay order without API call
-        if (testMode) {
-            String mockOrderId = "test_order_" + pendingOrder.getId() + "_" + System.currentTimeMillis();
-            pendingOrder.setRazorpayOrderId(mockOrderId);
-            orderRepository.save(pendingOrder);
-
-            log.info("🧪 TEST MODE: Created mock order for user {}: {}", user.getId(), mockOrderId);
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("orderId", mockOrderId);
-            response.put("amount", amountInPaise);
-            response.put("currency", pendingOrder.getCurrency());
-            response.put("keyId", "test_key");
-            response.put("internalOrderId", pendingOrder.getId());
-            response.put("testMode", true);  // Signal frontend to use test mode
-            
-            // Use HashMap for prefill since Map.of() doesn't allow null values
-            Map<String, String> prefill = new HashMap<>();
-            prefill.put("name", user.getName() != null ? user.getName() : "");
-            prefill.put("email", user.getEmail() != null ? user.getEmail() : "");
-            prefill.put("contact", user.getMobileNumber() != null ? user.getMobileNumber() : "");
-            response.put("prefill", prefill);
-            
-            return response;
-        }
-
-        // Create Razorpay order
-        JSONObject orderRequest = new JSONObject();
-        orderRequest.put("amount", amountInPaise);
-        orderRequest.put("currency", pendingOrder.getCurrency());
-        orderRequest.put("receipt", "order_" + pendingOrder.getId());
-        orderRequest.put("notes", new JSONObject()
-                .put("order_id", pendingOrder.getId().toString())
-                .put("user_id", user.getId().toString())
-        );
+        // Razorpay expects the amount in the smallest currency unit (paise)
+        long amountInPaise = pendingOrder.getTotalAmount().minorUnits();
+        String reference = OrderReference.of(pendingOrder).toString();
 
-        Order razorpayOrder = razorpayClient.orders.create(orderRequest);
+        // Phase 2: gateway call, outside any transaction
+        String razorpayOrderId;
+        try {
+            razorpayOrderId = checkoutMetrics.stage("razorpay_create_order", () -> razorpayGateway.createOrder(
+                    amountInPaise,
+                    pendingOrder.getCurrency(),
+                    reference,
+                    new JSONObject()
+                            .put("order_id", pendingOrder.getId().toString())
+                            .put("order_ref", reference)
+                            .put("user_id", user.getId().toString())
+            ));
+        } catch (RazorpayException | RuntimeException e) {
+            // Don't leave an orphaned PENDING order behind for a checkout that never reached the gateway
+            transactionTemplate.executeWithoutResult(status -> orderRepository.updateStatusIfCurrent(
+                    pendingOrder,
+                    com.jaee.entity.Order.OrderStatus.PENDING,
+                    com.jaee.entity.Order.OrderStatus.CANCELLED));
+            log.error("Razorpay order creation failed for order {}: {}", pendingOrder.getId(), e.getMessage());
+            throw e;
+        }
 
-        // Update our order with Razorpay order ID
-        pendingOrder.setRazorpayOrderId(razorpayOrder.get("id"));
-        orderRepository.save(pendingOrder);
+        // Phase 3: record the gateway order id
+        String gatewayOrderId = razorpayOrderId;
+        checkoutMetrics.stage("record_gateway_order_id", () -> transactionTemplate.execute(status ->
+                orderRepository.updateRazorpayOrderId(pendingOrder, gatewayOrderId)));
 
-        log.info("Razorpay order created for user {}: {}", user.getId(), razorpayOrder.get("id"));
+        if (testMode) {
+            log.info("🧪 TEST MODE: Created mock order for user {}: {}", user.getId(), razorpayOrderId);
+        } else {
+            log.info("Razorpay order created for user {}: {}", user.getId(), razorpayOrderId);
+        }
 
         // Return data needed for frontend checkout
         Map<String, Object> response = new HashMap<>();
-        response.put("orderId", razorpayOrder.get("id"));
+        response.put("orderId", razorpayOrderId);
         response.put("amount", amountInPaise);
         response.put("currency", pendingOrder.getCurrency());
-        response.put("keyId", razorpayKeyId);
+        response.put("keyId", testMode ? "test_key" : razorpayKeyId);
         response.put("internalOrderId", pendingOrder.getId());
-        response.put("testMode", false);
+        // Passed back on verify-payment and in the checkout notes, so callbacks find the order's partition
+        response.put("orderReference", reference);
+        response.put("testMode", testMode);  // Signal frontend to use test mode
         
         // Use HashMap for prefill since Map.of() doesn't allow null values
         Map<String, String> prefill = new HashMap<>();
@@ -159,92 +142,96 @@ public class CheckoutService {
     /**
      * Verify payment after Razorpay checkout completes (called from frontend)
      */
-    @Transactional
-    public Map<String, Object> verifyPayment(String razorpayOrderId, String razorpayPaymentId, 
-                                              String razorpaySignature) {
+    public Map<String, Object> verifyPayment(String razorpayOrderId, String razorpayPaymentId,
+                                              String razorpaySignature, String orderReference) {
+        return checkoutMetrics.trace("verify_payment",
+                () -> doVerifyPayment(razorpayOrderId, razorpayPaymentId, razorpaySignature, orderReference));
+    }
+
+    private Map<String, Object> doVerifyPayment(String razorpayOrderId, String razorpayPaymentId,
+                                                String razorpaySignature, String orderReference) {
         // Find our order first
-        com.jaee.entity.Order order = orderRepository.findByRazorpayOrderId(razorpayOrderId)
+        com.jaee.entity.Order order = checkoutMetrics.stage("order_lookup",
+                        () -> findOnPrimary(razorpayOrderId, orderReference))
                 .orElseThrow(() -> new BadRequestException("Order not found"));
 
         // TEST MODE: Skip signature verification
         if (!testMode) {
-            try {
-                JSONObject attributes = new JSONObject();
-                attributes.put("razorpay_order_id", razorpayOrderId);
-                attributes.put("razorpay_payment_id", razorpayPaymentId);
-                attributes.put("razorpay_signature", razorpaySignature);
-
-                boolean isValid = Utils.verifyPaymentSignature(attributes, razorpayKeySecret);
-
-                if (!isValid) {
-                    log.error("Invalid Razorpay signature for order: {}", razorpayOrderId);
-                    throw new BadRequestException("Payment verification failed");
-                }
-            } catch (RazorpayException e) {
-                log.error("Razorpay signature verification error: {}", e.getMessage());
-                throw new BadRequestException("Payment verification failed");
-            }
+            checkoutMetrics.stage("signature_verification", () -> {
+                verifyPaymentSignature(razorpayOrderId, razorpayPaymentId, razorpaySignature);
+                return null;
+            });
         } else {
             log.info("🧪 TEST MODE: Skipping signature verification for order: {}", razorpayOrderId);
         }
 
-        if (order.getStatus() != com.jaee.entity.Order.OrderStatus.PENDING) {
-            log.info("Order {} already processed", order.getId());
-            return Map.of("success", true, "orderId", order.getId(), "message", "Order already processed");
-        }
-
-        // Mark order as paid
-        order.setStatus(com.jaee.entity.Order.OrderStatus.PAID);
-        order.setPaidAt(LocalDateTime.now());
-        order.setRazorpayPaymentId(razorpayPaymentId);
-
-        // Reduce stock
-        for (OrderItem item : order.getItems()) {
-            Product product = item.getProduct();
-            if (product != null) {
-                product.reduceStock(item.getQty());
-                productRepository.save(product);
-            }
+        PaymentFinalizer.Outcome outcome = paymentFinalizer.finalizePayment(
+                order, razorpayPaymentId, testMode ? "TEST" : "Razorpay");
+        if (outcome == PaymentFinalizer.Outcome.PAID_AFTER_CANCEL) {
+            checkoutMetrics.outcome("paid_after_cancel");
+            return Map.of(
+                    "success", false,
+                    "orderId", order.getId(),
+                    "orderReference", OrderReference.of(order).toString(),
+                    "message", "This order was cancelled before your payment arrived; the payment will be refunded"
+            );
         }
-
-        orderRepository.save(order);
-
-        // Clear cart
-        cartService.clearCart(order.getUser());
-
-        // Send confirmation email
-        try {
-            emailService.sendOrderConfirmation(order);
-        } catch (Exception e) {
-            log.error("Failed to send order confirmation email for order {}: {}", order.getId(), e.getMessage());
+        if (outcome != PaymentFinalizer.Outcome.FINALIZED) {
+            checkoutMetrics.outcome("duplicate");
         }
 
-        log.info("Order {} completed successfully via {} payment {}", 
-                order.getId(), testMode ? "TEST" : "Razorpay", razorpayPaymentId);
-
         return Map.of(
                 "success", true,
                 "orderId", order.getId(),
-                "message", "Payment successful"
+                "orderReference", OrderReference.of(order).toString(),
+                "message", outcome == PaymentFinalizer.Outcome.FINALIZED ? "Payment successful" : "Order already processed"
         );
     }
 
+    private void verifyPaymentSignature(String razorpayOrderId, String razorpayPaymentId, String razorpaySignature) {
+        try {
+            JSONObject attributes = new JSONObject();
+            attributes.put("razorpay_order_id", razorpayOrderId);
+            attributes.put("razorpay_payment_id", razorpayPaymentId);
+            attributes.put("razorpay_signature", razorpaySignature);
+
+            boolean isValid = Utils.verifyPaymentSignature(attributes, razorpayKeySecret);
+
+            if (!isValid) {
+                log.error("Invalid Razorpay signature for order: {}", razorpayOrderId);
+                throw new BadRequestException("Payment verification failed");
+            }
+        } catch (RazorpayException e) {
+            log.error("Razorpay signature verification error: {}", e.getMessage());
+            throw new BadRequestException("Payment verification failed");
+        }
+    }
+
     /**
      * Handle Razorpay webhook events
      */
-    @Transactional
     public void handleWebhook(String payload, String signature) {
+        checkoutMetrics.trace("webhook", () -> {
+            doHandleWebhook(payload, signature);
+            return null;
+        });
+    }
+
+    private void doHandleWebhook(String payload, String signature) {
         // Verify webhook signature
-        try {
-            boolean isValid = Utils.verifyWebhookSignature(payload, signature, razorpayWebhookSecret);
-            if (!isValid) {
-                log.error("Invalid Razorpay webhook signature");
+        checkoutMetrics.stage("signature_verification", () -> {
+            try {
+                boolean isValid = Utils.verifyWebhookSignature(payload, signature, razorpayWebhookSecret);
+                if (!isValid) {
+                    log.error("Invalid Razorpay webhook signature");
+                    throw new BadRequestException("Invalid signature");
+                }
+            } catch (RazorpayException e) {
+                log.error("Webhook signature verification failed: {}", e.getMessage());
                 throw new BadRequestException("Invalid signature");
             }
-        } catch (RazorpayException e) {
-            log.error("Webhook signature verification failed: {}", e.getMessage());
-            throw new BadRequestException("Invalid signature");
-        }
+            return null;
+        });
 
         JSONObject webhookData = new JSONObject(payload);
         String event = webhookData.getString("event");
@@ -255,6 +242,8 @@ public class CheckoutService {
             handlePaymentCaptured(webhookData);
         } else if ("payment.failed".equals(event)) {
             handlePaymentFailed(webhookData);
+        } else {
+            checkoutMetrics.outcome("ignored");
         }
     }
 
@@ -266,7 +255,8 @@ public class CheckoutService {
         String razorpayOrderId = paymentEntity.getString("order_id");
         String razorpayPaymentId = paymentEntity.getString("id");
 
-        com.jaee.entity.Order order = orderRepository.findByRazorpayOrderId(razorpayOrderId)
+        com.jaee.entity.Order order = checkoutMetrics.stage("order_lookup",
+                        () -> findOnPrimary(razorpayOrderId, orderReference(webhookData)))
                 .orElse(null);
 
         if (order == null) {
@@ -274,38 +264,12 @@ public class CheckoutService {
             return;
         }
 
-        if (order.getStatus() != com.jaee.entity.Order.OrderStatus.PENDING) {
-            log.info("Order {} already processed", order.getId());
-            return;
-        }
-
-        // Update order status
-        order.setStatus(com.jaee.entity.Order.OrderStatus.PAID);
-        order.setPaidAt(LocalDateTime.now());
-        order.setRazorpayPaymentId(razorpayPaymentId);
-
-        // Reduce stock
-        for (OrderItem item : order.getItems()) {
-            Product product = item.getProduct();
-            if (product != null) {
-                product.reduceStock(item.getQty());
-                productRepository.save(product);
-            }
+        PaymentFinalizer.Outcome outcome = paymentFinalizer.finalizePayment(order, razorpayPaymentId, "webhook");
+        if (outcome == PaymentFinalizer.Outcome.PAID_AFTER_CANCEL) {
+            checkoutMetrics.outcome("paid_after_cancel");
+        } else if (outcome != PaymentFinalizer.Outcome.FINALIZED) {
+            checkoutMetrics.outcome("duplicate");
         }
-
-        orderRepository.save(order);
-
-        // Clear cart
-        cartService.clearCart(order.getUser());
-
-        // Send confirmation email
-        try {
-            emailService.sendOrderConfirmation(order);
-        } catch (Exception e) {
-            log.error("Failed to send order confirmation email for order {}: {}", order.getId(), e.getMessage());
-        }
-
-        log.info("Order {} marked as paid via webhook", order.getId());
     }
 
     private void handlePaymentFailed(JSONObject webhookData) {
@@ -320,26 +284,56 @@ public class CheckoutService {
 
         log.warn("Payment failed for Razorpay order {}: {}", razorpayOrderId, errorDescription);
 
-        // Optionally update order status to CANCELLED
-        orderRepository.findByRazorpayOrderId(razorpayOrderId)
+        // Cancel only if still pending, so a late failure event can't undo a payment that went through
+        findOnPrimary(razorpayOrderId, orderReference(webhookData))
                 .ifPresent(order -> {
-                    if (order.getStatus() == com.jaee.entity.Order.OrderStatus.PENDING) {
-                        order.setStatus(com.jaee.entity.Order.OrderStatus.CANCELLED);
-                        orderRepository.save(order);
+                    int updated = transactionTemplate.execute(status -> orderRepository.updateStatusIfCurrent(
+                            order,
+                            com.jaee.entity.Order.OrderStatus.PENDING,
+                            com.jaee.entity.Order.OrderStatus.CANCELLED));
+                    if (updated > 0) {
                         log.info("Order {} marked as cancelled due to payment failure", order.getId());
                     }
                 });
     }
 
-    private com.jaee.entity.Order createPendingOrder(User user, Cart cart) {
-        BigDecimal total = cart.getItems().stream()
-                .map(CartItem::getSubtotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    /**
+     * Gateway callbacks can arrive moments after the order was written, so
+     * the lookup runs in a read-write transaction to keep it off the replica.
+     * With the order's reference it reads one partition and checks the
+     * gateway order id; without one it falls back to the razorpay_order_id
+     * index of every partition.
+     */
+    private Optional<com.jaee.entity.Order> findOnPrimary(String razorpayOrderId, String orderReference) {
+        Optional<OrderReference> reference = OrderReference.parse(orderReference);
+        return transactionTemplate.execute(status -> reference.isPresent()
+                ? orderRepository.findByReference(reference.get())
+                        .filter(order -> razorpayOrderId.equals(order.getRazorpayOrderId()))
+                : orderRepository.findByRazorpayOrderId(razorpayOrderId));
+    }
+
+    /**
+     * The receipt of the order entity, which Razorpay includes in order
+     * events, else the order_ref note the checkout form attached to the payment
+     */
+    private static String orderReference(JSONObject webhookData) {
+        JSONObject payload = webhookData.getJSONObject("payload");
+        JSONObject order = payload.optJSONObject("order");
+        if (order != null && order.optJSONObject("entity") != null) {
+            String receipt = order.getJSONObject("entity").optString("receipt", null);
+            if (receipt != null) {
+                return receipt;
+            }
+        }
+        JSONObject notes = payload.getJSONObject("payment").getJSONObject("entity").optJSONObject("notes");
+        return notes != null ? notes.optString("order_ref", null) : null;
+    }
 
+    private com.jaee.entity.Order createPendingOrder(User user, Cart cart) {
         com.jaee.entity.Order order = com.jaee.entity.Order.builder()
                 .user(user)
                 .status(com.jaee.entity.Order.OrderStatus.PENDING)
-                .totalAmount(total)
+                .totalAmount(cart.getSubtotal())
                 .currency(cart.getItems().get(0).getProduct().getCurrency())
                 .customerEmail(user.getEmail())
                 .customerPhone(user.getMobileNumber())
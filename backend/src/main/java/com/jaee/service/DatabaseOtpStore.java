@@ -0,0 +1,98 @@
+package com.jaee.service;
+
+import com.jaee.entity.OtpCode;
+import com.jaee.exception.TooManyRequestsException;
+import com.jaee.repository.OtpCodeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+/**
+ * OTP store on the otp_codes table, for deployments where the request and
+ * the verification may land on different nodes. The digest is stored
+ * Base64-encoded in otp_hash.
+ */
+@Component
+@ConditionalOnProperty(name = "app.otp.store", havingValue = "database")
+public class DatabaseOtpStore implements OtpStore {
+
+    private final OtpCodeRepository otpCodeRepository;
+    private final int maxAttempts;
+    private final int cooldownSeconds;
+
+    public DatabaseOtpStore(OtpCodeRepository otpCodeRepository,
+                            @Value("${app.otp.max-attempts:5}") int maxAttempts,
+                            @Value("${app.otp.cooldown-seconds:60}") int cooldownSeconds) {
+        this.otpCodeRepository = otpCodeRepository;
+        this.maxAttempts = maxAttempts;
+        this.cooldownSeconds = cooldownSeconds;
+    }
+
+    @Override
+    @Transactional
+    public void issue(String mobileNumber, byte[] digest, Instant expiresAt) {
+        otpCodeRepository.findFirstByMobileNumberOrderByCreatedAtDesc(mobileNumber)
+                .ifPresent(existingOtp -> {
+                    if (existingOtp.getLastSentAt() != null) {
+                        long secondsSinceLastSend = ChronoUnit.SECONDS.between(
+                                existingOtp.getLastSentAt(), LocalDateTime.now());
+                        if (secondsSinceLastSend < cooldownSeconds) {
+                            throw new TooManyRequestsException(
+                                    "Please wait " + (cooldownSeconds - secondsSinceLastSend) + " seconds before requesting a new OTP");
+                        }
+                    }
+                });
+
+        otpCodeRepository.deleteByMobileNumber(mobileNumber);
+
+        OtpCode otpCode = OtpCode.builder()
+                .mobileNumber(mobileNumber)
+                .otpHash(Base64.getEncoder().encodeToString(digest))
+                .expiresAt(LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault()))
+                .lastSentAt(LocalDateTime.now())
+                .build();
+        otpCodeRepository.save(otpCode);
+    }
+
+    @Override
+    @Transactional
+    public Verification verify(String mobileNumber, byte[] digest) {
+        OtpCode otpCode = otpCodeRepository.findFirstByMobileNumberOrderByCreatedAtDesc(mobileNumber)
+                .orElse(null);
+        if (otpCode == null) {
+            return Verification.of(Outcome.MISSING);
+        }
+        if (otpCode.isExpired()) {
+            otpCodeRepository.delete(otpCode);
+            return Verification.of(Outcome.EXPIRED);
+        }
+        if (otpCode.getAttempts() >= maxAttempts) {
+            otpCodeRepository.delete(otpCode);
+            return Verification.of(Outcome.LOCKED);
+        }
+        if (!MessageDigest.isEqual(decode(otpCode.getOtpHash()), digest)) {
+            otpCode.incrementAttempts();
+            otpCodeRepository.save(otpCode);
+            return new Verification(Outcome.INVALID, maxAttempts - otpCode.getAttempts());
+        }
+        otpCodeRepository.delete(otpCode);
+        return Verification.of(Outcome.VERIFIED);
+    }
+
+    // Rows written before digests (BCrypt hashes) simply never match
+    private static byte[] decode(String otpHash) {
+        try {
+            return Base64.getDecoder().decode(otpHash);
+        } catch (IllegalArgumentException e) {
+            return new byte[0];
+        }
+    }
+}
@@ -1,25 +1,38 @@
 package com.jaee.service;
 
-import com.jaee.entity.Order;
-import com.jaee.entity.OrderItem;
+import com.jaee.dto.order.OrderConfirmation;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.MailPreparationException;
 import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailService {
 
-    private final JavaMailSender mailSender;
+    private static final EmailTemplate ORDER_CONFIRMATION = EmailTemplate.load("email/order-confirmation.html");
+    private static final EmailTemplate ORDER_LINE = EmailTemplate.load("email/order-confirmation-line.html");
+    private static final int ORDER_ID = ORDER_CONFIRMATION.slot("orderId");
+    private static final int ITEMS = ORDER_CONFIRMATION.slot("items");
+    private static final int TOTAL = ORDER_CONFIRMATION.slot("total");
+    private static final int LINE_NAME = ORDER_LINE.slot("name");
+    private static final int LINE_QTY = ORDER_LINE.slot("qty");
+    private static final int LINE_SUBTOTAL = ORDER_LINE.slot("subtotal");
+
+    // Sending threads are pooled, so one buffer each is reused across messages; an outsized one is dropped
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(8192));
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+
+    private final SmtpConnectionPool smtpConnectionPool;
+    private final CheckoutMetrics checkoutMetrics;
 
     @Value("${app.email.from}")
     private String fromEmail;
@@ -30,104 +43,66 @@ public class EmailService {
     @Value("${app.email.enabled:true}")
     private boolean emailEnabled;
 
-    @Async
-    public void sendOrderConfirmation(Order order) {
+    /**
+     * Send the confirmation now, on the calling thread (the notification
+     * dispatcher's). Throws if the mail server refuses it, so the outbox retries.
+     */
+    public void sendOrderConfirmation(OrderConfirmation order) {
         if (!emailEnabled || order.getCustomerEmail() == null) {
-            log.info("Email disabled or no customer email for order {}", order.getId());
+            log.info("Email disabled or no customer email for order {}", order.getOrderId());
             return;
         }
 
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+            MimeMessage message = smtpConnectionPool.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
 
             helper.setFrom(fromEmail, fromName);
             helper.setTo(order.getCustomerEmail());
-            helper.setSubject("Order Confirmation - Jaee #" + order.getId());
-            helper.setText(buildOrderConfirmationHtml(order), true);
+            helper.setSubject("Order Confirmation - Jaee #" + order.getOrderId());
+            helper.setText(renderOrderConfirmation(order), true);
 
-            mailSender.send(message);
-            log.info("Order confirmation email sent to {} for order {}", order.getCustomerEmail(), order.getId());
+            checkoutMetrics.stage("email_send", () -> {
+                smtpConnectionPool.send(message);
+                return null;
+            });
+            log.info("Order confirmation email sent to {} for order {}", order.getCustomerEmail(), order.getOrderId());
         } catch (MessagingException | java.io.UnsupportedEncodingException e) {
-            log.error("Failed to send order confirmation email: {}", e.getMessage());
+            throw new MailPreparationException("Could not build confirmation email for order " + order.getOrderId(), e);
         }
     }
 
-    private String buildOrderConfirmationHtml(Order order) {
-        StringBuilder itemsHtml = new StringBuilder();
-        for (OrderItem item : order.getItems()) {
-            itemsHtml.append(String.format("""
-                <tr>
-                    <td style="padding: 12px; border-bottom: 1px solid #f0f0f0;">
-                        <strong>%s</strong><br>
-                        <span style="color: #666;">Qty: %d</span>
-                    </td>
-                    <td style="padding: 12px; border-bottom: 1px solid #f0f0f0; text-align: right;">
-                        ₹%s
-                    </td>
-                </tr>
-                """, 
-                item.getNameSnapshot(),
-                item.getQty(),
-                item.getSubtotal().setScale(2, BigDecimal.ROUND_HALF_UP)
-            ));
+    /** Render the confirmation body into this thread's buffer */
+    public static String renderOrderConfirmation(OrderConfirmation order) {
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        ORDER_CONFIRMATION.render(out, (slot, html) -> {
+            if (slot == ORDER_ID) {
+                html.append(order.getOrderId());
+            } else if (slot == ITEMS) {
+                for (OrderConfirmation.Line item : order.getItems()) {
+                    ORDER_LINE.render(html, (lineSlot, lineHtml) -> {
+                        if (lineSlot == LINE_NAME) {
+                            EmailTemplate.appendEscaped(lineHtml, item.getName());
+                        } else if (lineSlot == LINE_QTY) {
+                            lineHtml.append(item.getQty());
+                        } else if (lineSlot == LINE_SUBTOTAL) {
+                            appendAmount(lineHtml, item.getSubtotal());
+                        }
+                    });
+                }
+            } else if (slot == TOTAL) {
+                appendAmount(html, order.getTotalAmount());
+            }
+        });
+        String rendered = out.toString();
+        if (out.capacity() > MAX_RETAINED_BUFFER) {
+            BUFFER.remove();
         }
+        return rendered;
+    }
 
-        return String.format("""
-            <!DOCTYPE html>
-            <html>
-            <head>
-                <meta charset="UTF-8">
-                <style>
-                    body { font-family: 'Segoe UI', Tahoma, Geneva, Verdana, sans-serif; background-color: #FAF7F2; margin: 0; padding: 20px; }
-                    .container { max-width: 600px; margin: 0 auto; background-color: #FFFFFF; border-radius: 12px; overflow: hidden; box-shadow: 0 4px 6px rgba(0,0,0,0.1); }
-                    .header { background-color: #D4A5A5; padding: 30px; text-align: center; }
-                    .header h1 { color: #FFFFFF; margin: 0; font-size: 28px; letter-spacing: 2px; }
-                    .content { padding: 30px; }
-                    .order-number { background-color: #F5E6E0; padding: 15px; border-radius: 8px; margin-bottom: 20px; text-align: center; }
-                    .order-number h2 { margin: 0; color: #2D2D2D; font-size: 18px; }
-                    table { width: 100%%; border-collapse: collapse; }
-                    .total { font-size: 18px; font-weight: bold; color: #2D2D2D; }
-                    .footer { background-color: #FAF7F2; padding: 20px; text-align: center; color: #6B6B6B; font-size: 14px; }
-                </style>
-            </head>
-            <body>
-                <div class="container">
-                    <div class="header">
-                        <h1>JAEE</h1>
-                    </div>
-                    <div class="content">
-                        <p style="font-size: 16px; color: #2D2D2D;">Thank you for your order! 💕</p>
-                        
-                        <div class="order-number">
-                            <h2>Order #%d</h2>
-                        </div>
-                        
-                        <h3 style="color: #2D2D2D; border-bottom: 2px solid #D4A5A5; padding-bottom: 10px;">Order Details</h3>
-                        
-                        <table>
-                            %s
-                            <tr>
-                                <td style="padding: 15px 12px; font-weight: bold;">Total</td>
-                                <td style="padding: 15px 12px; text-align: right;" class="total">₹%s</td>
-                            </tr>
-                        </table>
-                        
-                        <p style="margin-top: 30px; color: #6B6B6B;">
-                            We'll send you another email when your order ships.
-                        </p>
-                    </div>
-                    <div class="footer">
-                        <p>Questions? Contact us at support@jaee.com</p>
-                        <p>© 2024 Jaee. All rights reserved.</p>
-                    </div>
-                </div>
-            </body>
-            </html>
-            """,
-            order.getId(),
-            itemsHtml.toString(),
-            order.getTotalAmount().setScale(2, BigDecimal.ROUND_HALF_UP)
-        );
+    private static void appendAmount(StringBuilder out, BigDecimal amount) {
+        out.append(amount.setScale(2, RoundingMode.HALF_UP).toPlainString());
     }
 }
@@ -0,0 +1,105 @@
+package com.jaee.service;
+
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An HTML email template split once, when loaded, into static text and the
+ * {@code {{slot}}}s between it. Rendering appends the text and asks the
+ * caller to write each slot in turn, so nothing is parsed or formatted per
+ * message. A slot may appear more than once; {@link #slot} gives the id the
+ * caller is asked for.
+ */
+public final class EmailTemplate {
+
+    @FunctionalInterface
+    public interface Slots {
+        void write(int slot, StringBuilder out);
+    }
+
+    private final String name;
+    private final String[] text;
+    private final int[] slotAt;
+    private final List<String> slotNames;
+
+    private EmailTemplate(String name, String[] text, int[] slotAt, List<String> slotNames) {
+        this.name = name;
+        this.text = text;
+        this.slotAt = slotAt;
+        this.slotNames = slotNames;
+    }
+
+    /** Load a UTF-8 template from the classpath */
+    public static EmailTemplate load(String resource) {
+        try (InputStream in = new ClassPathResource(resource).getInputStream()) {
+            return parse(resource, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load email template " + resource, e);
+        }
+    }
+
+    public static EmailTemplate parse(String name, String source) {
+        List<String> text = new ArrayList<>();
+        List<Integer> slotAt = new ArrayList<>();
+        List<String> slotNames = new ArrayList<>();
+        int from = 0;
+        int open;
+        while ((open = source.indexOf("{{", from)) >= 0) {
+            int close = source.indexOf("}}", open + 2);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed slot in email template " + name + " at " + open);
+            }
+            String slotName = source.substring(open + 2, close).trim();
+            if (!slotNames.contains(slotName)) {
+                slotNames.add(slotName);
+            }
+            text.add(source.substring(from, open));
+            slotAt.add(slotNames.indexOf(slotName));
+            from = close + 2;
+        }
+        text.add(source.substring(from));
+        return new EmailTemplate(name, text.toArray(String[]::new),
+                slotAt.stream().mapToInt(Integer::intValue).toArray(), List.copyOf(slotNames));
+    }
+
+    /** Id of a named slot, to resolve once and switch on in {@link Slots#write} */
+    public int slot(String slotName) {
+        int slot = slotNames.indexOf(slotName);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Email template " + name + " has no slot " + slotName);
+        }
+        return slot;
+    }
+
+    public void render(StringBuilder out, Slots slots) {
+        for (int i = 0; i < slotAt.length; i++) {
+            out.append(text[i]);
+            slots.write(slotAt[i], out);
+        }
+        out.append(text[slotAt.length]);
+    }
+
+    /** Append text with the five HTML-significant characters escaped */
+    public static void appendEscaped(StringBuilder out, String value) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.jaee.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Minimal consecutive-failure circuit breaker for outbound gateway calls.
+ *
+ * CLOSED lets every call through. After {@code failureThreshold} consecutive
+ * failures it OPENs and rejects calls for {@code openDurationMs}, then lets a
+ * single trial call through (HALF_OPEN); that call decides whether to close
+ * again or re-open.
+ */
+@Slf4j
+class GatewayCircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationMs;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    GatewayCircuitBreaker(String name, int failureThreshold, long openDurationMs) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDurationMs = openDurationMs;
+    }
+
+    synchronized boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openDurationMs) {
+            state = State.HALF_OPEN;
+            log.info("Circuit '{}' half-open, allowing a trial call", name);
+            return true;
+        }
+        return false;
+    }
+
+    synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            log.info("Circuit '{}' closed", name);
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                log.warn("Circuit '{}' opened after {} consecutive failures", name, consecutiveFailures);
+            }
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+}
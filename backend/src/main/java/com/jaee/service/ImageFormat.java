@@ -0,0 +1,67 @@
+package com.jaee.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+/**
+ * Image types accepted for upload, recognised by their leading bytes rather
+ * than the Content-Type the client sent.
+ */
+public enum ImageFormat {
+
+    JPEG("image/jpeg"),
+    PNG("image/png"),
+    GIF("image/gif"),
+    WEBP("image/webp");
+
+    /** Enough for the longest signature (RIFF....WEBP) */
+    static final int HEADER_LENGTH = 12;
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private final String contentType;
+
+    ImageFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    /** Reads at most {@link #HEADER_LENGTH} bytes; the stream is left open */
+    public static Optional<ImageFormat> sniff(InputStream in) throws IOException {
+        return of(in.readNBytes(HEADER_LENGTH));
+    }
+
+    static Optional<ImageFormat> of(byte[] header) {
+        if (startsWith(header, 0, (byte) 0xFF, (byte) 0xD8, (byte) 0xFF)) {
+            return Optional.of(JPEG);
+        }
+        if (startsWith(header, 0, PNG_SIGNATURE)) {
+            return Optional.of(PNG);
+        }
+        if (startsWith(header, 0, (byte) 'G', (byte) 'I', (byte) 'F', (byte) '8')
+                && header.length >= 6 && (header[4] == '7' || header[4] == '9') && header[5] == 'a') {
+            return Optional.of(GIF);
+        }
+        if (startsWith(header, 0, (byte) 'R', (byte) 'I', (byte) 'F', (byte) 'F')
+                && startsWith(header, 8, (byte) 'W', (byte) 'E', (byte) 'B', (byte) 'P')) {
+            return Optional.of(WEBP);
+        }
+        return Optional.empty();
+    }
+
+    private static boolean startsWith(byte[] header, int offset, byte... signature) {
+        if (header.length < offset + signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if (header[offset + i] != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
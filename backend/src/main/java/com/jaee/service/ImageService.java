@@ -1,6 +1,7 @@
 package com.jaee.service;
 
 import com.cloudinary.Cloudinary;
+import com.cloudinary.Transformation;
 import com.cloudinary.utils.ObjectUtils;
 import com.jaee.exception.BadRequestException;
 import lombok.RequiredArgsConstructor;
@@ -10,31 +11,33 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+/**
+ * Uploads go to Cloudinary from a temp file rather than a byte array: the
+ * container spools each part above spring.servlet.multipart.file-size-threshold
+ * to disk, {@link MultipartFile#transferTo(java.io.File)} moves it to our own
+ * temp file, and the client streams that file in the request body. The heap
+ * only ever holds small buffers, however large or numerous the uploads.
+ */
 @Service
 @Slf4j
 public class ImageService {
 
     private final Cloudinary cloudinary;
+    private final String folder;
 
-    public ImageService(@org.springframework.lang.Nullable Cloudinary cloudinary) {
+    public ImageService(@org.springframework.lang.Nullable Cloudinary cloudinary,
+                        @Value("${app.cloudinary.folder:jaee}") String folder) {
         this.cloudinary = cloudinary;
+        this.folder = folder;
     }
 
-    @Value("${app.cloudinary.folder:jaee}")
-    private String folder;
-
-    private static final List<String> ALLOWED_CONTENT_TYPES = Arrays.asList(
-            "image/jpeg",
-            "image/png",
-            "image/gif",
-            "image/webp"
-    );
-
     private static final long MAX_FILE_SIZE = 5 * 1024 * 1024; // 5MB
 
     /**
@@ -55,15 +58,14 @@ public class ImageService {
             String publicId = generatePublicId(subfolder, file.getOriginalFilename());
             
             @SuppressWarnings("unchecked")
-            Map<String, Object> uploadResult = cloudinary.uploader().upload(file.getBytes(), ObjectUtils.asMap(
+            Map<String, Object> uploadResult = upload(file, ObjectUtils.asMap(
                     "public_id", publicId,
                     "folder", folder,
                     "resource_type", "image",
                     "overwrite", true,
-                    "transformation", ObjectUtils.asMap(
-                            "quality", "auto:good",
-                            "fetch_format", "auto"
-                    )
+                    "transformation", new Transformation()
+                            .quality("auto:good")
+                            .fetchFormat("auto")
             ));
 
             String secureUrl = (String) uploadResult.get("secure_url");
@@ -90,24 +92,14 @@ public class ImageService {
             String publicId = generatePublicId("products", file.getOriginalFilename());
             
             @SuppressWarnings("unchecked")
-            Map<String, Object> uploadResult = cloudinary.uploader().upload(file.getBytes(), ObjectUtils.asMap(
+            Map<String, Object> uploadResult = upload(file, ObjectUtils.asMap(
                     "public_id", publicId,
                     "folder", folder + "/products",
                     "resource_type", "image",
                     "overwrite", true,
                     "eager", Arrays.asList(
-                            ObjectUtils.asMap(
-                                    "width", 800,
-                                    "height", 800,
-                                    "crop", "fill",
-                                    "quality", "auto:good"
-                            ),
-                            ObjectUtils.asMap(
-                                    "width", 400,
-                                    "height", 400,
-                                    "crop", "fill",
-                                    "quality", "auto:good"
-                            )
+                            new Transformation().width(800).height(800).crop("fill").quality("auto:good"),
+                            new Transformation().width(400).height(400).crop("fill").quality("auto:good")
                     )
             ));
 
@@ -135,17 +127,16 @@ public class ImageService {
             String publicId = generatePublicId("categories", file.getOriginalFilename());
             
             @SuppressWarnings("unchecked")
-            Map<String, Object> uploadResult = cloudinary.uploader().upload(file.getBytes(), ObjectUtils.asMap(
+            Map<String, Object> uploadResult = upload(file, ObjectUtils.asMap(
                     "public_id", publicId,
                     "folder", folder + "/categories",
                     "resource_type", "image",
                     "overwrite", true,
-                    "transformation", ObjectUtils.asMap(
-                            "width", 600,
-                            "height", 400,
-                            "crop", "fill",
-                            "quality", "auto:good"
-                    )
+                    "transformation", new Transformation()
+                            .width(600)
+                            .height(400)
+                            .crop("fill")
+                            .quality("auto:good")
             ));
 
             String secureUrl = (String) uploadResult.get("secure_url");
@@ -178,7 +169,22 @@ public class ImageService {
         }
     }
 
-    private void validateFile(MultipartFile file) {
+    @SuppressWarnings("rawtypes")
+    private Map upload(MultipartFile file, Map<?, ?> options) throws IOException {
+        Path spooled = Files.createTempFile("jaee-upload-", ".img");
+        try {
+            file.transferTo(spooled.toFile());
+            return cloudinary.uploader().upload(spooled.toFile(), options);
+        } finally {
+            Files.deleteIfExists(spooled);
+        }
+    }
+
+    /**
+     * Checks the size and the image's leading bytes; the Content-Type header
+     * is whatever the client chose to send, so it is not trusted
+     */
+    void validateFile(MultipartFile file) {
         if (file == null || file.isEmpty()) {
             throw new BadRequestException("No file provided");
         }
@@ -187,10 +193,18 @@ public class ImageService {
             throw new BadRequestException("File size exceeds maximum limit of 5MB");
         }
 
-        String contentType = file.getContentType();
-        if (contentType == null || !ALLOWED_CONTENT_TYPES.contains(contentType)) {
+        ImageFormat format;
+        try (InputStream in = file.getInputStream()) {
+            format = ImageFormat.sniff(in).orElse(null);
+        } catch (IOException e) {
+            throw new BadRequestException("Failed to read file: " + e.getMessage());
+        }
+        if (format == null) {
             throw new BadRequestException("Invalid file type. Allowed types: JPEG, PNG, GIF, WebP");
         }
+        if (!format.contentType().equals(file.getContentType())) {
+            log.debug("Upload {} declared {} but is {}", file.getOriginalFilename(), file.getContentType(), format);
+        }
     }
 
     private String generatePublicId(String subfolder, String originalFilename) {
@@ -0,0 +1,102 @@
+package com.jaee.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jaee.exception.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Default OTP store: a bounded, expiring concurrent map on this node. Every
+ * update is an atomic compute on the number's entry, so concurrent requests
+ * and guesses for one number serialize without a lock on the others.
+ *
+ * Codes do not survive a restart and are not visible to other nodes; the
+ * user just requests a new one. A code issued inside a transaction is
+ * visible at once, and taken back if the transaction rolls back.
+ */
+@Component
+@ConditionalOnProperty(name = "app.otp.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOtpStore implements OtpStore {
+
+    private record Entry(byte[] digest, Instant expiresAt, Instant sentAt, int attempts) {
+    }
+
+    private final Cache<String, Entry> entries;
+    private final int maxAttempts;
+    private final int cooldownSeconds;
+
+    public InMemoryOtpStore(@Value("${app.otp.expiration-minutes:5}") int expirationMinutes,
+                            @Value("${app.otp.max-attempts:5}") int maxAttempts,
+                            @Value("${app.otp.cooldown-seconds:60}") int cooldownSeconds,
+                            @Value("${app.otp.store-max-size:100000}") long maxSize) {
+        this.maxAttempts = maxAttempts;
+        this.cooldownSeconds = cooldownSeconds;
+        // Kept until both the code and its cooldown have run out
+        Duration retention = Duration.ofMinutes(expirationMinutes).plusSeconds(cooldownSeconds);
+        this.entries = Caffeine.newBuilder()
+                .expireAfterWrite(retention)
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    @Override
+    public void issue(String mobileNumber, byte[] digest, Instant expiresAt) {
+        Instant now = Instant.now();
+        Entry[] replaced = new Entry[1];
+        Entry issued = entries.asMap().compute(mobileNumber, (number, existing) -> {
+            if (existing != null) {
+                long secondsSinceLastSend = Duration.between(existing.sentAt(), now).toSeconds();
+                if (secondsSinceLastSend < cooldownSeconds) {
+                    throw new TooManyRequestsException(
+                            "Please wait " + (cooldownSeconds - secondsSinceLastSend) + " seconds before requesting a new OTP");
+                }
+            }
+            replaced[0] = existing;
+            return new Entry(digest, expiresAt, now, 0);
+        });
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        // Unless a later request has already replaced it
+                        entries.asMap().computeIfPresent(mobileNumber,
+                                (number, current) -> current == issued ? replaced[0] : current);
+                    }
+                }
+            });
+        }
+    }
+
+    @Override
+    public Verification verify(String mobileNumber, byte[] digest) {
+        Verification[] result = {Verification.of(Outcome.MISSING)};
+        entries.asMap().computeIfPresent(mobileNumber, (number, entry) -> {
+            if (Instant.now().isAfter(entry.expiresAt())) {
+                result[0] = Verification.of(Outcome.EXPIRED);
+                return null;
+            }
+            if (entry.attempts() >= maxAttempts) {
+                result[0] = Verification.of(Outcome.LOCKED);
+                return null;
+            }
+            if (!MessageDigest.isEqual(entry.digest(), digest)) {
+                int attempts = entry.attempts() + 1;
+                result[0] = new Verification(Outcome.INVALID, maxAttempts - attempts);
+                return new Entry(entry.digest(), entry.expiresAt(), entry.sentAt(), attempts);
+            }
+            result[0] = Verification.of(Outcome.VERIFIED);
+            return null;
+        });
+        return result[0];
+    }
+}
@@ -0,0 +1,329 @@
+package com.jaee.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jaee.config.AsyncConfig;
+import com.jaee.dto.order.OrderConfirmation;
+import com.jaee.entity.OutboxMessage;
+import com.jaee.exception.SmsThrottledException;
+import com.jaee.repository.OutboxMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers notification_outbox messages.
+ *
+ * Due messages are claimed in batches with FOR UPDATE SKIP LOCKED and
+ * leased (pushed ahead by the lease time) in one short transaction, then
+ * sent: emails on the bounded notification executor, SMS on SmsService's
+ * virtual threads. Several nodes can dispatch at once without sending a
+ * message twice while its lease holds. A sent message is deleted. A failed
+ * one is retried with exponential backoff and jitter, and marked FAILED
+ * after its type's attempt limit, an OTP with its code blanked; one held
+ * back by the SMS provider's rate limit is put back without counting an
+ * attempt. A node that dies mid-send leaves the message to be retried when
+ * the lease expires, so delivery is at least once.
+ *
+ * Runs on a poll and whenever {@link NotificationOutbox} commits a message.
+ */
+@Component
+@Slf4j
+public class NotificationDispatcher {
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor executor;
+    private final EmailService emailService;
+    private final SmsService smsService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.notifications.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.notifications.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${app.notifications.max-attempts:8}")
+    private int maxAttempts;
+
+    /** An OTP is worthless after a few minutes, so it is not retried for long */
+    @Value("${app.notifications.otp-max-attempts:3}")
+    private int otpMaxAttempts;
+
+    @Value("${app.otp.expiration-minutes:5}")
+    private long otpExpirationMinutes;
+
+    @Value("${app.notifications.backoff-base-ms:5000}")
+    private long backoffBaseMs;
+
+    @Value("${app.notifications.backoff-max-ms:3600000}")
+    private long backoffMaxMs;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean rerun = new AtomicBoolean();
+    private final AtomicBoolean wakeUpQueued = new AtomicBoolean();
+    private final AtomicLong depth = new AtomicLong();
+    private final AtomicLong oldestAgeSeconds = new AtomicLong();
+
+    private final Map<OutboxMessage.Type, Timer> sendTimers = new EnumMap<>(OutboxMessage.Type.class);
+    private final Map<OutboxMessage.Type, Counter> sent = new EnumMap<>(OutboxMessage.Type.class);
+    private final Map<OutboxMessage.Type, Counter> retried = new EnumMap<>(OutboxMessage.Type.class);
+    private final Map<OutboxMessage.Type, Counter> failed = new EnumMap<>(OutboxMessage.Type.class);
+    private final Map<OutboxMessage.Type, Counter> deferred = new EnumMap<>(OutboxMessage.Type.class);
+
+    public NotificationDispatcher(OutboxMessageRepository outboxMessageRepository,
+                                  TransactionTemplate transactionTemplate,
+                                  @Qualifier(AsyncConfig.NOTIFICATION_EXECUTOR) ThreadPoolTaskExecutor executor,
+                                  EmailService emailService,
+                                  SmsService smsService,
+                                  ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = executor;
+        this.emailService = emailService;
+        this.smsService = smsService;
+        this.objectMapper = objectMapper;
+
+        Gauge.builder("notification.outbox.depth", depth, AtomicLong::get)
+                .description("PENDING messages in notification_outbox, including ones being retried")
+                .register(meterRegistry);
+        Gauge.builder("notification.outbox.oldest.age", oldestAgeSeconds, AtomicLong::get)
+                .description("Age of the oldest PENDING message")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        for (OutboxMessage.Type type : OutboxMessage.Type.values()) {
+            String tag = type.name().toLowerCase();
+            sendTimers.put(type, Timer.builder("notification.send")
+                    .description("Time to hand one message to the email or SMS provider, including any rate-limit wait")
+                    .tag("type", tag)
+                    .register(meterRegistry));
+            sent.put(type, delivery(meterRegistry, tag, "sent"));
+            retried.put(type, delivery(meterRegistry, tag, "retry"));
+            failed.put(type, delivery(meterRegistry, tag, "failed"));
+            deferred.put(type, delivery(meterRegistry, tag, "deferred"));
+        }
+    }
+
+    @Scheduled(
+            initialDelayString = "${app.notifications.poll-interval-ms:2000}",
+            fixedDelayString = "${app.notifications.poll-interval-ms:2000}")
+    public void poll() {
+        dispatchDue();
+    }
+
+    @Scheduled(fixedDelayString = "${app.notifications.metrics-interval-ms:15000}")
+    public void refreshQueueMetrics() {
+        depth.set(outboxMessageRepository.countByStatus(OutboxMessage.Status.PENDING));
+        LocalDateTime oldest = outboxMessageRepository.oldestCreatedAt(OutboxMessage.Status.PENDING);
+        oldestAgeSeconds.set(oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).toSeconds());
+    }
+
+    /**
+     * Dispatch soon on the notification executor. Wake-ups that arrive while
+     * one is queued are folded into it, so a burst of commits costs one task.
+     */
+    public void wakeUp() {
+        if (!wakeUpQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                wakeUpQueued.set(false);
+                dispatchDue();
+            });
+        } catch (TaskRejectedException e) {
+            wakeUpQueued.set(false);
+            log.debug("Notification executor busy, leaving new messages to the next poll");
+        }
+    }
+
+    /**
+     * Claim due messages, as many as the executor has room for, and hand
+     * them to it. One caller drains at a time; a call that arrives meanwhile
+     * makes the drainer go round again rather than waiting. Returns how many
+     * were handed over.
+     */
+    public int dispatchDue() {
+        rerun.set(true);
+        int dispatched = 0;
+        while (rerun.get() && draining.compareAndSet(false, true)) {
+            try {
+                rerun.set(false);
+                dispatched += drain();
+            } catch (RuntimeException e) {
+                log.error("Notification dispatch failed: {}", e.getMessage());
+            } finally {
+                draining.set(false);
+            }
+        }
+        return dispatched;
+    }
+
+    private int drain() {
+        int dispatched = 0;
+        while (true) {
+            int limit = Math.min(batchSize, executor.getThreadPoolExecutor().getQueue().remainingCapacity());
+            if (limit <= 0) {
+                return dispatched;
+            }
+            List<OutboxMessage> claimed = claim(limit);
+            List<Long> rejected = new ArrayList<>();
+            for (OutboxMessage message : claimed) {
+                try {
+                    dispatch(message);
+                    dispatched++;
+                } catch (RejectedExecutionException e) {
+                    rejected.add(message.getId());
+                }
+            }
+            if (!rejected.isEmpty()) {
+                // Hand the lease back so the next poll can take them
+                transactionTemplate.executeWithoutResult(status ->
+                        outboxMessageRepository.lease(rejected, LocalDateTime.now()));
+                log.debug("Notification senders busy, {} messages left for the next poll", rejected.size());
+                return dispatched;
+            }
+            if (claimed.size() < limit) {
+                return dispatched;
+            }
+        }
+    }
+
+    private List<OutboxMessage> claim(int limit) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxMessage> due = outboxMessageRepository.lockDue(now, limit);
+            if (!due.isEmpty()) {
+                outboxMessageRepository.lease(due.stream().map(OutboxMessage::getId).toList(),
+                        now.plusSeconds(leaseSeconds));
+            }
+            return due;
+        });
+    }
+
+    /**
+     * Emails go to the bounded notification executor, which caps SMTP
+     * connections; SMS go to SmsService's virtual threads, where waiting on
+     * the provider's rate limit costs no platform thread.
+     */
+    private void dispatch(OutboxMessage message) {
+        long started = System.nanoTime();
+        switch (message.getType()) {
+            case ORDER_CONFIRMATION_EMAIL -> executor.execute(() -> {
+                Exception error = null;
+                try {
+                    emailService.sendOrderConfirmation(
+                            objectMapper.readValue(message.getPayload(), OrderConfirmation.class));
+                } catch (Exception e) {
+                    error = e;
+                }
+                settle(message, started, error);
+            });
+            case OTP_SMS -> smsService.sendOtpAsync(message.getRecipient(), message.getPayload())
+                    .whenComplete((ignored, error) -> settle(message, started,
+                            error instanceof CompletionException && error.getCause() != null ? error.getCause() : error));
+        }
+    }
+
+    private void settle(OutboxMessage message, long startedNanos, Throwable error) {
+        OutboxMessage.Type type = message.getType();
+        sendTimers.get(type).record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+        try {
+            if (error == null) {
+                transactionTemplate.executeWithoutResult(status -> outboxMessageRepository.deleteSent(message.getId()));
+                sent.get(type).increment();
+            } else if (error instanceof SmsThrottledException throttled) {
+                defer(message, throttled.getRetryAfterMs());
+            } else {
+                recordFailure(message, error);
+            }
+        } catch (RuntimeException e) {
+            // The lease runs out and the message is tried again
+            log.error("Could not record the outcome of {} message {}: {}", type, message.getId(), e.getMessage());
+        }
+    }
+
+    /** Put a throttled message back without counting an attempt, unless its OTP has expired meanwhile */
+    private void defer(OutboxMessage message, long retryAfterMs) {
+        OutboxMessage.Type type = message.getType();
+        if (type == OutboxMessage.Type.OTP_SMS
+                && message.getCreatedAt().plusMinutes(otpExpirationMinutes).isBefore(LocalDateTime.now())) {
+            transactionTemplate.executeWithoutResult(status -> {
+                outboxMessageRepository.recordFailure(
+                        message.getId(), OutboxMessage.Status.FAILED, LocalDateTime.now(), "OTP expired while throttled");
+                outboxMessageRepository.redactPayload(message.getId());
+            });
+            failed.get(type).increment();
+            log.error("Giving up on {} message {}: OTP expired while the provider was throttled", type, message.getId());
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> outboxMessageRepository.lease(
+                List.of(message.getId()), LocalDateTime.now().plusNanos(retryAfterMs * 1_000_000L)));
+        deferred.get(type).increment();
+    }
+
+    private void recordFailure(OutboxMessage message, Throwable e) {
+        OutboxMessage.Type type = message.getType();
+        int attempts = message.getAttempts() + 1;
+        int limit = type == OutboxMessage.Type.OTP_SMS ? otpMaxAttempts : maxAttempts;
+        boolean giveUp = attempts >= limit;
+        String error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            outboxMessageRepository.recordFailure(
+                    message.getId(),
+                    giveUp ? OutboxMessage.Status.FAILED : OutboxMessage.Status.PENDING,
+                    LocalDateTime.now().plusNanos(backoff(attempts).toNanos()),
+                    error.length() > 500 ? error.substring(0, 500) : error);
+            if (giveUp && type == OutboxMessage.Type.OTP_SMS) {
+                outboxMessageRepository.redactPayload(message.getId());
+            }
+        });
+
+        if (giveUp) {
+            failed.get(type).increment();
+            log.error("Giving up on {} message {} after {} attempts: {}", type, message.getId(), attempts, error);
+        } else {
+            retried.get(type).increment();
+            log.warn("{} message {} failed (attempt {}), retrying: {}", type, message.getId(), attempts, error);
+        }
+    }
+
+    /** base * 2^(attempts - 1), capped, with the upper half jittered so retries from a burst spread out */
+    private Duration backoff(int attempts) {
+        long delay = backoffBaseMs << Math.min(attempts - 1, 20);
+        delay = Math.min(delay, backoffMaxMs);
+        return Duration.ofMillis(delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+    }
+
+    private static Counter delivery(MeterRegistry meterRegistry, String type, String outcome) {
+        return Counter.builder("notification.delivery")
+                .description("Outbox messages by delivery outcome")
+                .tag("type", type)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
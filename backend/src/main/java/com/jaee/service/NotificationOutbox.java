@@ -0,0 +1,67 @@
+package com.jaee.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jaee.dto.order.OrderConfirmation;
+import com.jaee.entity.OutboxMessage;
+import com.jaee.repository.OutboxMessageRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Queues emails and SMS in notification_outbox, inside the caller's
+ * transaction: a message exists if and only if the change that triggered
+ * it committed. Delivery is {@link NotificationDispatcher}'s job; it is
+ * nudged once the transaction commits so messages do not wait for a poll.
+ *
+ * An OTP's code sits in the payload only until the message is sent (the row
+ * is deleted) or given up on (the payload is blanked).
+ */
+@Service
+@RequiredArgsConstructor
+public class NotificationOutbox {
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final NotificationDispatcher notificationDispatcher;
+    private final ObjectMapper objectMapper;
+
+    @Transactional
+    public void enqueueOrderConfirmation(OrderConfirmation confirmation) {
+        if (confirmation.getCustomerEmail() == null) {
+            return;
+        }
+        try {
+            enqueue(OutboxMessage.Type.ORDER_CONFIRMATION_EMAIL, confirmation.getCustomerEmail(),
+                    objectMapper.writeValueAsString(confirmation));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize confirmation for order " + confirmation.getOrderId(), e);
+        }
+    }
+
+    @Transactional
+    public void enqueueOtp(String mobileNumber, String otp) {
+        enqueue(OutboxMessage.Type.OTP_SMS, mobileNumber, otp);
+    }
+
+    private void enqueue(OutboxMessage.Type type, String recipient, String payload) {
+        outboxMessageRepository.save(OutboxMessage.builder()
+                .type(type)
+                .recipient(recipient)
+                .payload(payload)
+                .build());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    notificationDispatcher.wakeUp();
+                }
+            });
+        } else {
+            notificationDispatcher.wakeUp();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.jaee.service;
+
+import com.jaee.event.OrderPaidEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+@Component
+@RequiredArgsConstructor
+public class OrderPaidListener {
+
+    private final SalesRollupService salesRollupService;
+
+    /** Hand the order to the rollup executor once the PAID status is committed */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOrderPaidUpdateRollups(OrderPaidEvent event) {
+        salesRollupService.recordPaid(event.getConfirmation().getOrderId());
+    }
+}
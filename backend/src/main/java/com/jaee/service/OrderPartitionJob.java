@@ -0,0 +1,187 @@
+package com.jaee.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the monthly partitions of {@code orders} (see V13).
+ *
+ * Each run creates the partitions for the next few months, moving in any
+ * rows that already landed in orders_default for that month. Their items
+ * are set aside and put back afterwards, since deleting the orders from
+ * orders_default cascades to order_items. If archiving
+ * is enabled, months older than the retention window are copied into
+ * orders_archive as one JSONB document per order, their items deleted, and
+ * the partition detached and dropped. Nothing reads orders_archive yet: the
+ * order lists, the finance export and the rollup rebuild see only live
+ * orders, so archiving is off by default and the rebuild refuses to run
+ * once anything has been archived (see {@link #hasArchivedOrders}). Each month
+ * is handled in its own transaction, with a lock timeout so a busy orders
+ * table makes the run give up rather than queue every checkout behind it.
+ * Does nothing when orders is not partitioned, e.g. on H2 in tests.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderPartitionJob {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("orders_p(\\d{4})_(\\d{2})");
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.orders.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${app.orders.partitions.retention-months:24}")
+    private int retentionMonths;
+
+    @Value("${app.orders.partitions.lock-timeout-ms:5000}")
+    private long lockTimeoutMs;
+
+    @Value("${app.orders.partitions.archive-enabled:false}")
+    private boolean archiveEnabled;
+
+    @Scheduled(cron = "${app.orders.partitions.cron:0 30 3 * * *}")
+    public void run() {
+        if (!isPartitioned()) {
+            return;
+        }
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            ensurePartition(current.plusMonths(i));
+        }
+        if (archiveEnabled) {
+            archiveBefore(current.minusMonths(retentionMonths));
+        }
+    }
+
+    /**
+     * Create the partition for a month if it is missing
+     */
+    public boolean ensurePartition(YearMonth month) {
+        String name = partitionName(month);
+        if (partitions().contains(name)) {
+            return false;
+        }
+        Timestamp from = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+        Timestamp to = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (!lockPartitions() || partitions().contains(name)) {
+                return false;
+            }
+            // Orders landing in orders_default wait here rather than slip in between the copy and the move
+            jdbcTemplate.execute("LOCK TABLE orders_default IN EXCLUSIVE MODE");
+            jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE orders INCLUDING DEFAULTS)");
+            // The DELETE below cascades to these through order_items_order_fkey
+            jdbcTemplate.update("CREATE TEMP TABLE moved_order_items ON COMMIT DROP AS " +
+                    "SELECT * FROM order_items WHERE order_created_at >= ? AND order_created_at < ?", from, to);
+            int moved = jdbcTemplate.update(
+                    "WITH moved AS (DELETE FROM orders_default WHERE created_at >= ? AND created_at < ? RETURNING *) " +
+                    "INSERT INTO " + name + " SELECT * FROM moved", from, to);
+            jdbcTemplate.execute("ALTER TABLE orders ATTACH PARTITION " + name +
+                    " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+            int items = jdbcTemplate.update("INSERT INTO order_items SELECT * FROM moved_order_items");
+            log.info("Created order partition {} ({} rows and {} items moved from orders_default)", name, moved, items);
+            return true;
+        }));
+    }
+
+    /**
+     * Archive and drop every monthly partition that ends on or before the given month's start
+     *
+     * @return the number of orders archived
+     */
+    public long archiveBefore(YearMonth firstKeptMonth) {
+        long archived = 0;
+        for (String name : partitions()) {
+            Matcher matcher = PARTITION_NAME.matcher(name);
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (month.isBefore(firstKeptMonth)) {
+                archived += archivePartition(name);
+            }
+        }
+        return archived;
+    }
+
+    private long archivePartition(String name) {
+        Long archived = transactionTemplate.execute(status -> {
+            if (!lockPartitions() || !partitions().contains(name)) {
+                return 0L;
+            }
+            int orders = jdbcTemplate.update(
+                    "INSERT INTO orders_archive (order_id, user_id, created_at, status, total_amount, document) " +
+                    "SELECT o.id, o.user_id, o.created_at, o.status, o.total_amount, " +
+                    "       to_jsonb(o) || jsonb_build_object('items', COALESCE(" +
+                    "           (SELECT jsonb_agg(to_jsonb(oi) - 'order_id' ORDER BY oi.id) " +
+                    "            FROM order_items oi WHERE oi.order_id = o.id AND oi.order_created_at = o.created_at), " +
+                    "           '[]'::jsonb)) " +
+                    "FROM " + name + " o " +
+                    "ON CONFLICT (order_id) DO NOTHING");
+            // The items reference the partition, so they go before it can be detached
+            jdbcTemplate.update("DELETE FROM order_items oi USING " + name + " o " +
+                    "WHERE oi.order_id = o.id AND oi.order_created_at = o.created_at");
+            jdbcTemplate.execute("ALTER TABLE orders DETACH PARTITION " + name);
+            jdbcTemplate.execute("DROP TABLE " + name);
+            return (long) orders;
+        });
+        if (archived > 0) {
+            log.info("Archived order partition {} ({} orders)", name, archived);
+        }
+        return archived;
+    }
+
+    /** Whether any order has been moved out of orders and into orders_archive */
+    public boolean hasArchivedOrders() {
+        if (!isPartitioned()) {
+            return false;
+        }
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM orders_archive)", Boolean.class));
+    }
+
+    private boolean isPartitioned() {
+        try {
+            return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT relkind = 'p' FROM pg_class WHERE oid = to_regclass('orders')", Boolean.class));
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = 'orders'::regclass ORDER BY c.relname", String.class);
+    }
+
+    /**
+     * Serialise partition changes across nodes for the current transaction and
+     * bound how long its DDL may wait for locks on orders
+     */
+    private boolean lockPartitions() {
+        jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeoutMs);
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(hashtext('orders_partitions'))", Boolean.class));
+    }
+
+    static String partitionName(YearMonth month) {
+        return "orders_p" + month.format(PARTITION_SUFFIX);
+    }
+}
@@ -1,38 +1,99 @@
 package com.jaee.service;
 
+import com.jaee.dto.common.CursorPageResponse;
 import com.jaee.dto.common.PageResponse;
 import com.jaee.dto.order.OrderDto;
+import com.jaee.dto.order.OrderSummaryDto;
 import com.jaee.entity.Order;
+import com.jaee.entity.OrderReference;
 import com.jaee.entity.User;
+import com.jaee.exception.BadRequestException;
 import com.jaee.exception.NotFoundException;
 import com.jaee.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class OrderService {
 
+    private static final int MAX_HISTORY_PAGE_SIZE = 50;
+
     private final OrderRepository orderRepository;
 
     @Transactional(readOnly = true)
-    public PageResponse<OrderDto> getUserOrders(User user, int page, int size) {
+    public PageResponse<OrderSummaryDto> getUserOrders(User user, int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<Order> orderPage = orderRepository.findByUserOrderByCreatedAtDesc(user, pageable);
-        return PageResponse.from(orderPage, OrderDto::fromEntity);
+        Page<Long> idPage = orderRepository.findIdsByUser(user, pageable);
+        List<OrderSummaryDto> orders = idPage.isEmpty()
+                ? List.of()
+                : orderRepository.findSummariesByIdIn(idPage.getContent());
+        return PageResponse.from(new PageImpl<>(orders, pageable, idPage.getTotalElements()), Function.identity());
     }
 
+    /**
+     * Keyset-paginated order history, newest first. Unlike {@link #getUserOrders}
+     * there is no count query and deep pages cost the same as the first one.
+     */
     @Transactional(readOnly = true)
-    public OrderDto getOrderById(User user, Long orderId) {
-        Order order = orderRepository.findByIdAndUserWithItems(orderId, user)
-                .orElseThrow(() -> new NotFoundException("Order not found"));
-        return OrderDto.fromEntity(order);
+    public CursorPageResponse<OrderSummaryDto> getUserOrderHistory(User user, String cursor, int size) {
+        int limit = Math.min(Math.max(size, 1), MAX_HISTORY_PAGE_SIZE);
+
+        // Fetch one extra row to know whether another page exists
+        List<OrderSummaryDto> orders;
+        if (cursor == null || cursor.isBlank()) {
+            orders = orderRepository.findSummariesByUser(user, Limit.of(limit + 1));
+        } else {
+            OrderCursor after = OrderCursor.decode(cursor);
+            orders = orderRepository.findSummariesByUserBefore(user, after.createdAt(), after.id(), Limit.of(limit + 1));
+        }
+
+        boolean hasMore = orders.size() > limit;
+        List<OrderSummaryDto> page = hasMore ? orders.subList(0, limit) : orders;
+
+        return CursorPageResponse.<OrderSummaryDto>builder()
+                .content(page)
+                .size(page.size())
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? OrderCursor.of(page.get(page.size() - 1)).encode() : null)
+                .build();
+    }
+
+    /**
+     * One order by its reference ({@code yyyyMM-id}), read from that month's
+     * partition. A bare id, from links issued before references, still works
+     * but has to probe every partition.
+     */
+    @Transactional(readOnly = true)
+    public OrderDto getOrder(User user, String reference) {
+        Optional<Order> order = OrderReference.parse(reference)
+                .map(ref -> orderRepository.findByReferenceAndUserWithItems(ref, user))
+                .orElseGet(() -> legacyId(reference).flatMap(id -> orderRepository.findByIdAndUserWithItems(id, user)));
+        return OrderDto.fromEntity(order.orElseThrow(() -> new NotFoundException("Order not found")));
+    }
+
+    private static Optional<Long> legacyId(String reference) {
+        try {
+            return Optional.of(Long.parseLong(reference));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
     }
 
     @Transactional(readOnly = true)
@@ -41,4 +102,28 @@ public class OrderService {
                 .orElseThrow(() -> new NotFoundException("Order not found"));
         return OrderDto.fromEntity(order);
     }
+
+    /** Position in the (createdAt DESC, id DESC) order, passed to clients as an opaque string */
+    private record OrderCursor(LocalDateTime createdAt, Long id) {
+
+        static OrderCursor of(OrderSummaryDto order) {
+            return new OrderCursor(order.getCreatedAt(), order.getId());
+        }
+
+        static OrderCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                return new OrderCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                        Long.parseLong(raw.substring(separator + 1)));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+                throw new BadRequestException("Invalid cursor");
+            }
+        }
+
+        String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((createdAt + "|" + id).getBytes(StandardCharsets.UTF_8));
+        }
+    }
 }
@@ -3,38 +3,39 @@ package com.jaee.service;
 import com.jaee.dto.auth.AuthResponse;
 import com.jaee.dto.auth.OtpRequestDto;
 import com.jaee.dto.auth.OtpVerifyRequest;
-import com.jaee.entity.OtpCode;
-import com.jaee.entity.RefreshToken;
 import com.jaee.entity.User;
 import com.jaee.exception.BadRequestException;
 import com.jaee.exception.TooManyRequestsException;
-import com.jaee.repository.OtpCodeRepository;
-import com.jaee.repository.RefreshTokenRepository;
 import com.jaee.repository.UserRepository;
 import com.jaee.security.JwtService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
-import java.time.LocalDateTime;
+import java.time.Instant;
 import java.time.temporal.ChronoUnit;
-import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class OtpService {
 
-    private final OtpCodeRepository otpCodeRepository;
+    private final OtpStore otpStore;
     private final UserRepository userRepository;
-    private final RefreshTokenRepository refreshTokenRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final RefreshTokenService refreshTokenService;
     private final JwtService jwtService;
     private final SmsService smsService;
+    private final NotificationOutbox notificationOutbox;
+
+    // Mac instances are not thread-safe; one per thread, keyed on first use
+    private final ThreadLocal<Mac> hmac = ThreadLocal.withInitial(this::newMac);
 
     @Value("${app.otp.length:6}")
     private int otpLength;
@@ -42,14 +43,8 @@ public class OtpService {
     @Value("${app.otp.expiration-minutes:5}")
     private int expirationMinutes;
 
-    @Value("${app.otp.max-attempts:5}")
-    private int maxAttempts;
-
-    @Value("${app.otp.cooldown-seconds:60}")
-    private int cooldownSeconds;
-
-    @Value("${app.sms.enabled:true}")
-    private boolean smsEnabled;
+    @Value("${app.otp.hmac-secret:${app.jwt.secret}}")
+    private String hmacSecret;
 
     @Value("${spring.profiles.active:dev}")
     private String activeProfile;
@@ -60,84 +55,23 @@ public class OtpService {
      */
     @Transactional
     public String requestOtp(OtpRequestDto request) {
-        String mobileNumber = normalizePhoneNumber(request.getMobileNumber());
-
-        // Check cooldown
-        otpCodeRepository.findFirstByMobileNumberOrderByCreatedAtDesc(mobileNumber)
-                .ifPresent(existingOtp -> {
-                    if (existingOtp.getLastSentAt() != null) {
-                        long secondsSinceLastSend = ChronoUnit.SECONDS.between(
-                                existingOtp.getLastSentAt(), LocalDateTime.now());
-                        if (secondsSinceLastSend < cooldownSeconds) {
-                            throw new TooManyRequestsException(
-                                    "Please wait " + (cooldownSeconds - secondsSinceLastSend) + " seconds before requesting a new OTP");
-                        }
-                    }
-                });
-
-        // Generate OTP
-        String otp = generateOtp();
-        String otpHash = passwordEncoder.encode(otp);
-
-        // Delete old OTPs for this number
-        otpCodeRepository.deleteByMobileNumber(mobileNumber);
-
-        // Save new OTP
-        OtpCode otpCode = OtpCode.builder()
-                .mobileNumber(mobileNumber)
-                .otpHash(otpHash)
-                .expiresAt(LocalDateTime.now().plusMinutes(expirationMinutes))
-                .lastSentAt(LocalDateTime.now())
-                .build();
-        otpCodeRepository.save(otpCode);
-
-        // Send OTP via SMS (if configured)
-        boolean smsSent = false;
-        if (smsEnabled) {
-            smsSent = smsService.sendOtp(mobileNumber, otp);
-        }
-
-        // In dev mode or if SMS not sent, log and return OTP for testing
-        boolean isDevMode = "dev".equals(activeProfile) || !smsSent;
-        if (isDevMode) {
-            log.warn("🔐 DEV MODE - OTP for {}: {}", mobileNumber, otp);
-        }
-
-        log.info("OTP sent to: {}", maskPhoneNumber(mobileNumber));
-        
-        // Return OTP only in dev mode (for UI display)
-        return isDevMode ? otp : null;
+        return issueOtp(normalizePhoneNumber(request.getMobileNumber()), "OTP");
     }
 
     @Transactional
     public AuthResponse verifyOtp(OtpVerifyRequest request) {
         String mobileNumber = normalizePhoneNumber(request.getMobileNumber());
 
-        OtpCode otpCode = otpCodeRepository.findFirstByMobileNumberOrderByCreatedAtDesc(mobileNumber)
-                .orElseThrow(() -> new BadRequestException("No OTP found for this number. Please request a new one."));
-
-        // Check if expired
-        if (otpCode.isExpired()) {
-            otpCodeRepository.delete(otpCode);
-            throw new BadRequestException("OTP has expired. Please request a new one.");
-        }
-
-        // Check attempts
-        if (otpCode.getAttempts() >= maxAttempts) {
-            otpCodeRepository.delete(otpCode);
-            throw new TooManyRequestsException("Too many failed attempts. Please request a new OTP.");
+        OtpStore.Verification verification = otpStore.verify(mobileNumber, digest(mobileNumber, request.getOtp()));
+        switch (verification.outcome()) {
+            case MISSING -> throw new BadRequestException("No OTP found for this number. Please request a new one.");
+            case EXPIRED -> throw new BadRequestException("OTP has expired. Please request a new one.");
+            case LOCKED -> throw new TooManyRequestsException("Too many failed attempts. Please request a new OTP.");
+            case INVALID -> throw new BadRequestException(
+                    "Invalid OTP. " + verification.attemptsRemaining() + " attempts remaining.");
+            case VERIFIED -> { }
         }
 
-        // Verify OTP
-        if (!passwordEncoder.matches(request.getOtp(), otpCode.getOtpHash())) {
-            otpCode.incrementAttempts();
-            otpCodeRepository.save(otpCode);
-            throw new BadRequestException("Invalid OTP. " + (maxAttempts - otpCode.getAttempts()) + " attempts remaining.");
-        }
-
-        // OTP verified - delete it
-        otpCodeRepository.delete(otpCode);
-
         // Find or create user
         User user = userRepository.findByMobileNumber(mobileNumber)
                 .orElseGet(() -> createUserWithMobile(mobileNumber));
@@ -184,7 +118,7 @@ public class OtpService {
 
     private AuthResponse createAuthResponse(User user) {
         String accessToken = jwtService.generateAccessToken(user);
-        String refreshToken = createRefreshToken(user);
+        String refreshToken = refreshTokenService.issue(user);
 
         return AuthResponse.builder()
                 .accessToken(accessToken)
@@ -200,109 +134,73 @@ public class OtpService {
                 .build();
     }
 
-    private String createRefreshToken(User user) {
-        String token = UUID.randomUUID().toString();
-
-        RefreshToken refreshToken = RefreshToken.builder()
-                .token(token)
-                .user(user)
-                .expiresAt(LocalDateTime.now().plusSeconds(jwtService.getRefreshExpirationMs() / 1000))
-                .build();
-
-        refreshTokenRepository.save(refreshToken);
-        return token;
-    }
-
     /**
      * Request OTP for mobile number change (used by UserService)
      * @return OTP code in dev mode (for testing), null in production
      */
     @Transactional
     public String requestOtpForMobileChange(String newMobileNumber) {
+        return issueOtp(normalizePhoneNumber(newMobileNumber), "Mobile change OTP");
+    }
+
+    /**
+     * Verify OTP for mobile number change (returns boolean)
+     */
+    public boolean verifyOtpForMobileChange(String newMobileNumber, String otp) {
         String mobileNumber = normalizePhoneNumber(newMobileNumber);
 
-        // Check cooldown
-        otpCodeRepository.findFirstByMobileNumberOrderByCreatedAtDesc(mobileNumber)
-                .ifPresent(existingOtp -> {
-                    if (existingOtp.getLastSentAt() != null) {
-                        long secondsSinceLastSend = ChronoUnit.SECONDS.between(
-                                existingOtp.getLastSentAt(), LocalDateTime.now());
-                        if (secondsSinceLastSend < cooldownSeconds) {
-                            throw new TooManyRequestsException(
-                                    "Please wait " + (cooldownSeconds - secondsSinceLastSend) + " seconds before requesting a new OTP");
-                        }
-                    }
-                });
+        if (otpStore.verify(mobileNumber, digest(mobileNumber, otp)).outcome() != OtpStore.Outcome.VERIFIED) {
+            return false;
+        }
+        log.info("Mobile change OTP verified for: {}", maskPhoneNumber(mobileNumber));
+        return true;
+    }
 
-        // Generate OTP
+    /**
+     * Store the code and queue its SMS in the caller's transaction: if the
+     * enqueue fails, the code is rolled back too (the in-memory store puts
+     * back what it replaced), so the user is not left waiting out the
+     * cooldown for a code that was never sent.
+     */
+    private String issueOtp(String mobileNumber, String label) {
         String otp = generateOtp();
-        String otpHash = passwordEncoder.encode(otp);
+        otpStore.issue(mobileNumber, digest(mobileNumber, otp),
+                Instant.now().plus(expirationMinutes, ChronoUnit.MINUTES));
 
-        // Delete old OTPs for this number
-        otpCodeRepository.deleteByMobileNumber(mobileNumber);
-
-        // Save new OTP
-        OtpCode otpCode = OtpCode.builder()
-                .mobileNumber(mobileNumber)
-                .otpHash(otpHash)
-                .expiresAt(LocalDateTime.now().plusMinutes(expirationMinutes))
-                .lastSentAt(LocalDateTime.now())
-                .build();
-        otpCodeRepository.save(otpCode);
-
-        // Send OTP via SMS (if configured)
-        boolean smsSent = false;
-        if (smsEnabled) {
-            smsSent = smsService.sendOtp(mobileNumber, otp);
+        // Queue the SMS (if configured); the dispatcher sends and retries it off the request thread
+        boolean deliverable = smsService.isDeliverable();
+        if (deliverable) {
+            notificationOutbox.enqueueOtp(mobileNumber, otp);
         }
 
-        // In dev mode or if SMS not sent, log and return OTP for testing
-        boolean isDevMode = "dev".equals(activeProfile) || !smsSent;
+        // In dev mode or without SMS, log and return OTP for testing
+        boolean isDevMode = "dev".equals(activeProfile) || !deliverable;
         if (isDevMode) {
-            log.warn("🔐 DEV MODE - Mobile Change OTP for {}: {}", mobileNumber, otp);
+            log.warn("🔐 DEV MODE - {} for {}: {}", label, mobileNumber, otp);
         }
 
-        log.info("Mobile change OTP sent to: {}", maskPhoneNumber(mobileNumber));
-        
+        log.info("{} issued for: {}", label, maskPhoneNumber(mobileNumber));
+
+        // Return OTP only in dev mode (for UI display)
         return isDevMode ? otp : null;
     }
 
     /**
-     * Verify OTP for mobile number change (returns boolean)
+     * HMAC-SHA256 of the number and code. A short-lived six-digit code gains
+     * nothing from BCrypt's cost (the attempt limit is what stops guessing);
+     * the keyed digest just keeps plaintext codes out of memory and the table.
      */
-    @Transactional
-    public boolean verifyOtpForMobileChange(String newMobileNumber, String otp) {
-        String mobileNumber = normalizePhoneNumber(newMobileNumber);
-
-        OtpCode otpCode = otpCodeRepository.findFirstByMobileNumberOrderByCreatedAtDesc(mobileNumber)
-                .orElse(null);
-
-        if (otpCode == null) {
-            return false;
-        }
-
-        // Check if expired
-        if (otpCode.isExpired()) {
-            otpCodeRepository.delete(otpCode);
-            return false;
-        }
-
-        // Check attempts
-        if (otpCode.getAttempts() >= maxAttempts) {
-            otpCodeRepository.delete(otpCode);
-            return false;
-        }
+    private byte[] digest(String mobileNumber, String otp) {
+        return hmac.get().doFinal((mobileNumber + ":" + otp).getBytes(StandardCharsets.UTF_8));
+    }
 
-        // Verify OTP
-        if (!passwordEncoder.matches(otp, otpCode.getOtpHash())) {
-            otpCode.incrementAttempts();
-            otpCodeRepository.save(otpCode);
-            return false;
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(hmacSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
         }
-
-        // OTP verified - delete it
-        otpCodeRepository.delete(otpCode);
-        log.info("Mobile change OTP verified for: {}", maskPhoneNumber(mobileNumber));
-        return true;
     }
 }
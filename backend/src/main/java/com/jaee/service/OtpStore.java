@@ -0,0 +1,40 @@
+package com.jaee.service;
+
+import java.time.Instant;
+
+/**
+ * Where issued OTPs live between request and verification. Codes arrive
+ * already digested by {@link OtpService}; a store only keeps the digest,
+ * enforces the resend cooldown and counts failed attempts.
+ *
+ * Selected with {@code app.otp.store}: {@code memory} (default, this node
+ * only) or {@code database} (the otp_codes table, for multi-node setups
+ * without sticky routing).
+ */
+public interface OtpStore {
+
+    /**
+     * Replace any code for this number with a new one. Takes part in the
+     * caller's transaction: a rolled-back issue leaves the previous code in place.
+     * @throws com.jaee.exception.TooManyRequestsException if the previous code was sent within the cooldown
+     */
+    void issue(String mobileNumber, byte[] digest, Instant expiresAt);
+
+    /** Check a digest against the current code; a match consumes the code */
+    Verification verify(String mobileNumber, byte[] digest);
+
+    enum Outcome {
+        VERIFIED,
+        INVALID,
+        EXPIRED,
+        LOCKED,
+        MISSING
+    }
+
+    record Verification(Outcome outcome, int attemptsRemaining) {
+
+        static Verification of(Outcome outcome) {
+            return new Verification(outcome, 0);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.jaee.service;
+
+import com.jaee.dto.order.OrderConfirmation;
+import com.jaee.entity.Order;
+import com.jaee.entity.OrderItem;
+import com.jaee.event.OrderPaidEvent;
+import com.jaee.repository.OrderRepository;
+import com.jaee.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Marks a paid order as PAID exactly once, whichever of the client callback
+ * or the Razorpay webhook gets here first.
+ *
+ * A per-order in-memory guard turns away concurrent callers on this instance
+ * without touching the database; the conditional PENDING -> PAID update is
+ * what makes it exactly-once across instances.
+ *
+ * Orders that need manual follow-up are flagged in orders.attention and
+ * counted in {@code checkout.attention}: a payment captured after the order
+ * was cancelled (expired or failed attempt), and a stock shortfall on a paid
+ * order.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentFinalizer {
+
+    public enum Outcome {
+        /** This call moved the order to PAID and ran the side effects */
+        FINALIZED,
+        /** The order was already past PENDING */
+        ALREADY_PROCESSED,
+        /** The order had been cancelled; the payment was recorded and flagged for refund */
+        PAID_AFTER_CANCEL,
+        /** Another caller on this instance is finalizing the same order right now */
+        IN_PROGRESS
+    }
+
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final CartService cartService;
+    private final NotificationOutbox notificationOutbox;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final CheckoutMetrics checkoutMetrics;
+
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Finalize a captured payment: mark paid, reduce stock, clear cart, queue confirmation
+     */
+    public Outcome finalizePayment(Order pending, String razorpayPaymentId, String source) {
+        Long orderId = pending.getId();
+        if (!inFlight.add(orderId)) {
+            log.info("Order {} is already being finalized, skipping {} callback", orderId, source);
+            return Outcome.IN_PROGRESS;
+        }
+        try {
+            Order order = transactionTemplate.execute(status -> markPaid(pending, razorpayPaymentId));
+            if (order == null) {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(
+                        status -> recordIfCancelled(pending, razorpayPaymentId, source)))) {
+                    return Outcome.PAID_AFTER_CANCEL;
+                }
+                log.info("Order {} already processed, skipping {} callback", orderId, source);
+                return Outcome.ALREADY_PROCESSED;
+            }
+
+            log.info("Order {} marked as paid via {} payment {}", orderId, source, razorpayPaymentId);
+            return Outcome.FINALIZED;
+        } finally {
+            inFlight.remove(orderId);
+        }
+    }
+
+    /**
+     * A PENDING -> PAID miss is a duplicate unless the order was cancelled, in
+     * which case the customer has paid for an order we will not ship
+     */
+    private boolean recordIfCancelled(Order pending, String razorpayPaymentId, String source) {
+        if (orderRepository.findStatus(pending).orElse(null) != Order.OrderStatus.CANCELLED) {
+            return false;
+        }
+        // Only the first capture is recorded, so duplicate callbacks don't count it twice
+        if (orderRepository.recordPaymentAfterCancel(pending, razorpayPaymentId) > 0) {
+            checkoutMetrics.attention(Order.Attention.PAID_AFTER_CANCEL);
+            log.error("Payment {} captured via {} for cancelled order {}; flagged for refund",
+                    razorpayPaymentId, source, pending.getId());
+        } else {
+            log.warn("Order {} is cancelled and already has a recorded payment, {} payment {} not recorded",
+                    pending.getId(), source, razorpayPaymentId);
+        }
+        return true;
+    }
+
+    private Order markPaid(Order pending, String razorpayPaymentId) {
+        int updated = checkoutMetrics.stage("mark_paid",
+                () -> orderRepository.markPaidIfPending(pending, razorpayPaymentId, LocalDateTime.now()));
+        if (updated == 0) {
+            return null;
+        }
+
+        Order order = orderRepository.findWithItems(pending).orElseThrow();
+
+        // Reduce stock
+        boolean shortfall = checkoutMetrics.stage("stock_decrement", () -> {
+            boolean missing = false;
+            for (OrderItem item : order.getItems()) {
+                if (item.getProduct() == null) {
+                    continue;
+                }
+                if (productRepository.decrementStock(item.getProduct().getId(), item.getQty()) == 0) {
+                    log.error("Insufficient stock for product {} while finalizing order {} (qty {})",
+                            item.getProduct().getId(), order.getId(), item.getQty());
+                    missing = true;
+                }
+            }
+            return missing;
+        });
+        // The customer has already paid, so a shortfall is flagged for follow-up rather than failing the order
+        if (shortfall) {
+            orderRepository.flagAttention(order, Order.Attention.STOCK_SHORTFALL);
+            checkoutMetrics.attention(Order.Attention.STOCK_SHORTFALL);
+        }
+
+        // Clear cart
+        checkoutMetrics.stage("clear_cart", () -> {
+            cartService.clearCart(order.getUser());
+            return null;
+        });
+
+        // Confirmation email is queued in this transaction, so it is sent if and only if PAID commits
+        OrderConfirmation confirmation = OrderConfirmation.fromEntity(order);
+        checkoutMetrics.stage("email_enqueue", () -> {
+            notificationOutbox.enqueueOrderConfirmation(confirmation);
+            return null;
+        });
+        eventPublisher.publishEvent(new OrderPaidEvent(confirmation));
+        return order;
+    }
+}
@@ -0,0 +1,89 @@
+package com.jaee.service;
+
+import com.jaee.entity.Order;
+import com.jaee.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Cancels PENDING orders left behind by abandoned checkouts.
+ *
+ * Each batch is claimed with FOR UPDATE SKIP LOCKED and cancelled in its own
+ * short transaction, so several backend nodes can run the job at once
+ * without blocking each other or cancelling the same rows twice. The TTL
+ * must comfortably exceed how long a customer can sit on the Razorpay
+ * checkout, otherwise a late payment will find its order already cancelled.
+ *
+ * The frequent run only looks back lookback-hours past the TTL, which keeps
+ * the scan to the latest one or two monthly partitions; a daily sweep with
+ * no lower bound catches anything left behind while the job was not running.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PendingOrderExpiryJob {
+
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.orders.pending-expiry.ttl-minutes:120}")
+    private long ttlMinutes;
+
+    @Value("${app.orders.pending-expiry.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.orders.pending-expiry.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+
+    @Value("${app.orders.pending-expiry.lookback-hours:48}")
+    private long lookbackHours;
+
+    /** Older than any order; the full sweep's lower bound */
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    @Scheduled(
+            initialDelayString = "${app.orders.pending-expiry.interval-ms:300000}",
+            fixedDelayString = "${app.orders.pending-expiry.interval-ms:300000}")
+    public void run() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(ttlMinutes);
+        expireStalePendingOrders(cutoff.minusHours(lookbackHours), cutoff);
+    }
+
+    @Scheduled(cron = "${app.orders.pending-expiry.full-sweep-cron:0 15 4 * * *}")
+    public void sweep() {
+        expireStalePendingOrders(BEGINNING, LocalDateTime.now().minusMinutes(ttlMinutes));
+    }
+
+    /**
+     * Cancel PENDING orders created in [notBefore, cutoff), in bounded batches
+     */
+    public int expireStalePendingOrders(LocalDateTime notBefore, LocalDateTime cutoff) {
+        int expired = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            Integer cancelled = transactionTemplate.execute(status -> {
+                List<Long> ids = orderRepository.lockStalePendingOrderIds(notBefore, cutoff, batchSize);
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                // Stock is only taken at payment time, so there are no reservations to hand back here
+                return orderRepository.updateStatusIfCurrent(ids, notBefore, cutoff,
+                        Order.OrderStatus.PENDING, Order.OrderStatus.CANCELLED);
+            });
+            expired += cancelled;
+            if (cancelled < batchSize) {
+                break;
+            }
+        }
+        if (expired > 0) {
+            log.info("Expired {} PENDING orders created before {}", expired, cutoff);
+        }
+        return expired;
+    }
+}
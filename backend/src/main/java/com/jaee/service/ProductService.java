@@ -36,6 +36,7 @@ public class ProductService {
     private static final Pattern NONLATIN = Pattern.compile("[^\\w-]");
     private static final Pattern WHITESPACE = Pattern.compile("[\\s]");
 
+    @Transactional(readOnly = true)
     public PageResponse<ProductDto> getProducts(
             Long categoryId,
             BigDecimal minPrice,
@@ -56,18 +57,21 @@ public class ProductService {
         return PageResponse.from(productPage, ProductDto::fromEntity);
     }
 
+    @Transactional(readOnly = true)
     public ProductDto getProductBySlug(String slug) {
         Product product = productRepository.findBySlug(slug)
                 .orElseThrow(() -> new NotFoundException("Product not found"));
         return ProductDto.fromEntity(product);
     }
 
+    @Transactional(readOnly = true)
     public ProductDto getProductById(Long id) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Product not found"));
         return ProductDto.fromEntity(product);
     }
 
+    @Transactional(readOnly = true)
     public List<ProductDto> getFeaturedProducts(int limit) {
         return productRepository.findFeaturedProducts(PageRequest.of(0, limit))
                 .stream()
@@ -0,0 +1,185 @@
+package com.jaee.service;
+
+import com.jaee.exception.ServiceUnavailableException;
+import com.razorpay.Order;
+import com.razorpay.RazorpayClient;
+import com.razorpay.RazorpayException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Outbound calls to the Razorpay orders API.
+ *
+ * Every call runs on its own virtual thread with a hard timeout and behind a
+ * circuit breaker, so a slow or failing gateway can only ever cost the caller
+ * the configured timeout. Callers must never invoke this inside a database
+ * transaction.
+ */
+@Service
+@Slf4j
+public class RazorpayGateway {
+
+    @Value("${app.razorpay.key-id}")
+    private String razorpayKeyId;
+
+    @Value("${app.razorpay.key-secret}")
+    private String razorpayKeySecret;
+
+    @Value("${app.razorpay.test-mode:true}")
+    private boolean testMode;
+
+    @Value("${app.razorpay.timeout-ms:8000}")
+    private long timeoutMs;
+
+    @Value("${app.razorpay.circuit-breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${app.razorpay.circuit-breaker.open-duration-ms:30000}")
+    private long openDurationMs;
+
+    /** Alternative API host (e.g. the local stand-in); the SDK client always talks to api.razorpay.com */
+    @Value("${app.razorpay.api-base-url:}")
+    private String apiBaseUrl;
+
+    private RazorpayClient razorpayClient;
+    private HttpClient httpClient;
+    private GatewayCircuitBreaker circuitBreaker;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @PostConstruct
+    public void init() {
+        circuitBreaker = new GatewayCircuitBreaker("razorpay", failureThreshold, openDurationMs);
+        if (testMode) {
+            log.info("🧪 Razorpay TEST MODE enabled - payments will be simulated");
+            return;
+        }
+        if (!apiBaseUrl.isBlank()) {
+            httpClient = HttpClient.newBuilder()
+                    .executor(executor)
+                    .connectTimeout(Duration.ofMillis(timeoutMs))
+                    .build();
+            log.info("Razorpay gateway using API at {}", apiBaseUrl);
+            return;
+        }
+        try {
+            razorpayClient = new RazorpayClient(razorpayKeyId, razorpayKeySecret);
+            log.info("Razorpay client initialized");
+        } catch (RazorpayException e) {
+            log.error("Failed to initialize Razorpay client: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Create a Razorpay order and return its id
+     */
+    public String createOrder(long amountInPaise, String currency, String receipt, JSONObject notes)
+            throws RazorpayException {
+        // TEST MODE: Simulate Razorpay order without API call
+        if (testMode) {
+            return "test_" + receipt + "_" + System.currentTimeMillis();
+        }
+
+        JSONObject orderRequest = new JSONObject();
+        orderRequest.put("amount", amountInPaise);
+        orderRequest.put("currency", currency);
+        orderRequest.put("receipt", receipt);
+        orderRequest.put("notes", notes);
+
+        if (httpClient != null) {
+            return call(() -> post("/v1/orders", orderRequest)).getString("id");
+        }
+        Order razorpayOrder = call(() -> razorpayClient.orders.create(orderRequest));
+        return razorpayOrder.get("id");
+    }
+
+    /**
+     * Same request the SDK makes, sent to {@code app.razorpay.api-base-url}
+     */
+    private JSONObject post(String path, JSONObject body) throws RazorpayException {
+        String credentials = Base64.getEncoder().encodeToString(
+                (razorpayKeyId + ":" + razorpayKeySecret).getBytes(StandardCharsets.UTF_8));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(apiBaseUrl + path))
+                .timeout(Duration.ofMillis(timeoutMs))
+                .header("Authorization", "Basic " + credentials)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            JSONObject json = new JSONObject(response.body());
+            if (response.statusCode() >= 300) {
+                JSONObject error = json.optJSONObject("error");
+                throw new RazorpayException(error != null
+                        ? error.optString("code") + ":" + error.optString("description")
+                        : "HTTP " + response.statusCode());
+            }
+            return json;
+        } catch (IOException e) {
+            throw new RazorpayException(e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RazorpayException("Interrupted", e);
+        }
+    }
+
+    private <T> T call(GatewayCall<T> gatewayCall) throws RazorpayException {
+        if (razorpayClient == null && httpClient == null) {
+            throw new ServiceUnavailableException("Payment gateway is not configured");
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            log.warn("Razorpay circuit open, rejecting gateway call");
+            throw new ServiceUnavailableException("Payment gateway is temporarily unavailable. Please try again shortly.");
+        }
+
+        Future<T> future = executor.submit(gatewayCall::execute);
+        try {
+            T result = future.get(timeoutMs, TimeUnit.MILLISECONDS);
+            circuitBreaker.onSuccess();
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            circuitBreaker.onFailure();
+            log.error("Razorpay call timed out after {} ms", timeoutMs);
+            throw new ServiceUnavailableException("Payment gateway timed out. Please try again.");
+        } catch (ExecutionException e) {
+            circuitBreaker.onFailure();
+            if (e.getCause() instanceof RazorpayException razorpayException) {
+                throw razorpayException;
+            }
+            throw new RazorpayException(e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Payment gateway call interrupted");
+        }
+    }
+
+    @FunctionalInterface
+    private interface GatewayCall<T> {
+        T execute() throws RazorpayException;
+    }
+}
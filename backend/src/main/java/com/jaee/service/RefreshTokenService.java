@@ -0,0 +1,108 @@
+package com.jaee.service;
+
+import com.jaee.entity.RefreshToken;
+import com.jaee.entity.User;
+import com.jaee.exception.UnauthorizedException;
+import com.jaee.repository.RefreshTokenRepository;
+import com.jaee.security.JwtService;
+import com.jaee.security.RevokedRefreshTokens;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Opaque refresh tokens. Only their SHA-256 is stored; a refresh replaces
+ * the digest in place, and the old token goes into the revoked filter so
+ * a replay is turned away before reaching the database. The filter is only
+ * updated once the transaction commits; a rolled-back rotation or logout
+ * leaves the old token usable, as the database still has it.
+ */
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final RevokedRefreshTokens revokedRefreshTokens;
+    private final JwtService jwtService;
+
+    public record Rotation(Long userId, String refreshToken) {
+    }
+
+    @Transactional
+    public String issue(User user) {
+        String token = newToken();
+        refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(sha256(token))
+                .user(user)
+                .expiresAt(expiresAt())
+                .build());
+        return token;
+    }
+
+    /**
+     * Exchange a refresh token for its successor
+     * @throws UnauthorizedException if the token is unknown, already used, revoked or expired
+     */
+    @Transactional
+    public Rotation rotate(String presented) {
+        byte[] current = sha256(presented);
+        if (revokedRefreshTokens.mightContain(current)) {
+            throw new UnauthorizedException("Refresh token expired or revoked");
+        }
+
+        String token = newToken();
+        Long userId = refreshTokenRepository.rotate(current, sha256(token), expiresAt(), LocalDateTime.now())
+                .orElseThrow(() -> new UnauthorizedException("Invalid refresh token"));
+        revokeAfterCommit(current);
+        return new Rotation(userId, token);
+    }
+
+    @Transactional
+    public void revoke(String presented) {
+        byte[] hash = sha256(presented);
+        refreshTokenRepository.deleteByTokenHash(hash);
+        revokeAfterCommit(hash);
+    }
+
+    private void revokeAfterCommit(byte[] hash) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    revokedRefreshTokens.add(hash);
+                }
+            });
+        } else {
+            revokedRefreshTokens.add(hash);
+        }
+    }
+
+    private LocalDateTime expiresAt() {
+        return LocalDateTime.now().plusSeconds(jwtService.getRefreshExpirationMs() / 1000);
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static byte[] sha256(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,424 @@
+package com.jaee.service;
+
+import com.jaee.config.AsyncConfig;
+import com.jaee.dto.stats.RollupRebuildResult;
+import com.jaee.dto.stats.SalesStatsDto;
+import com.jaee.entity.DailySalesRollup;
+import com.jaee.entity.Money;
+import com.jaee.entity.Order;
+import com.jaee.entity.OrderItem;
+import com.jaee.entity.ProductSalesRollup;
+import com.jaee.entity.SalesRollupState;
+import com.jaee.exception.BadRequestException;
+import com.jaee.repository.DailySalesRollupRepository;
+import com.jaee.repository.OrderRepository;
+import com.jaee.repository.ProductSalesRollupRepository;
+import com.jaee.repository.SalesRollupStateRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Per-day and per-product sales totals for the admin dashboard.
+ *
+ * Each paid order is added to the rollups once, on the rollup executor,
+ * after its PAID status commits, so the stats endpoint only ever reads a
+ * bounded number of rollup rows. {@link #startRebuild} recomputes everything
+ * from orders in parallel date-range chunks, in the background: it empties
+ * the rollups and moves a watermark to "now", after which incremental
+ * updates only count orders paid at or after the watermark and the rebuild
+ * adds everything paid before it. An order whose PAID commit races the start
+ * of a rebuild can be missed; running the rebuild again while quiet fixes that.
+ *
+ * The watermark and the rebuild's progress live in sales_rollup_state, so
+ * every node sees them. An incremental update reads the watermark with that
+ * row locked, in the same transaction as its increments; the rebuild empties
+ * the rollups and moves the watermark under the same lock.
+ */
+@Service
+@Slf4j
+public class SalesRollupService {
+
+    /** Statuses an order can be in once it has been paid */
+    private static final String SOLD_STATUSES = "('PAID', 'SHIPPED', 'FULFILLED')";
+    private static final int MAX_STATS_DAYS = 366;
+
+    private final OrderRepository orderRepository;
+    private final DailySalesRollupRepository dailySalesRollupRepository;
+    private final ProductSalesRollupRepository productSalesRollupRepository;
+    private final SalesRollupStateRepository salesRollupStateRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderPartitionJob orderPartitionJob;
+    private final ThreadPoolTaskExecutor rebuildExecutor;
+
+    @Value("${app.stats.rebuild.parallelism:4}")
+    private int rebuildParallelism;
+
+    @Value("${app.stats.rebuild.chunk-days:31}")
+    private int rebuildChunkDays;
+
+    /** A rebuild RUNNING for longer than this is taken to have died with its node */
+    @Value("${app.stats.rebuild.stale-after-minutes:60}")
+    private long rebuildStaleAfterMinutes;
+
+    public SalesRollupService(OrderRepository orderRepository,
+                              DailySalesRollupRepository dailySalesRollupRepository,
+                              ProductSalesRollupRepository productSalesRollupRepository,
+                              SalesRollupStateRepository salesRollupStateRepository,
+                              JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              OrderPartitionJob orderPartitionJob,
+                              @Qualifier(AsyncConfig.ROLLUP_REBUILD_EXECUTOR) ThreadPoolTaskExecutor rebuildExecutor) {
+        this.orderRepository = orderRepository;
+        this.dailySalesRollupRepository = dailySalesRollupRepository;
+        this.productSalesRollupRepository = productSalesRollupRepository;
+        this.salesRollupStateRepository = salesRollupStateRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.orderPartitionJob = orderPartitionJob;
+        this.rebuildExecutor = rebuildExecutor;
+    }
+
+    /** V20 inserts the row; this covers a schema Hibernate created */
+    @PostConstruct
+    void ensureState() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!salesRollupStateRepository.existsById(SalesRollupState.ID)) {
+                    salesRollupStateRepository.save(SalesRollupState.builder().id(SalesRollupState.ID).build());
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another node inserted it first
+        }
+    }
+
+    /**
+     * Add a newly paid order to the daily and product rollups
+     */
+    @Async(AsyncConfig.ROLLUP_EXECUTOR)
+    public void recordPaid(Long orderId) {
+        try {
+            withUpsertRetry(() -> {
+                // Held until the increments commit, so a rebuild cannot empty the rollups in between
+                LocalDateTime rebuiltBefore = salesRollupStateRepository.lockState()
+                        .map(SalesRollupState::getRebuiltBefore)
+                        .orElse(null);
+                Order order = orderRepository.findByIdWithItems(orderId).orElse(null);
+                if (order == null || order.getPaidAt() == null) {
+                    return;
+                }
+                if (rebuiltBefore != null && order.getPaidAt().isBefore(rebuiltBefore)) {
+                    return;
+                }
+                DailyTotals day = new DailyTotals(1, 0, order.getTotalAmount().minorUnits());
+                Map<Long, ProductTotals> products = new HashMap<>();
+                for (OrderItem item : order.getItems()) {
+                    day.units += item.getQty();
+                    if (item.getProduct() != null) {
+                        products.merge(item.getProduct().getId(),
+                                new ProductTotals(item.getNameSnapshot(), 1, item.getQty(), item.getSubtotal().minorUnits()),
+                                // Two lines for the same product are still one order
+                                (a, b) -> new ProductTotals(a.name, 1, a.units + b.units, a.revenueMinor + b.revenueMinor));
+                    }
+                }
+                addDaily(order.getPaidAt().toLocalDate(), day);
+                products.forEach(this::addProduct);
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to add order {} to sales rollups; a rebuild will correct them", orderId, e);
+        }
+    }
+
+    /**
+     * Sales for the last {@code days} days plus the all-time best-selling
+     * products, read from the rollups only
+     */
+    public SalesStatsDto getStats(int days) {
+        int window = Math.min(Math.max(days, 1), MAX_STATS_DAYS);
+        LocalDate to = LocalDate.now();
+        LocalDate from = to.minusDays(window - 1L);
+
+        List<DailySalesRollup> daily = dailySalesRollupRepository.findBySalesDateBetweenOrderBySalesDate(from, to);
+        long orders = 0;
+        long units = 0;
+        long revenueMinor = 0;
+        for (DailySalesRollup row : daily) {
+            orders += row.getPaidOrders();
+            units += row.getUnits();
+            revenueMinor += row.getRevenueMinor();
+        }
+
+        return SalesStatsDto.builder()
+                .from(from)
+                .to(to)
+                .paidOrders(orders)
+                .units(units)
+                .revenue(Money.ofMinor(revenueMinor, Money.DEFAULT_CURRENCY).toBigDecimal())
+                .currency(Money.DEFAULT_CURRENCY)
+                .daily(daily.stream().map(SalesStatsDto.DailySales::fromEntity).toList())
+                .topProducts(productSalesRollupRepository.findTop10ByOrderByRevenueMinorDesc().stream()
+                        .map(SalesStatsDto.ProductSales::fromEntity)
+                        .toList())
+                .build();
+    }
+
+    /**
+     * Start recomputing the rollups from orders in the background; one
+     * rebuild at a time across all nodes. Returns the rebuild's state,
+     * which {@link #rebuildStatus} reports from then on.
+     */
+    public RollupRebuildResult startRebuild() {
+        // The rebuild reads live orders only; it would wipe the totals of archived months
+        if (orderPartitionJob.hasArchivedOrders()) {
+            throw new BadRequestException("Orders have been archived; rebuilding would drop their sales");
+        }
+        // The row lock makes concurrent starts, on any node, take turns here
+        SalesRollupState claimed = transactionTemplate.execute(status -> {
+            SalesRollupState state = salesRollupStateRepository.lockState().orElseThrow();
+            LocalDateTime now = LocalDateTime.now();
+            if (state.getRebuildStatus() == SalesRollupState.RebuildStatus.RUNNING
+                    && state.getRebuildStartedAt().isAfter(now.minusMinutes(rebuildStaleAfterMinutes))) {
+                return null;
+            }
+            state.setRebuildStatus(SalesRollupState.RebuildStatus.RUNNING);
+            state.setRebuildStartedAt(now);
+            state.setRebuildFinishedAt(null);
+            state.setRebuildChunks(null);
+            state.setRebuildDays(null);
+            state.setRebuildProducts(null);
+            state.setRebuildPaidOrders(null);
+            state.setRebuildError(null);
+            return state;
+        });
+        if (claimed == null) {
+            throw new BadRequestException("A sales rollup rebuild is already running");
+        }
+        try {
+            rebuildExecutor.execute(this::rebuild);
+        } catch (TaskRejectedException e) {
+            finishRebuild(null, "Rebuild executor busy");
+            throw new BadRequestException("A sales rollup rebuild is already running");
+        }
+        return RollupRebuildResult.fromEntity(claimed);
+    }
+
+    /**
+     * The latest rebuild's state: RUNNING, SUCCEEDED with its totals, or
+     * FAILED with the error; null status if none has run
+     */
+    public RollupRebuildResult rebuildStatus() {
+        return salesRollupStateRepository.findById(SalesRollupState.ID)
+                .map(RollupRebuildResult::fromEntity)
+                .orElseGet(RollupRebuildResult::new);
+    }
+
+    private void rebuild() {
+        try {
+            LocalDateTime watermark = resetRollups();
+
+            LocalDateTime firstPaid = jdbcTemplate.queryForObject(
+                    "SELECT MIN(paid_at) FROM orders WHERE status IN " + SOLD_STATUSES, LocalDateTime.class);
+            List<LocalDateTime[]> chunks = new ArrayList<>();
+            if (firstPaid != null) {
+                for (LocalDateTime start = firstPaid.toLocalDate().atStartOfDay(); start.isBefore(watermark);
+                     start = start.plusDays(rebuildChunkDays)) {
+                    LocalDateTime end = start.plusDays(rebuildChunkDays);
+                    chunks.add(new LocalDateTime[]{start, end.isAfter(watermark) ? watermark : end});
+                }
+            }
+
+            // Chunks cover disjoint days, so daily rows are written as each one finishes;
+            // product totals span chunks and are merged here first
+            Map<Long, ProductTotals> products = new ConcurrentHashMap<>();
+            long paidOrders = 0;
+            int days = 0;
+            try (ExecutorService pool = Executors.newFixedThreadPool(rebuildParallelism)) {
+                List<Future<Map<LocalDate, DailyTotals>>> results = new ArrayList<>();
+                for (LocalDateTime[] chunk : chunks) {
+                    results.add(pool.submit(() -> rebuildChunk(chunk[0], chunk[1], products)));
+                }
+                for (Future<Map<LocalDate, DailyTotals>> result : results) {
+                    for (DailyTotals totals : result.get().values()) {
+                        paidOrders += totals.orders;
+                        days++;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Sales rollup rebuild interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Sales rollup rebuild failed", e.getCause());
+            }
+            products.forEach((productId, totals) -> withUpsertRetry(() -> addProduct(productId, totals)));
+
+            int chunkCount = chunks.size();
+            int dayCount = days;
+            long orderCount = paidOrders;
+            finishRebuild(state -> {
+                state.setRebuildChunks(chunkCount);
+                state.setRebuildDays(dayCount);
+                state.setRebuildProducts(products.size());
+                state.setRebuildPaidOrders(orderCount);
+            }, null);
+            log.info("Rebuilt sales rollups: {}", rebuildStatus());
+        } catch (RuntimeException e) {
+            log.error("Sales rollup rebuild failed", e);
+            String error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            finishRebuild(null, error.length() > 500 ? error.substring(0, 500) : error);
+        }
+    }
+
+    /** Empty the rollups and move the watermark while no incremental update is in progress */
+    private LocalDateTime resetRollups() {
+        return transactionTemplate.execute(status -> {
+            SalesRollupState state = salesRollupStateRepository.lockState().orElseThrow();
+            LocalDateTime watermark = LocalDateTime.now();
+            dailySalesRollupRepository.deleteAllInBatch();
+            productSalesRollupRepository.deleteAllInBatch();
+            state.setRebuiltBefore(watermark);
+            return watermark;
+        });
+    }
+
+    private void finishRebuild(Consumer<SalesRollupState> totals, String error) {
+        transactionTemplate.executeWithoutResult(status -> {
+            SalesRollupState state = salesRollupStateRepository.lockState().orElseThrow();
+            state.setRebuildStatus(error == null
+                    ? SalesRollupState.RebuildStatus.SUCCEEDED
+                    : SalesRollupState.RebuildStatus.FAILED);
+            state.setRebuildFinishedAt(LocalDateTime.now());
+            state.setRebuildError(error);
+            if (totals != null) {
+                totals.accept(state);
+            }
+        });
+    }
+
+    private Map<LocalDate, DailyTotals> rebuildChunk(LocalDateTime from, LocalDateTime to,
+                                                     Map<Long, ProductTotals> products) {
+        Timestamp start = Timestamp.valueOf(from);
+        Timestamp end = Timestamp.valueOf(to);
+        String paidInRange = "o.status IN " + SOLD_STATUSES + " AND o.paid_at >= ? AND o.paid_at < ?";
+
+        Map<LocalDate, DailyTotals> daily = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT CAST(o.paid_at AS DATE) AS sales_date, COUNT(*) AS orders, SUM(o.total_amount) AS revenue " +
+                "FROM orders o WHERE " + paidInRange + " GROUP BY CAST(o.paid_at AS DATE)",
+                rs -> {
+                    daily.put(rs.getDate("sales_date").toLocalDate(),
+                            new DailyTotals(rs.getLong("orders"), 0, toMinor(rs.getBigDecimal("revenue"))));
+                }, start, end);
+        jdbcTemplate.query(
+                "SELECT CAST(o.paid_at AS DATE) AS sales_date, SUM(oi.qty) AS units " +
+                "FROM orders o JOIN order_items oi ON oi.order_id = o.id WHERE " + paidInRange +
+                " GROUP BY CAST(o.paid_at AS DATE)",
+                rs -> {
+                    DailyTotals totals = daily.get(rs.getDate("sales_date").toLocalDate());
+                    if (totals != null) {
+                        totals.units = rs.getLong("units");
+                    }
+                }, start, end);
+        jdbcTemplate.query(
+                "SELECT oi.product_id, MAX(oi.name_snapshot) AS name, COUNT(DISTINCT o.id) AS orders, " +
+                "SUM(oi.qty) AS units, SUM(oi.price_snapshot * oi.qty) AS revenue " +
+                "FROM orders o JOIN order_items oi ON oi.order_id = o.id " +
+                "WHERE oi.product_id IS NOT NULL AND " + paidInRange + " GROUP BY oi.product_id",
+                rs -> {
+                    products.merge(rs.getLong("product_id"),
+                            new ProductTotals(rs.getString("name"), rs.getLong("orders"), rs.getLong("units"),
+                                    toMinor(rs.getBigDecimal("revenue"))),
+                            ProductTotals::plus);
+                }, start, end);
+
+        daily.forEach((date, totals) -> withUpsertRetry(() -> addDaily(date, totals)));
+        return daily;
+    }
+
+    private void addDaily(LocalDate date, DailyTotals totals) {
+        int updated = dailySalesRollupRepository.increment(date, totals.orders, totals.units, totals.revenueMinor,
+                LocalDateTime.now());
+        if (updated == 0) {
+            dailySalesRollupRepository.save(DailySalesRollup.builder()
+                    .salesDate(date)
+                    .paidOrders(totals.orders)
+                    .units(totals.units)
+                    .revenueMinor(totals.revenueMinor)
+                    .build());
+        }
+    }
+
+    private void addProduct(Long productId, ProductTotals totals) {
+        int updated = productSalesRollupRepository.increment(productId, totals.name, totals.orders, totals.units,
+                totals.revenueMinor, LocalDateTime.now());
+        if (updated == 0) {
+            productSalesRollupRepository.save(ProductSalesRollup.builder()
+                    .productId(productId)
+                    .productName(totals.name)
+                    .paidOrders(totals.orders)
+                    .units(totals.units)
+                    .revenueMinor(totals.revenueMinor)
+                    .build());
+        }
+    }
+
+    /**
+     * Run an update-else-insert in its own transaction. If another writer
+     * inserts the same row first the insert fails and the retry updates it.
+     */
+    private void withUpsertRetry(Runnable upsert) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> upsert.run());
+        } catch (DataIntegrityViolationException e) {
+            transactionTemplate.executeWithoutResult(status -> upsert.run());
+        }
+    }
+
+    private static long toMinor(BigDecimal amount) {
+        return amount == null ? 0 : Money.of(amount, Money.DEFAULT_CURRENCY).minorUnits();
+    }
+
+    private static final class DailyTotals {
+        private final long orders;
+        private long units;
+        private final long revenueMinor;
+
+        private DailyTotals(long orders, long units, long revenueMinor) {
+            this.orders = orders;
+            this.units = units;
+            this.revenueMinor = revenueMinor;
+        }
+    }
+
+    private record ProductTotals(String name, long orders, long units, long revenueMinor) {
+
+        ProductTotals plus(ProductTotals other) {
+            return new ProductTotals(other.name, orders + other.orders, units + other.units,
+                    revenueMinor + other.revenueMinor);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.jaee.service;
+
+/**
+ * Something that delivers a text message. The implementation is picked with
+ * {@code app.sms.provider}: {@code twilio} (default) or {@code stub}.
+ */
+public interface SmsProvider {
+
+    /** Tags this provider's metrics and rate-limit bucket */
+    String name();
+
+    /** Whether messages actually go anywhere; if not, OTPs are only logged */
+    boolean isDeliverable();
+
+    /** Send on the calling thread; throws if the provider refuses the message */
+    void send(String to, String body);
+}
@@ -1,73 +1,164 @@
 package com.jaee.service;
 
-import com.twilio.Twilio;
-import com.twilio.rest.api.v2010.account.Message;
-import com.twilio.type.PhoneNumber;
-import jakarta.annotation.PostConstruct;
+import com.jaee.exception.SmsThrottledException;
+import com.jaee.security.RateLimit;
+import com.jaee.security.RateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends SMS through the configured {@link SmsProvider}, one virtual thread
+ * per send. Every send first takes a token from the provider's bucket
+ * (per-second rate plus burst, per node), so a burst of OTPs queues here
+ * instead of tripping the provider's account limit. A send that would wait
+ * longer than max-wait fails with {@link SmsThrottledException} so the
+ * outbox can put it back without using up an attempt.
+ */
 @Service
 @Slf4j
 public class SmsService {
 
-    @Value("${app.sms.twilio.account-sid:}")
-    private String accountSid;
+    private final SmsProvider provider;
+    private final RateLimiter rateLimiter;
+    private final RateLimit providerLimit;
+    private final Semaphore inFlight;
+    private final boolean smsEnabled;
+    private final long maxWaitMs;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
 
-    @Value("${app.sms.twilio.auth-token:}")
-    private String authToken;
+    private final Timer sent;
+    private final Timer failed;
+    private final Timer throttleWait;
+    private final Counter throttled;
 
-    @Value("${app.sms.twilio.phone-number:}")
-    private String twilioPhoneNumber;
+    public SmsService(SmsProvider provider,
+                      RateLimiter rateLimiter,
+                      MeterRegistry meterRegistry,
+                      @Value("${app.sms.enabled:true}") boolean smsEnabled,
+                      @Value("${app.sms.rate-limit.per-second:10}") int perSecond,
+                      @Value("${app.sms.rate-limit.burst:10}") int burst,
+                      @Value("${app.sms.rate-limit.max-wait-ms:5000}") long maxWaitMs,
+                      @Value("${app.sms.max-in-flight:64}") int maxInFlight) {
+        this.provider = provider;
+        this.rateLimiter = rateLimiter;
+        this.providerLimit = new RateLimit("sms", burst, Duration.ofNanos(1_000_000_000L * burst / perSecond));
+        this.inFlight = new Semaphore(maxInFlight);
+        this.smsEnabled = smsEnabled;
+        this.maxWaitMs = maxWaitMs;
 
-    @Value("${app.sms.enabled:true}")
-    private boolean smsEnabled;
+        this.sent = sendTimer(meterRegistry, "success");
+        this.failed = sendTimer(meterRegistry, "failure");
+        this.throttleWait = Timer.builder("sms.throttle.wait")
+                .description("Time a send waited for a token from the provider's rate limit")
+                .tag("provider", provider.name())
+                .register(meterRegistry);
+        this.throttled = Counter.builder("sms.throttled")
+                .description("Sends handed back because the provider's rate limit had no token soon enough")
+                .tag("provider", provider.name())
+                .register(meterRegistry);
+    }
 
-    private boolean twilioInitialized = false;
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
 
-    @PostConstruct
-    public void init() {
-        if (smsEnabled && !accountSid.isBlank() && !authToken.isBlank()) {
-            try {
-                Twilio.init(accountSid, authToken);
-                twilioInitialized = true;
-                log.info("Twilio SMS service initialized");
-            } catch (Exception e) {
-                log.warn("Failed to initialize Twilio: {}. SMS will be logged to console.", e.getMessage());
-            }
-        } else {
-            log.info("SMS service disabled or credentials not configured. OTPs will be logged to console.");
+    /** Whether OTPs actually reach a phone; if not they are only logged */
+    public boolean isDeliverable() {
+        return smsEnabled && provider.isDeliverable();
+    }
+
+    /**
+     * Start sending an OTP on a virtual thread and return straight away
+     * @throws RejectedExecutionException if max-in-flight sends are already running
+     */
+    public CompletableFuture<Void> sendOtpAsync(String to, String otp) {
+        if (!inFlight.tryAcquire()) {
+            throw new RejectedExecutionException("Too many SMS sends in flight");
+        }
+        try {
+            return CompletableFuture.runAsync(() -> {
+                try {
+                    sendOtp(to, otp);
+                } finally {
+                    inFlight.release();
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            throw e;
         }
     }
 
     /**
-     * Send OTP via SMS
-     * @return true if SMS was actually sent, false otherwise
+     * Send an OTP on the calling thread once the provider's rate limit allows
+     * @throws SmsThrottledException if that would take longer than max-wait
      */
-    public boolean sendOtp(String to, String otp) {
+    public void sendOtp(String to, String otp) {
         String messageBody = "Your Jaee verification code is: " + otp + ". Valid for 5 minutes.";
 
-        if (twilioInitialized && smsEnabled) {
+        if (!isDeliverable()) {
+            log.warn("📱 SMS NOT SENT (disabled/not configured) - OTP for {}: {}", to, otp);
+            return;
+        }
+
+        awaitToken();
+        long started = System.nanoTime();
+        try {
+            provider.send(to, messageBody);
+        } catch (RuntimeException e) {
+            failed.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        sent.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        log.info("SMS sent to {} via {}", maskPhone(to), provider.name());
+    }
+
+    private void awaitToken() {
+        long started = System.nanoTime();
+        long waitedMs = 0;
+        while (true) {
+            long retryAfterMs = rateLimiter.tryAcquire(providerLimit, provider.name());
+            if (retryAfterMs == 0) {
+                throttleWait.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                return;
+            }
+            if (waitedMs + retryAfterMs > maxWaitMs) {
+                throttled.increment();
+                throw new SmsThrottledException(provider.name(), retryAfterMs);
+            }
+            // Cheap on a virtual thread; another sender may still take the token first, hence the loop
             try {
-                Message message = Message.creator(
-                        new PhoneNumber(to),
-                        new PhoneNumber(twilioPhoneNumber),
-                        messageBody
-                ).create();
-                log.info("SMS sent to {}, SID: {}", maskPhone(to), message.getSid());
-                return true;
-            } catch (Exception e) {
-                log.error("Failed to send SMS to {}: {}", maskPhone(to), e.getMessage());
-                log.warn("📱 FALLBACK - OTP for {}: {}", to, otp);
-                return false;
+                Thread.sleep(retryAfterMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SmsThrottledException(provider.name(), retryAfterMs);
             }
-        } else {
-            log.warn("📱 SMS NOT SENT (disabled/not configured) - OTP for {}: {}", to, otp);
-            return false;
+            waitedMs += retryAfterMs;
         }
     }
 
+    private Timer sendTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("sms.send")
+                .description("Time the SMS provider took to accept or refuse a message")
+                .tag("provider", provider.name())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
     private String maskPhone(String phone) {
         if (phone.length() <= 4) return "****";
         return phone.substring(0, phone.length() - 4) + "****";
@@ -0,0 +1,187 @@
+package com.jaee.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Keeps SMTP connections open between messages. {@link JavaMailSenderImpl}
+ * connects, says EHLO, upgrades to TLS and authenticates for every send,
+ * which costs several round trips to SendGrid before the message itself.
+ *
+ * At most {@code size} connections exist at once; senders beyond that wait
+ * for one. Idle connections are reused most recent first, so the oldest
+ * age out: one idle longer than max-idle (servers drop quiet clients) or
+ * that has carried max-messages-per-connection is closed instead. If a
+ * reused connection turns out to be dead, the message is retried once on a
+ * new one; a refusal from the server itself is not retried here.
+ */
+@Component
+@Slf4j
+public class SmtpConnectionPool {
+
+    private final JavaMailSenderImpl mailSender;
+    private final Semaphore permits;
+    private final Deque<Connection> idle = new ConcurrentLinkedDeque<>();
+    private final long maxIdleNanos;
+    private final int maxMessagesPerConnection;
+    private final Counter opened;
+
+    public SmtpConnectionPool(JavaMailSenderImpl mailSender,
+                              @Value("${app.email.smtp-pool.size:4}") int size,
+                              @Value("${app.email.smtp-pool.max-idle-ms:30000}") long maxIdleMs,
+                              @Value("${app.email.smtp-pool.max-messages-per-connection:100}") int maxMessagesPerConnection,
+                              MeterRegistry meterRegistry) {
+        this.mailSender = mailSender;
+        this.permits = new Semaphore(size);
+        this.maxIdleNanos = maxIdleMs * 1_000_000L;
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.opened = Counter.builder("email.smtp.connections.opened")
+                .description("SMTP connections opened; stays well below messages sent while connections are reused")
+                .register(meterRegistry);
+        Gauge.builder("email.smtp.connections.idle", idle, Deque::size)
+                .description("Open SMTP connections waiting for a message")
+                .register(meterRegistry);
+    }
+
+    public MimeMessage createMimeMessage() {
+        return mailSender.createMimeMessage();
+    }
+
+    public void send(MimeMessage message) {
+        try {
+            // What JavaMailSenderImpl does before handing a message to its transport
+            if (message.getSentDate() == null) {
+                message.setSentDate(new Date());
+            }
+            message.saveChanges();
+        } catch (MessagingException e) {
+            throw new MailPreparationException(e);
+        }
+
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Interrupted while waiting for an SMTP connection", e);
+        }
+        try {
+            Connection connection = borrow();
+            try {
+                deliver(connection, message);
+            } catch (MessagingException e) {
+                close(connection);
+                if (connection.sent == 0 || e instanceof SendFailedException) {
+                    throw e;
+                }
+                log.debug("Reused SMTP connection failed ({}), retrying on a new one", e.getMessage());
+                Connection fresh = open();
+                try {
+                    deliver(fresh, message);
+                } catch (MessagingException retryFailure) {
+                    close(fresh);
+                    throw retryFailure;
+                }
+            }
+        } catch (MessagingException e) {
+            throw new MailSendException("Failed to send email", e);
+        } finally {
+            permits.release();
+        }
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        Connection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            close(connection);
+        }
+    }
+
+    private void deliver(Connection connection, MimeMessage message) throws MessagingException {
+        connection.transport.sendMessage(message, message.getAllRecipients());
+        connection.sent++;
+        connection.lastUsed = System.nanoTime();
+        if (connection.sent < maxMessagesPerConnection) {
+            idle.offerFirst(connection);
+        } else {
+            close(connection);
+        }
+        evictStale();
+    }
+
+    private Connection borrow() throws MessagingException {
+        Connection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            if (!isStale(connection)) {
+                return connection;
+            }
+            close(connection);
+        }
+        return open();
+    }
+
+    private Connection open() throws MessagingException {
+        Transport transport = mailSender.getSession().getTransport(
+                mailSender.getProtocol() != null ? mailSender.getProtocol() : "smtp");
+        String username = mailSender.getUsername();
+        String password = mailSender.getPassword();
+        if ("".equals(username)) {
+            username = null;
+            if ("".equals(password)) {
+                password = null;
+            }
+        }
+        transport.connect(mailSender.getHost(), mailSender.getPort(), username, password);
+        opened.increment();
+        return new Connection(transport);
+    }
+
+    /** Idle connections are used from the front, so stale ones collect at the back */
+    private void evictStale() {
+        Connection oldest;
+        while ((oldest = idle.peekLast()) != null && isStale(oldest)) {
+            if (idle.removeLastOccurrence(oldest)) {
+                close(oldest);
+            }
+        }
+    }
+
+    private boolean isStale(Connection connection) {
+        return System.nanoTime() - connection.lastUsed > maxIdleNanos;
+    }
+
+    private static void close(Connection connection) {
+        try {
+            connection.transport.close();
+        } catch (MessagingException e) {
+            log.debug("Closing SMTP connection: {}", e.getMessage());
+        }
+    }
+
+    private static final class Connection {
+        final Transport transport;
+        int sent;
+        long lastUsed = System.nanoTime();
+
+        Connection(Transport transport) {
+            this.transport = transport;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.jaee.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Deque;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process provider for tests and local runs ({@code app.sms.provider=stub}).
+ * Keeps the most recent messages so a test can read the OTP it was sent, and
+ * can add latency and fail a fraction of sends.
+ */
+@Component
+@ConditionalOnProperty(name = "app.sms.provider", havingValue = "stub")
+@Slf4j
+public class StubSmsProvider implements SmsProvider {
+
+    private static final int RETAINED = 1000;
+
+    public record SentMessage(String to, String body) {
+    }
+
+    private final Deque<SentMessage> sent = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger retained = new AtomicInteger();
+    private final AtomicLong sentCount = new AtomicLong();
+
+    @Value("${app.sms.stub.latency-ms:0}")
+    private long latencyMs;
+
+    @Value("${app.sms.stub.failure-rate:0.0}")
+    private double failureRate;
+
+    @Override
+    public String name() {
+        return "stub";
+    }
+
+    @Override
+    public boolean isDeliverable() {
+        return true;
+    }
+
+    @Override
+    public void send(String to, String body) {
+        if (latencyMs > 0) {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted", e);
+            }
+        }
+        if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+            throw new IllegalStateException("Stub SMS provider failure");
+        }
+        sentCount.incrementAndGet();
+        sent.addFirst(new SentMessage(to, body));
+        if (retained.incrementAndGet() > RETAINED && sent.pollLast() != null) {
+            retained.decrementAndGet();
+        }
+        log.info("📱 STUB SMS to {}: {}", to, body);
+    }
+
+    /** The newest message sent to this number, if it is still retained */
+    public Optional<SentMessage> lastSentTo(String to) {
+        for (SentMessage message : sent) {
+            if (message.to().equals(to)) {
+                return Optional.of(message);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public long sentCount() {
+        return sentCount.get();
+    }
+}
@@ -1,5 +1,8 @@
 package com.jaee.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.Mac;
@@ -9,6 +12,7 @@ import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.time.Duration;
 import java.util.Base64;
 
 @Service
@@ -19,9 +23,29 @@ public class TotpService {
     private static final int TIME_STEP_SECONDS = 30;
     private static final String ALGORITHM = "HmacSHA1";
     private static final String ISSUER = "Jaee";
+    private static final int CODE_MODULUS = 1_000_000;
+
+    // Mac.getInstance is a provider lookup; each thread keeps one and re-keys it per verification
+    private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(ALGORITHM + " not available", e);
+        }
+    });
 
     private final SecureRandom secureRandom = new SecureRandom();
 
+    /** Last time step each user verified with; entries outlive the ±1 step window */
+    private final Cache<Long, Long> usedTimeSteps;
+
+    public TotpService(@Value("${app.totp.replay-cache.max-size:100000}") long replayCacheSize) {
+        this.usedTimeSteps = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(3L * TIME_STEP_SECONDS))
+                .maximumSize(replayCacheSize)
+                .build();
+    }
+
     /**
      * Generate a new TOTP secret key
      */
@@ -61,55 +85,80 @@ public class TotpService {
     }
 
     /**
-     * Verify a TOTP code against the secret
+     * Verify a TOTP code against the secret, accepting the previous and next
+     * time step for clock skew. Each time step is accepted at most once per
+     * user, so a code seen in transit cannot be replayed within the window.
      */
-    public boolean verifyCode(String secret, String code) {
+    public boolean verifyCode(Long userId, String secret, String code) {
         if (secret == null || code == null || code.length() != CODE_DIGITS) {
             return false;
         }
 
+        int providedCode;
         try {
-            int providedCode = Integer.parseInt(code);
-            long currentTimeStep = System.currentTimeMillis() / 1000 / TIME_STEP_SECONDS;
-
-            // Check current time step and one step before/after for clock skew tolerance
-            for (int i = -1; i <= 1; i++) {
-                int expectedCode = generateCode(secret, currentTimeStep + i);
-                if (expectedCode == providedCode) {
-                    return true;
-                }
-            }
+            providedCode = Integer.parseInt(code);
         } catch (NumberFormatException e) {
             return false;
         }
 
-        return false;
+        long currentTimeStep = System.currentTimeMillis() / 1000 / TIME_STEP_SECONDS;
+        long matchedStep = matchingTimeStep(Base64.getDecoder().decode(secret), providedCode, currentTimeStep);
+        if (matchedStep < 0) {
+            return false;
+        }
+        return markUsed(userId, matchedStep);
     }
 
-    private int generateCode(String secret, long timeStep) {
+    /**
+     * The time step within currentTimeStep ± 1 whose code matches, or -1.
+     * All three are computed with one keyed Mac so timing does not reveal which step matched.
+     */
+    private long matchingTimeStep(byte[] key, int providedCode, long currentTimeStep) {
+        Mac mac = MAC.get();
         try {
-            byte[] key = Base64.getDecoder().decode(secret);
-            byte[] data = new byte[8];
-            
-            for (int i = 7; i >= 0; i--) {
-                data[i] = (byte) (timeStep & 0xff);
-                timeStep >>= 8;
-            }
-
-            Mac mac = Mac.getInstance(ALGORITHM);
             mac.init(new SecretKeySpec(key, ALGORITHM));
-            byte[] hash = mac.doFinal(data);
+        } catch (InvalidKeyException e) {
+            throw new IllegalStateException("Invalid TOTP secret", e);
+        }
 
-            int offset = hash[hash.length - 1] & 0xf;
-            int binary = ((hash[offset] & 0x7f) << 24)
-                    | ((hash[offset + 1] & 0xff) << 16)
-                    | ((hash[offset + 2] & 0xff) << 8)
-                    | (hash[offset + 3] & 0xff);
+        byte[] data = new byte[8];
+        long matched = -1;
+        for (long step = currentTimeStep - 1; step <= currentTimeStep + 1; step++) {
+            if (generateCode(mac, data, step) == providedCode) {
+                matched = step;
+            }
+        }
+        return matched;
+    }
 
-            return binary % (int) Math.pow(10, CODE_DIGITS);
-        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
-            throw new RuntimeException("Error generating TOTP code", e);
+    // Accept a step only if it is later than the last one this user spent
+    private boolean markUsed(Long userId, long timeStep) {
+        boolean[] accepted = {false};
+        usedTimeSteps.asMap().compute(userId, (id, lastUsed) -> {
+            if (lastUsed != null && lastUsed >= timeStep) {
+                return lastUsed;
+            }
+            accepted[0] = true;
+            return timeStep;
+        });
+        return accepted[0];
+    }
+
+    private static int generateCode(Mac mac, byte[] data, long timeStep) {
+        for (int i = 7; i >= 0; i--) {
+            data[i] = (byte) (timeStep & 0xff);
+            timeStep >>= 8;
         }
+
+        byte[] hash = mac.doFinal(data);
+
+        int offset = hash[hash.length - 1] & 0xf;
+        int binary = ((hash[offset] & 0x7f) << 24)
+                | ((hash[offset + 1] & 0xff) << 16)
+                | ((hash[offset + 2] & 0xff) << 8)
+                | (hash[offset + 3] & 0xff);
+
+        return binary % CODE_MODULUS;
     }
 
     /**
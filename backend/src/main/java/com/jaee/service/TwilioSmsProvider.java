@@ -0,0 +1,116 @@
+package com.jaee.service;
+
+import com.twilio.Twilio;
+import com.twilio.exception.ApiException;
+import com.twilio.rest.api.v2010.account.Message;
+import com.twilio.type.PhoneNumber;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+
+@Component
+@ConditionalOnProperty(name = "app.sms.provider", havingValue = "twilio", matchIfMissing = true)
+@Slf4j
+public class TwilioSmsProvider implements SmsProvider {
+
+    @Value("${app.sms.twilio.account-sid:}")
+    private String accountSid;
+
+    @Value("${app.sms.twilio.auth-token:}")
+    private String authToken;
+
+    @Value("${app.sms.twilio.phone-number:}")
+    private String twilioPhoneNumber;
+
+    /** Alternative API host (e.g. the local stand-in); the SDK client always talks to api.twilio.com */
+    @Value("${app.sms.twilio.api-base-url:}")
+    private String apiBaseUrl;
+
+    private boolean twilioInitialized = false;
+    private HttpClient httpClient;
+
+    @PostConstruct
+    public void init() {
+        if (!apiBaseUrl.isBlank()) {
+            httpClient = HttpClient.newBuilder()
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            log.info("Twilio SMS provider using API at {}", apiBaseUrl);
+        } else if (!accountSid.isBlank() && !authToken.isBlank()) {
+            try {
+                Twilio.init(accountSid, authToken);
+                twilioInitialized = true;
+                log.info("Twilio SMS service initialized");
+            } catch (Exception e) {
+                log.warn("Failed to initialize Twilio: {}. SMS will be logged to console.", e.getMessage());
+            }
+        } else {
+            log.info("Twilio credentials not configured. OTPs will be logged to console.");
+        }
+    }
+
+    @Override
+    public String name() {
+        return "twilio";
+    }
+
+    @Override
+    public boolean isDeliverable() {
+        return twilioInitialized || httpClient != null;
+    }
+
+    @Override
+    public void send(String to, String body) {
+        if (httpClient != null) {
+            post(to, body);
+            return;
+        }
+        Message message = Message.creator(
+                new PhoneNumber(to),
+                new PhoneNumber(twilioPhoneNumber),
+                body
+        ).create();
+        log.debug("Twilio accepted message {}", message.getSid());
+    }
+
+    /**
+     * Same request the SDK makes, sent to {@code app.sms.twilio.api-base-url}
+     */
+    private void post(String to, String body) {
+        String credentials = Base64.getEncoder().encodeToString(
+                (accountSid + ":" + authToken).getBytes(StandardCharsets.UTF_8));
+        String form = "To=" + URLEncoder.encode(to, StandardCharsets.UTF_8)
+                + "&From=" + URLEncoder.encode(twilioPhoneNumber, StandardCharsets.UTF_8)
+                + "&Body=" + URLEncoder.encode(body, StandardCharsets.UTF_8);
+        HttpRequest request = HttpRequest.newBuilder(
+                        URI.create(apiBaseUrl + "/2010-04-01/Accounts/" + accountSid + "/Messages.json"))
+                .timeout(Duration.ofSeconds(10))
+                .header("Authorization", "Basic " + credentials)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() >= 300) {
+                throw new ApiException("HTTP " + response.statusCode() + ": " + response.body());
+            }
+        } catch (IOException e) {
+            throw new ApiException(e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException("Interrupted", e);
+        }
+    }
+}
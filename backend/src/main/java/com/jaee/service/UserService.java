@@ -5,12 +5,17 @@ import com.jaee.dto.user.*;
 import com.jaee.entity.User;
 import com.jaee.exception.BadRequestException;
 import com.jaee.exception.UnauthorizedException;
+import com.jaee.repository.RefreshTokenRepository;
 import com.jaee.repository.UserRepository;
+import com.jaee.security.TokenRevocations;
+import com.jaee.security.UserCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 
@@ -23,17 +28,21 @@ public class UserService {
     private final PasswordEncoder passwordEncoder;
     private final TotpService totpService;
     private final OtpService otpService;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TokenRevocations tokenRevocations;
+    private final UserCache userCache;
 
     /**
      * Update user profile (name only - email/mobile require verification)
      */
     @Transactional
-    public AuthResponse.UserDto updateProfile(User user, UpdateProfileRequest request) {
+    public AuthResponse.UserDto updateProfile(Long userId, UpdateProfileRequest request) {
+        User user = load(userId);
         if (request.getName() != null && !request.getName().isBlank()) {
             user.setName(request.getName().trim());
         }
 
-        userRepository.save(user);
+        save(user);
         log.info("Profile updated for user: {}", user.getId());
 
         return toUserDto(user);
@@ -43,7 +52,8 @@ public class UserService {
      * Change user password
      */
     @Transactional
-    public void changePassword(User user, ChangePasswordRequest request) {
+    public void changePassword(Long userId, ChangePasswordRequest request) {
+        User user = load(userId);
         // Verify current password
         if (!passwordEncoder.matches(request.getCurrentPassword(), user.getPasswordHash())) {
             throw new UnauthorizedException("Current password is incorrect");
@@ -56,7 +66,12 @@ public class UserService {
 
         user.setPasswordHash(passwordEncoder.encode(request.getNewPassword()));
         user.setPasswordChangedAt(LocalDateTime.now());
-        userRepository.save(user);
+        save(user);
+
+        // Sign out every session: no refresh token survives, and earlier access tokens are rejected here
+        refreshTokenRepository.deleteByUser(user);
+        userRepository.incrementTokenVersion(user.getId());
+        tokenRevocations.revokeBefore(user.getId(), userRepository.findTokenVersion(user.getId()));
 
         log.info("Password changed for user: {}", user.getId());
     }
@@ -83,7 +98,8 @@ public class UserService {
      * Verify OTP and update mobile number
      */
     @Transactional
-    public AuthResponse.UserDto verifyAndChangeMobile(User user, VerifyMobileChangeRequest request) {
+    public AuthResponse.UserDto verifyAndChangeMobile(Long userId, VerifyMobileChangeRequest request) {
+        User user = load(userId);
         String newMobile = request.getNewMobileNumber();
 
         // Verify OTP
@@ -101,7 +117,7 @@ public class UserService {
 
         user.setMobileNumber(newMobile);
         user.setMobileVerified(true);
-        userRepository.save(user);
+        save(user);
 
         log.info("Mobile number changed for user: {} to: {}", user.getId(), newMobile);
 
@@ -111,7 +127,9 @@ public class UserService {
     /**
      * Setup 2FA - generate secret and return QR code
      */
-    public TwoFactorSetupResponse setup2FA(User user) {
+    @Transactional
+    public TwoFactorSetupResponse setup2FA(Long userId) {
+        User user = load(userId);
         if (Boolean.TRUE.equals(user.getTwoFactorEnabled())) {
             throw new BadRequestException("Two-factor authentication is already enabled");
         }
@@ -123,7 +141,7 @@ public class UserService {
 
         // Store secret temporarily (not enabled yet)
         user.setTotpSecret(secret);
-        userRepository.save(user);
+        save(user);
 
         return TwoFactorSetupResponse.builder()
                 .secret(secret)
@@ -136,17 +154,18 @@ public class UserService {
      * Enable 2FA after verifying the code
      */
     @Transactional
-    public void enable2FA(User user, TwoFactorVerifyRequest request) {
+    public void enable2FA(Long userId, TwoFactorVerifyRequest request) {
+        User user = load(userId);
         if (user.getTotpSecret() == null) {
             throw new BadRequestException("Please setup 2FA first");
         }
 
-        if (!totpService.verifyCode(user.getTotpSecret(), request.getCode())) {
+        if (!totpService.verifyCode(user.getId(), user.getTotpSecret(), request.getCode())) {
             throw new UnauthorizedException("Invalid verification code");
         }
 
         user.setTwoFactorEnabled(true);
-        userRepository.save(user);
+        save(user);
 
         log.info("2FA enabled for user: {}", user.getId());
     }
@@ -155,18 +174,19 @@ public class UserService {
      * Disable 2FA
      */
     @Transactional
-    public void disable2FA(User user, TwoFactorVerifyRequest request) {
+    public void disable2FA(Long userId, TwoFactorVerifyRequest request) {
+        User user = load(userId);
         if (!Boolean.TRUE.equals(user.getTwoFactorEnabled())) {
             throw new BadRequestException("Two-factor authentication is not enabled");
         }
 
-        if (!totpService.verifyCode(user.getTotpSecret(), request.getCode())) {
+        if (!totpService.verifyCode(user.getId(), user.getTotpSecret(), request.getCode())) {
             throw new UnauthorizedException("Invalid verification code");
         }
 
         user.setTwoFactorEnabled(false);
         user.setTotpSecret(null);
-        userRepository.save(user);
+        save(user);
 
         log.info("2FA disabled for user: {}", user.getId());
     }
@@ -178,7 +198,7 @@ public class UserService {
         if (!Boolean.TRUE.equals(user.getTwoFactorEnabled()) || user.getTotpSecret() == null) {
             return true; // 2FA not enabled, always pass
         }
-        return totpService.verifyCode(user.getTotpSecret(), code);
+        return totpService.verifyCode(user.getId(), user.getTotpSecret(), code);
     }
 
     /**
@@ -188,6 +208,27 @@ public class UserService {
         return toUserDto(user);
     }
 
+    /**
+     * The managed row, never the cached snapshot: changes are made to what the
+     * database holds now, so a stale copy cannot write old columns back
+     */
+    private User load(Long userId) {
+        return userRepository.findById(userId)
+                .orElseThrow(() -> new UnauthorizedException("User no longer exists"));
+    }
+
+    /** Save, and drop the cached snapshot once the change is committed */
+    private void save(User user) {
+        userRepository.save(user);
+        Long userId = user.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                userCache.evict(userId);
+            }
+        });
+    }
+
     private AuthResponse.UserDto toUserDto(User user) {
         return AuthResponse.UserDto.builder()
                 .id(user.getId())
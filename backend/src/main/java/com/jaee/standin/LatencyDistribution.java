@@ -0,0 +1,44 @@
+package com.jaee.standin;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Latency shapes for the local stand-in servers.
+ *
+ * Every distribution is described by a median and a p99 so the same two
+ * numbers can be compared across shapes. LOGNORMAL is the closest match to
+ * what real payment and messaging APIs look like: most calls near the
+ * median with a long right tail.
+ */
+public enum LatencyDistribution {
+    NONE,
+    FIXED,
+    UNIFORM,
+    EXPONENTIAL,
+    LOGNORMAL;
+
+    // z-score of the 99th percentile of a standard normal
+    private static final double Z_99 = 2.3263478740408408;
+
+    public long sampleMillis(long medianMs, long p99Ms) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long p99 = Math.max(p99Ms, medianMs);
+        return switch (this) {
+            case NONE -> 0;
+            case FIXED -> medianMs;
+            case UNIFORM -> medianMs <= 0 ? 0 : random.nextLong(0, 2 * medianMs + 1);
+            case EXPONENTIAL -> {
+                double mean = medianMs / Math.log(2);
+                yield Math.min(p99 * 4, Math.round(-mean * Math.log(1 - random.nextDouble())));
+            }
+            case LOGNORMAL -> {
+                if (medianMs <= 0) {
+                    yield 0;
+                }
+                double mu = Math.log(medianMs);
+                double sigma = Math.log((double) p99 / medianMs) / Z_99;
+                yield Math.min(p99 * 4, Math.round(Math.exp(mu + sigma * random.nextGaussian())));
+            }
+        };
+    }
+}
@@ -0,0 +1,363 @@
+package com.jaee.standin;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedded HTTP stand-in for the Razorpay orders API and webhook sender.
+ *
+ * Speaks the same wire format as api.razorpay.com for the calls we make
+ * ({@code POST /v1/orders}, {@code GET /v1/orders/{id}}) with configurable
+ * latency and error injection, and signs checkout callbacks and webhooks with
+ * the real key and webhook secrets so {@code Utils.verifyPaymentSignature}
+ * and the webhook path run unmodified.
+ *
+ * Stand-in only endpoints:
+ * <ul>
+ *   <li>{@code POST /v1/standin/orders/{id}/pay} - complete checkout for an order, returning the
+ *       signed callback fields and scheduling webhooks. Body {@code {"fail": true}} sends
+ *       {@code payment.failed} instead.</li>
+ *   <li>{@code GET /v1/standin/stats} - request, error and webhook counters.</li>
+ * </ul>
+ */
+@Slf4j
+public class RazorpayStandInServer {
+
+    @Getter
+    @Builder
+    public static class Settings {
+        @Builder.Default
+        private final int port = 8089;
+        private final String keyId;
+        private final String keySecret;
+        private final String webhookSecret;
+        /** Where to deliver webhooks; null disables webhook delivery */
+        private final String webhookUrl;
+
+        @Builder.Default
+        private final LatencyDistribution latency = LatencyDistribution.LOGNORMAL;
+        @Builder.Default
+        private final long latencyMedianMs = 150;
+        @Builder.Default
+        private final long latencyP99Ms = 1200;
+        /** Fraction of API calls answered with a 5xx */
+        @Builder.Default
+        private final double errorRate = 0.0;
+
+        @Builder.Default
+        private final long webhookDelayMedianMs = 300;
+        @Builder.Default
+        private final long webhookDelayP99Ms = 3000;
+        /** Fraction of webhook events delivered twice */
+        @Builder.Default
+        private final double webhookDuplicateRate = 0.1;
+        /** Fraction of payments whose webhook events are delivered in shuffled order */
+        @Builder.Default
+        private final double webhookReorderRate = 0.2;
+    }
+
+    private static final String ID_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+
+    private final Settings settings;
+    private final String expectedAuthorization;
+    private final Map<String, JSONObject> orders = new ConcurrentHashMap<>();
+
+    private final AtomicLong apiRequests = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private final AtomicLong webhooksSent = new AtomicLong();
+    private final AtomicLong webhooksFailed = new AtomicLong();
+
+    private HttpServer server;
+    private ExecutorService workers;
+    private ScheduledExecutorService webhookScheduler;
+    private HttpClient webhookClient;
+
+    public RazorpayStandInServer(Settings settings) {
+        this.settings = settings;
+        this.expectedAuthorization = "Basic " + Base64.getEncoder().encodeToString(
+                (settings.getKeyId() + ":" + settings.getKeySecret()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void start() throws IOException {
+        workers = Executors.newVirtualThreadPerTaskExecutor();
+        webhookScheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("razorpay-standin-webhooks").daemon().factory());
+        webhookClient = HttpClient.newBuilder()
+                .executor(workers)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        server = HttpServer.create(new InetSocketAddress("localhost", settings.getPort()), 0);
+        server.setExecutor(workers);
+        server.createContext("/v1/", this::handle);
+        server.start();
+        log.info("Razorpay stand-in listening on {} ({} latency, median {}ms, p99 {}ms, error rate {})",
+                getBaseUrl(), settings.getLatency(), settings.getLatencyMedianMs(),
+                settings.getLatencyP99Ms(), settings.getErrorRate());
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            webhookScheduler.shutdownNow();
+            workers.shutdownNow();
+            log.info("Razorpay stand-in stopped");
+        }
+    }
+
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            String[] path = exchange.getRequestURI().getPath().substring("/v1/".length()).split("/");
+
+            if (path[0].equals("standin")) {
+                handleStandIn(exchange, method, path);
+                return;
+            }
+
+            apiRequests.incrementAndGet();
+            if (!expectedAuthorization.equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+                respond(exchange, 401, error("BAD_REQUEST_ERROR", "Authentication failed"));
+                return;
+            }
+
+            sleep(settings.getLatency().sampleMillis(settings.getLatencyMedianMs(), settings.getLatencyP99Ms()));
+            if (ThreadLocalRandom.current().nextDouble() < settings.getErrorRate()) {
+                injectedErrors.incrementAndGet();
+                respond(exchange, 502, error("SERVER_ERROR", "Injected stand-in failure"));
+                return;
+            }
+
+            if (path[0].equals("orders") && path.length == 1 && method.equals("POST")) {
+                respond(exchange, 200, createOrder(new JSONObject(readBody(exchange))));
+            } else if (path[0].equals("orders") && path.length == 2 && method.equals("GET")) {
+                JSONObject order = orders.get(path[1]);
+                respond(exchange, order != null ? 200 : 400,
+                        order != null ? order : error("BAD_REQUEST_ERROR", "The id provided does not exist"));
+            } else {
+                respond(exchange, 404, error("BAD_REQUEST_ERROR", "The requested URL was not found on the server."));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Razorpay stand-in failed to handle {}: {}", exchange.getRequestURI(), e.getMessage());
+        }
+    }
+
+    private void handleStandIn(HttpExchange exchange, String method, String[] path) throws IOException {
+        if (path.length == 2 && path[1].equals("stats") && method.equals("GET")) {
+            respond(exchange, 200, new JSONObject()
+                    .put("orders", orders.size())
+                    .put("apiRequests", apiRequests.get())
+                    .put("injectedErrors", injectedErrors.get())
+                    .put("webhooksSent", webhooksSent.get())
+                    .put("webhooksFailed", webhooksFailed.get()));
+        } else if (path.length == 4 && path[1].equals("orders") && path[3].equals("pay") && method.equals("POST")) {
+            JSONObject order = orders.get(path[2]);
+            if (order == null) {
+                respond(exchange, 400, error("BAD_REQUEST_ERROR", "The id provided does not exist"));
+                return;
+            }
+            String body = readBody(exchange);
+            boolean fail = !body.isBlank() && new JSONObject(body).optBoolean("fail", false);
+            respond(exchange, 200, pay(order, fail));
+        } else {
+            respond(exchange, 404, error("BAD_REQUEST_ERROR", "Unknown stand-in endpoint"));
+        }
+    }
+
+    private JSONObject createOrder(JSONObject request) {
+        long amount = request.getLong("amount");
+        JSONObject order = new JSONObject()
+                .put("id", "order_" + randomId())
+                .put("entity", "order")
+                .put("amount", amount)
+                .put("amount_paid", 0)
+                .put("amount_due", amount)
+                .put("currency", request.optString("currency", "INR"))
+                .put("receipt", request.optString("receipt", null))
+                .put("offer_id", JSONObject.NULL)
+                .put("status", "created")
+                .put("attempts", 0)
+                .put("notes", request.optJSONObject("notes") != null ? request.getJSONObject("notes") : new JSONArray())
+                .put("created_at", Instant.now().getEpochSecond());
+        orders.put(order.getString("id"), order);
+        return order;
+    }
+
+    private JSONObject pay(JSONObject order, boolean fail) {
+        String orderId = order.getString("id");
+        String paymentId = "pay_" + randomId();
+        JSONObject payment = new JSONObject()
+                .put("id", paymentId)
+                .put("entity", "payment")
+                .put("amount", order.getLong("amount"))
+                .put("currency", order.getString("currency"))
+                .put("order_id", orderId)
+                .put("method", "upi")
+                .put("notes", order.get("notes"))
+                .put("created_at", Instant.now().getEpochSecond());
+
+        List<String> events = new ArrayList<>();
+        if (fail) {
+            payment.put("status", "failed")
+                    .put("error", new JSONObject().put("description", "Payment failed at stand-in"));
+            events.add("payment.failed");
+        } else {
+            payment.put("status", "captured").put("captured", true);
+            order.put("status", "paid").put("amount_paid", order.getLong("amount")).put("amount_due", 0);
+            events.add("payment.authorized");
+            events.add("payment.captured");
+            events.add("order.paid");
+        }
+        order.put("attempts", order.getInt("attempts") + 1);
+        scheduleWebhooks(events, payment, order);
+
+        JSONObject callback = new JSONObject()
+                .put("razorpay_order_id", orderId)
+                .put("razorpay_payment_id", paymentId);
+        if (!fail) {
+            callback.put("razorpay_signature", hmacSha256Hex(orderId + "|" + paymentId, settings.getKeySecret()));
+        }
+        return callback;
+    }
+
+    private void scheduleWebhooks(List<String> events, JSONObject payment, JSONObject order) {
+        if (settings.getWebhookUrl() == null) {
+            return;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < settings.getWebhookReorderRate()) {
+            Collections.shuffle(events);
+        }
+
+        long delay = 0;
+        for (String event : events) {
+            String payload = new JSONObject()
+                    .put("entity", "event")
+                    .put("event", event)
+                    .put("contains", new JSONArray().put("payment").put("order"))
+                    .put("payload", new JSONObject()
+                            .put("payment", new JSONObject().put("entity", payment))
+                            .put("order", new JSONObject().put("entity", order)))
+                    .put("created_at", Instant.now().getEpochSecond())
+                    .toString();
+
+            delay += sampleWebhookDelay();
+            webhookScheduler.schedule(() -> deliverWebhook(payload), delay, TimeUnit.MILLISECONDS);
+            if (random.nextDouble() < settings.getWebhookDuplicateRate()) {
+                webhookScheduler.schedule(() -> deliverWebhook(payload), delay + sampleWebhookDelay(),
+                        TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void deliverWebhook(String payload) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(settings.getWebhookUrl()))
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .header("X-Razorpay-Signature", hmacSha256Hex(payload, settings.getWebhookSecret()))
+                .POST(HttpRequest.BodyPublishers.ofString(payload))
+                .build();
+        webhookClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    if (error == null && response.statusCode() < 300) {
+                        webhooksSent.incrementAndGet();
+                    } else {
+                        webhooksFailed.incrementAndGet();
+                        log.debug("Stand-in webhook delivery failed: {}",
+                                error != null ? error.getMessage() : "HTTP " + response.statusCode());
+                    }
+                });
+    }
+
+    private long sampleWebhookDelay() {
+        return settings.getLatency().sampleMillis(settings.getWebhookDelayMedianMs(), settings.getWebhookDelayP99Ms());
+    }
+
+    static String hmacSha256Hex(String data, String secret) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return HexFormat.of().formatHex(mac.doFinal(data.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    private static JSONObject error(String code, String description) {
+        return new JSONObject().put("error", new JSONObject()
+                .put("code", code)
+                .put("description", description));
+    }
+
+    private static String randomId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder id = new StringBuilder(14);
+        for (int i = 0; i < 14; i++) {
+            id.append(ID_ALPHABET.charAt(random.nextInt(ID_ALPHABET.length())));
+        }
+        return id.toString();
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, JSONObject body) throws IOException {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
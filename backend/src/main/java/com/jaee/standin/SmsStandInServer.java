@@ -0,0 +1,186 @@
+package com.jaee.standin;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedded HTTP stand-in for Twilio's Messages API.
+ *
+ * Accepts {@code POST /2010-04-01/Accounts/{sid}/Messages.json} with the
+ * form fields Twilio takes ({@code To}, {@code From}, {@code Body}) and
+ * answers with a queued message resource, after configurable latency; a
+ * configurable fraction gets a 503 instead. {@code GET /standin/stats}
+ * returns the counters.
+ */
+@Slf4j
+public class SmsStandInServer {
+
+    @Getter
+    @Builder
+    public static class Settings {
+        @Builder.Default
+        private final int port = 8090;
+
+        @Builder.Default
+        private final LatencyDistribution latency = LatencyDistribution.LOGNORMAL;
+        @Builder.Default
+        private final long latencyMedianMs = 200;
+        @Builder.Default
+        private final long latencyP99Ms = 1500;
+        /** Fraction of sends answered with a 503 */
+        @Builder.Default
+        private final double errorRate = 0.0;
+    }
+
+    private final Settings settings;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong messagesAccepted = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+
+    private HttpServer server;
+    private ExecutorService workers;
+
+    public SmsStandInServer(Settings settings) {
+        this.settings = settings;
+    }
+
+    public void start() throws IOException {
+        workers = Executors.newVirtualThreadPerTaskExecutor();
+        server = HttpServer.create(new InetSocketAddress("localhost", settings.getPort()), 0);
+        server.setExecutor(workers);
+        server.createContext("/2010-04-01/", this::handleSend);
+        server.createContext("/standin/stats", this::handleStats);
+        server.start();
+        log.info("SMS stand-in listening on {} ({} latency, median {}ms, p99 {}ms, error rate {})",
+                getBaseUrl(), settings.getLatency(), settings.getLatencyMedianMs(),
+                settings.getLatencyP99Ms(), settings.getErrorRate());
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            workers.shutdownNow();
+            log.info("SMS stand-in stopped");
+        }
+    }
+
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public long getMessagesAccepted() {
+        return messagesAccepted.get();
+    }
+
+    public long getInjectedErrors() {
+        return injectedErrors.get();
+    }
+
+    private void handleSend(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            if (!exchange.getRequestMethod().equals("POST")
+                    || !exchange.getRequestURI().getPath().endsWith("/Messages.json")) {
+                respond(exchange, 404, error(20404, "The requested resource was not found"));
+                return;
+            }
+            Map<String, String> form = parseForm(readBody(exchange));
+            if (form.get("To") == null || form.get("Body") == null) {
+                respond(exchange, 400, error(21604, "A 'To' phone number and 'Body' are required"));
+                return;
+            }
+
+            sleep(settings.getLatency().sampleMillis(settings.getLatencyMedianMs(), settings.getLatencyP99Ms()));
+            if (ThreadLocalRandom.current().nextDouble() < settings.getErrorRate()) {
+                injectedErrors.incrementAndGet();
+                respond(exchange, 503, error(20503, "Injected stand-in failure"));
+                return;
+            }
+
+            messagesAccepted.incrementAndGet();
+            respond(exchange, 201, new JSONObject()
+                    .put("sid", "SM" + UUID.randomUUID().toString().replace("-", ""))
+                    .put("to", form.get("To"))
+                    .put("from", form.getOrDefault("From", ""))
+                    .put("body", form.get("Body"))
+                    .put("status", "queued")
+                    .put("date_created", Instant.now().toString()));
+        } catch (RuntimeException e) {
+            log.warn("SMS stand-in failed to handle {}: {}", exchange.getRequestURI(), e.getMessage());
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            respond(exchange, 200, new JSONObject()
+                    .put("requests", requests.get())
+                    .put("messagesAccepted", messagesAccepted.get())
+                    .put("injectedErrors", injectedErrors.get()));
+        }
+    }
+
+    private static Map<String, String> parseForm(String body) {
+        Map<String, String> form = new HashMap<>();
+        for (String pair : body.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                form.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return form;
+    }
+
+    private static JSONObject error(int code, String message) {
+        return new JSONObject()
+                .put("code", code)
+                .put("message", message)
+                .put("status", code % 1000);
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, JSONObject body) throws IOException {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.jaee.standin;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedded SMTP sink standing in for SendGrid's relay.
+ *
+ * Speaks enough of RFC 5321 for JavaMail ({@code EHLO}, {@code MAIL},
+ * {@code RCPT}, {@code DATA}, {@code RSET}, {@code NOOP}, {@code QUIT}) and
+ * throws the messages away. Latency is added when a message is accepted,
+ * where a real relay spends its time, and a configurable fraction is
+ * answered with a 451 so the sender's retry path runs. No AUTH or STARTTLS
+ * is advertised, so JavaMail skips both; their cost can be modelled with a
+ * delay before the greeting.
+ */
+@Slf4j
+public class SmtpStandInServer {
+
+    @Getter
+    @Builder
+    public static class Settings {
+        @Builder.Default
+        private final int port = 2525;
+        /** Delay before the greeting, standing in for the TLS handshake and AUTH of a remote relay */
+        @Builder.Default
+        private final long connectLatencyMs = 0;
+
+        @Builder.Default
+        private final LatencyDistribution latency = LatencyDistribution.LOGNORMAL;
+        @Builder.Default
+        private final long latencyMedianMs = 80;
+        @Builder.Default
+        private final long latencyP99Ms = 800;
+        /** Fraction of messages refused with a 451 */
+        @Builder.Default
+        private final double errorRate = 0.0;
+    }
+
+    private final Settings settings;
+
+    private final AtomicLong connections = new AtomicLong();
+    private final AtomicLong messagesAccepted = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+
+    private ServerSocket serverSocket;
+    private ExecutorService workers;
+
+    public SmtpStandInServer(Settings settings) {
+        this.settings = settings;
+    }
+
+    public void start() throws IOException {
+        workers = Executors.newVirtualThreadPerTaskExecutor();
+        serverSocket = new ServerSocket(settings.getPort(), 128, InetAddress.getLoopbackAddress());
+        Thread.ofPlatform().name("smtp-standin-accept").daemon().start(this::acceptLoop);
+        log.info("SMTP stand-in listening on localhost:{} ({} latency, median {}ms, p99 {}ms, error rate {})",
+                getPort(), settings.getLatency(), settings.getLatencyMedianMs(),
+                settings.getLatencyP99Ms(), settings.getErrorRate());
+    }
+
+    public void stop() {
+        if (serverSocket != null) {
+            try {
+                serverSocket.close();
+            } catch (IOException e) {
+                log.debug("Closing SMTP stand-in socket: {}", e.getMessage());
+            }
+            workers.shutdownNow();
+            log.info("SMTP stand-in stopped");
+        }
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public long getConnections() {
+        return connections.get();
+    }
+
+    public long getMessagesAccepted() {
+        return messagesAccepted.get();
+    }
+
+    public long getInjectedErrors() {
+        return injectedErrors.get();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                workers.execute(() -> session(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    log.warn("SMTP stand-in accept failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void session(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             OutputStream out = socket.getOutputStream()) {
+            sleep(settings.getConnectLatencyMs());
+            reply(out, "220 localhost ESMTP stand-in");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String verb = (line.length() >= 4 ? line.substring(0, 4) : line).toUpperCase();
+                switch (verb) {
+                    case "EHLO" -> reply(out, "250-localhost\r\n250-8BITMIME\r\n250 SIZE 10485760");
+                    case "HELO" -> reply(out, "250 localhost");
+                    case "MAIL", "RCPT", "RSET", "NOOP" -> reply(out, "250 OK");
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        if (!skipMessage(in)) {
+                            return;
+                        }
+                        accept(out);
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (SocketException e) {
+            // Client went away mid-session
+        } catch (IOException e) {
+            log.debug("SMTP stand-in session failed: {}", e.getMessage());
+        }
+    }
+
+    private void accept(OutputStream out) throws IOException {
+        sleep(settings.getLatency().sampleMillis(settings.getLatencyMedianMs(), settings.getLatencyP99Ms()));
+        if (ThreadLocalRandom.current().nextDouble() < settings.getErrorRate()) {
+            injectedErrors.incrementAndGet();
+            reply(out, "451 Injected stand-in failure");
+            return;
+        }
+        messagesAccepted.incrementAndGet();
+        reply(out, "250 OK queued");
+    }
+
+    /** Read up to the lone "." that ends DATA; false if the connection closed first */
+    private static boolean skipMessage(BufferedReader in) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.equals(".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void reply(OutputStream out, String response) throws IOException {
+        out.write((response + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,3 @@
+-- Partial index for the stale PENDING order expiry job; stays small because
+-- rows leave it as soon as an order is paid or cancelled
+CREATE INDEX IF NOT EXISTS idx_order_pending_created ON orders(created_at) WHERE status = 'PENDING';
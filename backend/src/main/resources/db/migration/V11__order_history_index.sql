@@ -0,0 +1,5 @@
+-- Keyset pagination of a user's order history: ORDER BY created_at DESC, id DESC
+-- is read straight off this index, and it covers lookups by user_id, so the
+-- single-column index is no longer needed
+CREATE INDEX IF NOT EXISTS idx_order_user_created ON orders(user_id, created_at DESC, id DESC);
+DROP INDEX IF EXISTS idx_order_user;
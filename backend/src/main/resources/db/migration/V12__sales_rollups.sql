@@ -0,0 +1,24 @@
+-- Sales rollups for the admin dashboard, maintained as orders are paid
+-- and rebuilt on demand from orders/order_items. Amounts are in paise.
+CREATE TABLE daily_sales_rollup (
+    sales_date DATE PRIMARY KEY,
+    paid_orders BIGINT NOT NULL DEFAULT 0,
+    units BIGINT NOT NULL DEFAULT 0,
+    revenue_minor BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- No FK to products: the rollup outlives a deleted product, like order_items' snapshots
+CREATE TABLE product_sales_rollup (
+    product_id BIGINT PRIMARY KEY,
+    product_name VARCHAR(200) NOT NULL,
+    paid_orders BIGINT NOT NULL DEFAULT 0,
+    units BIGINT NOT NULL DEFAULT 0,
+    revenue_minor BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_product_sales_revenue ON product_sales_rollup(revenue_minor DESC);
+
+-- Lets the rebuild read one date-range chunk of paid orders at a time
+CREATE INDEX IF NOT EXISTS idx_order_paid_at ON orders(paid_at) WHERE paid_at IS NOT NULL;
@@ -0,0 +1,79 @@
+-- Monthly range partitioning of orders by created_at.
+--
+-- Postgres requires the partition key in every unique constraint, so the
+-- primary key becomes (id, created_at); ids still come from the same
+-- sequence and stay unique. A foreign key can only target a unique
+-- constraint on the whole key, so order_items loses its FK to orders and
+-- OrderPartitionJob removes the items itself when it archives a month.
+-- Partitions are named orders_pYYYY_MM; the job keeps a few months ahead
+-- created, and orders_default catches anything outside them.
+
+ALTER TABLE order_items DROP CONSTRAINT IF EXISTS order_items_order_id_fkey;
+
+ALTER TABLE orders RENAME TO orders_legacy;
+
+CREATE TABLE orders (
+    id BIGINT NOT NULL DEFAULT nextval('orders_id_seq'),
+    user_id BIGINT NOT NULL REFERENCES users(id),
+    status VARCHAR(20) DEFAULT 'PENDING',
+    razorpay_order_id VARCHAR(255),
+    razorpay_payment_id VARCHAR(255),
+    total_amount DECIMAL(10, 2) NOT NULL,
+    currency VARCHAR(3) DEFAULT 'INR',
+    shipping_address TEXT,
+    customer_email VARCHAR(255),
+    customer_phone VARCHAR(20),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    paid_at TIMESTAMP
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE orders_default PARTITION OF orders DEFAULT;
+
+DO $$
+DECLARE
+    month_start DATE;
+    last_month DATE := (date_trunc('month', now()) + interval '3 months')::date;
+BEGIN
+    SELECT COALESCE(date_trunc('month', MIN(created_at)), date_trunc('month', now()))::date
+      INTO month_start
+      FROM orders_legacy;
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF orders FOR VALUES FROM (%L) TO (%L)',
+                       'orders_p' || to_char(month_start, 'YYYY_MM'),
+                       month_start,
+                       (month_start + interval '1 month')::date);
+        month_start := (month_start + interval '1 month')::date;
+    END LOOP;
+END $$;
+
+INSERT INTO orders (id, user_id, status, razorpay_order_id, razorpay_payment_id, total_amount, currency,
+                    shipping_address, customer_email, customer_phone, created_at, paid_at)
+SELECT id, user_id, status, razorpay_order_id, razorpay_payment_id, total_amount, currency,
+       shipping_address, customer_email, customer_phone, COALESCE(created_at, CURRENT_TIMESTAMP), paid_at
+FROM orders_legacy;
+
+-- Keep the id sequence when the old table goes
+ALTER SEQUENCE orders_id_seq OWNED BY orders.id;
+DROP TABLE orders_legacy;
+
+-- Same indexes as before, now created per partition
+ALTER TABLE orders ADD PRIMARY KEY (id, created_at);
+CREATE INDEX idx_order_user_created ON orders(user_id, created_at DESC, id DESC);
+CREATE INDEX idx_order_status ON orders(status);
+CREATE INDEX idx_order_razorpay_order ON orders(razorpay_order_id);
+CREATE INDEX idx_order_pending_created ON orders(created_at) WHERE status = 'PENDING';
+CREATE INDEX idx_order_paid_at ON orders(paid_at) WHERE paid_at IS NOT NULL;
+
+-- Cold tier: one row per archived order, with its items folded into a JSONB
+-- document. Documents over ~2 kB are compressed by TOAST.
+CREATE TABLE orders_archive (
+    order_id BIGINT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    status VARCHAR(20),
+    total_amount DECIMAL(10, 2) NOT NULL,
+    document JSONB NOT NULL,
+    archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_orders_archive_user ON orders_archive(user_id, created_at DESC);
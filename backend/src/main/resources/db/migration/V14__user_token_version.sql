@@ -0,0 +1,3 @@
+-- Access tokens carry the version they were issued at; bumping it
+-- (password change) marks every earlier access token as revoked
+ALTER TABLE users ADD COLUMN IF NOT EXISTS token_version INTEGER NOT NULL DEFAULT 0;
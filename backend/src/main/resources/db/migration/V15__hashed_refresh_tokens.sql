@@ -0,0 +1,18 @@
+-- Refresh tokens are stored as SHA-256 digests and rotated in place, so
+-- the table holds one row per live session instead of a revoked row per
+-- rotation. Existing tokens keep working: their digest is computed here
+-- exactly as the application computes it.
+ALTER TABLE refresh_tokens ADD COLUMN token_hash BYTEA;
+UPDATE refresh_tokens SET token_hash = sha256(convert_to(token, 'UTF8'));
+
+DELETE FROM refresh_tokens WHERE revoked OR expires_at < now();
+
+ALTER TABLE refresh_tokens ALTER COLUMN token_hash SET NOT NULL;
+ALTER TABLE refresh_tokens ADD CONSTRAINT uk_refresh_token_hash UNIQUE (token_hash);
+
+-- Drops the raw-token unique constraint and idx_refresh_token with it
+ALTER TABLE refresh_tokens DROP COLUMN token;
+ALTER TABLE refresh_tokens DROP COLUMN revoked;
+
+-- Password changes delete a user's sessions by user_id
+CREATE INDEX IF NOT EXISTS idx_refresh_token_user ON refresh_tokens(user_id);
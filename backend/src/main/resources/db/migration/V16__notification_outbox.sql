@@ -0,0 +1,17 @@
+-- Emails and SMS to send, written in the same transaction as the change
+-- that triggers them and delivered by NotificationDispatcher. Rows are
+-- deleted once sent; FAILED rows stay for inspection.
+CREATE TABLE notification_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    type VARCHAR(40) NOT NULL,
+    recipient VARCHAR(255) NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error VARCHAR(500),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- The dispatcher's claim query: due PENDING rows, oldest first
+CREATE INDEX idx_outbox_due ON notification_outbox(next_attempt_at) WHERE status = 'PENDING';
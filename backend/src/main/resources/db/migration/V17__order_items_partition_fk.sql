@@ -0,0 +1,24 @@
+-- Restore the order_items -> orders foreign key that V13 had to drop.
+-- orders' primary key is (id, created_at) since partitioning, so each item
+-- carries its order's created_at and the key covers both columns. Deleting
+-- an order deletes its items again, and no item can point at a missing order.
+
+ALTER TABLE order_items ADD COLUMN order_created_at TIMESTAMP;
+
+UPDATE order_items oi
+SET order_created_at = o.created_at
+FROM orders o
+WHERE o.id = oi.order_id;
+
+-- Items orphaned while there was no foreign key cannot be kept
+DELETE FROM order_items WHERE order_created_at IS NULL;
+
+ALTER TABLE order_items ALTER COLUMN order_created_at SET NOT NULL;
+
+-- Also serves the cascade and the joins from orders; order_id alone was a prefix of it
+CREATE INDEX idx_order_items_order_created ON order_items(order_id, order_created_at);
+DROP INDEX IF EXISTS idx_order_items_order;
+
+ALTER TABLE order_items
+    ADD CONSTRAINT order_items_order_fkey
+    FOREIGN KEY (order_id, order_created_at) REFERENCES orders(id, created_at) ON DELETE CASCADE;
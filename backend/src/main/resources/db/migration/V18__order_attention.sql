@@ -0,0 +1,5 @@
+-- Paid orders that need someone to look at them: a stock shortfall at
+-- finalization, or a payment captured after the order was cancelled
+ALTER TABLE orders ADD COLUMN attention VARCHAR(30);
+
+CREATE INDEX idx_orders_attention ON orders(attention) WHERE attention IS NOT NULL;
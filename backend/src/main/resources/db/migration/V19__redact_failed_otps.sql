@@ -0,0 +1,3 @@
+-- FAILED outbox rows are kept for inspection, but not the OTP codes in them;
+-- the dispatcher blanks an OTP's payload when it gives up on it from now on
+UPDATE notification_outbox SET payload = '' WHERE type = 'OTP_SMS' AND status = 'FAILED';
@@ -0,0 +1,18 @@
+-- The sales rollups' rebuild watermark and the latest rebuild's progress,
+-- shared by every node. Incremental updates read the watermark with this
+-- row locked; a rebuild holds the same lock while it empties the rollups
+-- and moves the watermark.
+CREATE TABLE sales_rollup_state (
+    id SMALLINT PRIMARY KEY CHECK (id = 1),
+    rebuilt_before TIMESTAMP,
+    rebuild_status VARCHAR(20),
+    rebuild_started_at TIMESTAMP,
+    rebuild_finished_at TIMESTAMP,
+    rebuild_chunks INTEGER,
+    rebuild_days INTEGER,
+    rebuild_products INTEGER,
+    rebuild_paid_orders BIGINT,
+    rebuild_error VARCHAR(500)
+);
+
+INSERT INTO sales_rollup_state (id) VALUES (1);
@@ -0,0 +1,80 @@
+package com.jaee.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two in-memory H2 databases stand in for the primary and the replica; the
+ * database name each transaction sees tells which one it was routed to.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private final AtomicBoolean replicaUsable = new AtomicBoolean(true);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(replicaUsable::get, meterRegistry);
+        routing.setTargetDataSources(Map.of(
+                ReplicaRoutingDataSource.Route.PRIMARY, h2("routing_primary"),
+                ReplicaRoutingDataSource.Route.REPLICA, h2("routing_replica")));
+        routing.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplica() {
+        assertThat(databaseIn(readOnly)).isEqualTo("ROUTING_REPLICA");
+        assertThat(databaseIn(readWrite)).isEqualTo("ROUTING_PRIMARY");
+        assertThat(database()).isEqualTo("ROUTING_PRIMARY");
+    }
+
+    @Test
+    void readOnlyJoiningAWriteStaysOnThePrimary() {
+        String database = readWrite.execute(status -> databaseIn(readOnly));
+
+        assertThat(database).isEqualTo("ROUTING_PRIMARY");
+    }
+
+    @Test
+    void unusableReplicaFallsBackToThePrimary() {
+        replicaUsable.set(false);
+
+        assertThat(databaseIn(readOnly)).isEqualTo("ROUTING_PRIMARY");
+        assertThat(meterRegistry.get("db.route").tag("route", "fallback").counter().count()).isEqualTo(1);
+    }
+
+    private String databaseIn(TransactionTemplate transaction) {
+        return transaction.execute(status -> database());
+    }
+
+    private String database() {
+        return jdbcTemplate.queryForObject("SELECT DATABASE()", String.class);
+    }
+
+    private static DataSource h2(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+}
@@ -0,0 +1,42 @@
+package com.jaee.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    @Test
+    void convertsToMinorUnitsRoundingHalfUp() {
+        assertThat(Money.of(new BigDecimal("499.00"), "INR").minorUnits()).isEqualTo(49900);
+        assertThat(Money.of(new BigDecimal("0.005"), "INR").minorUnits()).isEqualTo(1);
+        assertThat(Money.of(new BigDecimal("0.004"), "INR").minorUnits()).isEqualTo(0);
+        assertThat(Money.of(new BigDecimal("12.5"), "JPY").minorUnits()).isEqualTo(13);
+    }
+
+    @Test
+    void roundTripsThroughDecimalColumn() {
+        MoneyConverter converter = new MoneyConverter();
+        Money price = Money.ofMinor(123456, "INR");
+
+        BigDecimal column = converter.convertToDatabaseColumn(price);
+
+        assertThat(column).isEqualByComparingTo("1234.56");
+        assertThat(column.scale()).isEqualTo(2);
+        assertThat(converter.convertToEntityAttribute(column)).isEqualTo(price);
+    }
+
+    @Test
+    void arithmeticIsExact() {
+        Money line = Money.of(new BigDecimal("0.10"), "INR").times(3);
+
+        assertThat(line.plus(Money.of(new BigDecimal("0.20"), "INR")).toBigDecimal()).isEqualByComparingTo("0.50");
+        assertThatThrownBy(() -> Money.ofMinor(Long.MAX_VALUE, "INR").times(2))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> line.plus(Money.zero("USD")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,142 @@
+package com.jaee.security;
+
+import com.jaee.dto.auth.AuthResponse;
+import com.jaee.dto.auth.RegisterRequest;
+import com.jaee.dto.user.ChangePasswordRequest;
+import com.jaee.dto.user.UpdateProfileRequest;
+import com.jaee.entity.User;
+import com.jaee.repository.UserRepository;
+import com.jaee.service.AuthService;
+import com.jaee.service.UserService;
+import io.jsonwebtoken.JwtException;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Access tokens authenticate from their claims alone, verified once and then
+ * served from the verified-token cache, and a password change revokes the
+ * ones issued before it. Metrics are for admins only.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class JwtAuthenticationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void requestsAuthenticateWithoutLoadingTheUser() throws Exception {
+        AuthResponse auth = register("claims@jwt.test");
+        AuthenticatedUser principal = jwtService.parseAccessToken(auth.getAccessToken());
+        assertThat(principal.id()).isEqualTo(auth.getUser().getId());
+        assertThat(principal.role()).isEqualTo(User.Role.USER);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get("/orders").header("Authorization", "Bearer " + auth.getAccessToken()))
+                .andExpect(status().isOk());
+
+        assertThat(statistics.getEntityStatistics(User.class.getName()).getLoadCount()).isZero();
+    }
+
+    @Test
+    void passwordChangeRevokesEarlierAccessTokens() throws Exception {
+        AuthResponse auth = register("revoked@jwt.test");
+        String bearer = "Bearer " + auth.getAccessToken();
+        mockMvc.perform(get("/me").header("Authorization", bearer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.email").value("revoked@jwt.test"));
+
+        AuthenticatedUser principal = jwtService.parseAccessToken(auth.getAccessToken());
+        userService.changePassword(principal.id(), new ChangePasswordRequest("secret-one", "secret-two"));
+
+        mockMvc.perform(get("/me").header("Authorization", bearer))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void cachedSnapshotDoesNotUndoAChangeMadeElsewhere() {
+        AuthenticatedUser principal = jwtService.parseAccessToken(register("stale@jwt.test").getAccessToken());
+        String cachedHash = userCache.get(principal).getPasswordHash();
+
+        // Another node changes the password; this node's cache still holds the old row
+        User row = userRepository.findById(principal.id()).orElseThrow();
+        row.setPasswordHash("changed-elsewhere");
+        userRepository.save(row);
+        assertThat(userCache.get(principal).getPasswordHash()).isEqualTo(cachedHash);
+
+        userService.updateProfile(principal.id(), new UpdateProfileRequest("Renamed Holder"));
+
+        User saved = userRepository.findById(principal.id()).orElseThrow();
+        assertThat(saved.getPasswordHash()).isEqualTo("changed-elsewhere");
+        assertThat(saved.getName()).isEqualTo("Renamed Holder");
+        assertThat(userCache.get(principal).getName()).isEqualTo("Renamed Holder");
+    }
+
+    @Test
+    void verifiedTokenCacheDoesNotAcceptATamperedCopy() {
+        String token = register("tampered@jwt.test").getAccessToken();
+        assertThat(jwtService.parseAccessToken(token)).isSameAs(jwtService.parseAccessToken(token));
+
+        String[] parts = token.split("\\.");
+        String forged = parts[0] + "." + parts[1] + "." + new StringBuilder(parts[2]).reverse();
+        assertThatThrownBy(() -> jwtService.parseAccessToken(forged)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void metricsNeedAnAdmin() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isForbidden());
+
+        AuthResponse auth = register("scraper@jwt.test");
+        mockMvc.perform(get("/actuator/prometheus").header("Authorization", "Bearer " + auth.getAccessToken()))
+                .andExpect(status().isForbidden());
+
+        User admin = userRepository.findById(auth.getUser().getId()).orElseThrow();
+        admin.setRole(User.Role.ADMIN);
+        userRepository.save(admin);
+        // The test context does not export metrics, so past security the endpoint may be absent
+        mockMvc.perform(get("/actuator/prometheus").header("Authorization", "Bearer " + jwtService.generateAccessToken(admin)))
+                .andExpect(result -> assertThat(result.getResponse().getStatus()).isNotIn(401, 403));
+    }
+
+    private AuthResponse register(String email) {
+        RegisterRequest request = new RegisterRequest();
+        request.setName("Token Holder");
+        request.setEmail(email);
+        request.setPassword("secret-one");
+        return authService.register(request);
+    }
+}
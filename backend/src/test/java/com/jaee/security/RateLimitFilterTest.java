@@ -0,0 +1,77 @@
+package com.jaee.security;
+
+import com.jaee.dto.auth.RegisterRequest;
+import com.jaee.service.AuthService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "app.rate-limit.login.per-email=2",
+        "app.rate-limit.otp-request.per-ip=1"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RateLimitFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AuthService authService;
+
+    @Test
+    void loginsPastTheEmailLimitAreRefused() throws Exception {
+        RegisterRequest request = new RegisterRequest();
+        request.setName("Limited");
+        request.setEmail("limited@rate.test");
+        request.setPassword("secret-one");
+        authService.register(request);
+
+        // The body is still readable downstream after the filter has looked at it
+        login("limited@rate.test").andExpect(status().isOk());
+        login("limited@rate.test").andExpect(status().isOk());
+
+        login("limited@rate.test")
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(jsonPath("$.success").value(false));
+        login(" Limited@Rate.test").andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    void oversizedBodiesAreRefused() throws Exception {
+        String padding = "x".repeat(RateLimitFilter.MAX_BODY_BYTES);
+        login("padded@rate.test\",\"padding\":\"" + padding)
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+
+    @Test
+    void otpRequestsPastTheIpLimitAreRefused() throws Exception {
+        otpRequest("9800000001").andExpect(status().isOk());
+        otpRequest("9800000002").andExpect(status().isTooManyRequests());
+    }
+
+    private ResultActions login(String email) throws Exception {
+        return mockMvc.perform(post("/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"" + email + "\",\"password\":\"secret-one\"}"));
+    }
+
+    private ResultActions otpRequest(String mobileNumber) throws Exception {
+        return mockMvc.perform(post("/auth/otp/request")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"mobileNumber\":\"" + mobileNumber + "\"}"));
+    }
+}
@@ -0,0 +1,71 @@
+package com.jaee.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.security.SecureRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Revoked digests are reported until their generation has been dropped,
+ * and digests never added rarely are.
+ */
+class RevokedRefreshTokensTest {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Test
+    void addedDigestIsReported() {
+        RevokedRefreshTokens revoked = new RevokedRefreshTokens(60_000, 1_000);
+        byte[] digest = digest();
+
+        assertThat(revoked.mightContain(digest)).isFalse();
+        revoked.add(digest);
+        assertThat(revoked.mightContain(digest)).isTrue();
+        assertThat(revoked.mightContain(digest.clone())).isTrue();
+    }
+
+    @Test
+    void falsePositivesStayRareAtTheExpectedSize() {
+        RevokedRefreshTokens revoked = new RevokedRefreshTokens(60_000, 1_000);
+        for (int i = 0; i < 1_000; i++) {
+            revoked.add(digest());
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (revoked.mightContain(digest())) {
+                falsePositives++;
+            }
+        }
+        // About 0.1 expected at one in a million
+        assertThat(falsePositives).isLessThan(5);
+    }
+
+    @Test
+    void digestOutlivesOneGenerationButNotTwo() throws InterruptedException {
+        // Each call rotates at most once, so sleeping past a generation moves exactly one on
+        RevokedRefreshTokens revoked = new RevokedRefreshTokens(50, 1_000);
+        byte[] digest = digest();
+        revoked.add(digest);
+
+        Thread.sleep(80);
+        assertThat(revoked.mightContain(digest)).isTrue();
+
+        byte[] later = digest();
+        revoked.add(later);
+
+        Thread.sleep(80);
+        assertThat(revoked.mightContain(digest)).isFalse();
+        assertThat(revoked.mightContain(later)).isTrue();
+
+        Thread.sleep(80);
+        assertThat(revoked.mightContain(later)).isFalse();
+    }
+
+    private static byte[] digest() {
+        byte[] digest = new byte[32];
+        RANDOM.nextBytes(digest);
+        return digest;
+    }
+}
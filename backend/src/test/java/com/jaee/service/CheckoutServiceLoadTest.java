@@ -0,0 +1,164 @@
+package com.jaee.service;
+
+import com.jaee.entity.Cart;
+import com.jaee.entity.CartItem;
+import com.jaee.entity.Money;
+import com.jaee.entity.Order;
+import com.jaee.entity.OrderReference;
+import com.jaee.entity.Product;
+import com.jaee.entity.User;
+import com.jaee.repository.CartRepository;
+import com.jaee.repository.OrderRepository;
+import com.jaee.repository.ProductRepository;
+import com.jaee.repository.UserRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Drives concurrent checkouts against a gateway with injected latency and
+ * checks that the JDBC pool is not held for the duration of the gateway call.
+ * With the old single-transaction checkout, {@code SHOPPERS} checkouts on a
+ * {@code POOL_SIZE} pool serialize into SHOPPERS / POOL_SIZE gateway round trips.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.maximum-pool-size=" + CheckoutServiceLoadTest.POOL_SIZE,
+        "spring.datasource.hikari.connection-timeout=2000"
+})
+@ActiveProfiles("test")
+class CheckoutServiceLoadTest {
+
+    static final int POOL_SIZE = 4;
+    private static final int SHOPPERS = 24;
+    private static final long GATEWAY_LATENCY_MS = 400;
+
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private RazorpayGateway razorpayGateway;
+
+    @Test
+    void slowGatewayDoesNotPinPooledConnections() throws Exception {
+        AtomicInteger callsInsideTransaction = new AtomicInteger();
+        when(razorpayGateway.createOrder(anyLong(), anyString(), anyString(), any())).thenAnswer(invocation -> {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                callsInsideTransaction.incrementAndGet();
+            }
+            Thread.sleep(GATEWAY_LATENCY_MS);
+            return "rzp_" + invocation.getArgument(2);
+        });
+
+        Product product = productRepository.save(Product.builder()
+                .name("Latency Candle")
+                .slug("latency-candle")
+                .price(new BigDecimal("499.00"))
+                .stockQty(SHOPPERS * 10)
+                .build());
+
+        List<User> shoppers = new ArrayList<>();
+        for (int i = 0; i < SHOPPERS; i++) {
+            User user = userRepository.save(User.builder()
+                    .name("Shopper " + i)
+                    .email("shopper" + i + "@load.test")
+                    .passwordHash("unused")
+                    .build());
+            Cart cart = Cart.builder().user(user).build();
+            cart.addItem(CartItem.builder()
+                    .product(product)
+                    .qty(1)
+                    .unitPriceSnapshot(Money.of(product.getPrice(), product.getCurrency()))
+                    .build());
+            cartRepository.save(cart);
+            shoppers.add(user);
+        }
+
+        HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+        AtomicInteger peakActive = new AtomicInteger();
+        AtomicInteger peakWaiting = new AtomicInteger();
+        AtomicBoolean sampling = new AtomicBoolean(true);
+        Thread sampler = Thread.ofPlatform().start(() -> {
+            while (sampling.get()) {
+                peakActive.accumulateAndGet(pool.getActiveConnections(), Math::max);
+                peakWaiting.accumulateAndGet(pool.getThreadsAwaitingConnection(), Math::max);
+                Thread.onSpinWait();
+            }
+        });
+
+        long started = System.nanoTime();
+        List<Future<Map<String, Object>>> checkouts = new ArrayList<>();
+        List<Long> orderIds = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (User shopper : shoppers) {
+                checkouts.add(executor.submit(() -> checkoutService.createOrder(shopper)));
+            }
+            for (Future<Map<String, Object>> checkout : checkouts) {
+                orderIds.add((Long) checkout.get().get("internalOrderId"));
+            }
+        } finally {
+            sampling.set(false);
+            sampler.join();
+        }
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+        System.out.printf("checkout load: %d shoppers, pool=%d, gateway latency=%dms -> %dms total, "
+                        + "peak active=%d, peak waiting=%d%n",
+                SHOPPERS, POOL_SIZE, GATEWAY_LATENCY_MS, elapsedMs, peakActive.get(), peakWaiting.get());
+
+        assertThat(callsInsideTransaction).hasValue(0);
+        // Holding a connection across the gateway call would queue every shopper beyond POOL_SIZE
+        // on the pool and need SHOPPERS / POOL_SIZE gateway round trips end to end
+        assertThat(peakWaiting.get()).isLessThan(SHOPPERS - POOL_SIZE);
+        assertThat(elapsedMs).isLessThan(GATEWAY_LATENCY_MS * SHOPPERS / POOL_SIZE);
+        assertThat(orderRepository.findAllById(orderIds))
+                .hasSize(SHOPPERS)
+                .allSatisfy(order -> {
+                    assertThat(order.getStatus()).isEqualTo(Order.OrderStatus.PENDING);
+                    assertThat(order.getRazorpayOrderId()).isEqualTo("rzp_" + OrderReference.of(order));
+                });
+        assertThat(meterRegistry.get("checkout.stage")
+                .tags("flow", "create_order", "stage", "razorpay_create_order", "outcome", "success")
+                .timer().count()).isEqualTo(SHOPPERS);
+    }
+}
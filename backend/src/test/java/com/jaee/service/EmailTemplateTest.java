@@ -0,0 +1,48 @@
+package com.jaee.service;
+
+import com.jaee.dto.order.OrderConfirmation;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmailTemplateTest {
+
+    @Test
+    void repeatedSlotsShareAnId() {
+        EmailTemplate template = EmailTemplate.parse("test", "<p>{{ name }}, order {{id}} for {{name}}</p>");
+        int name = template.slot("name");
+        int id = template.slot("id");
+
+        StringBuilder out = new StringBuilder();
+        template.render(out, (slot, html) -> html.append(slot == name ? "Asha" : slot == id ? "42" : "?"));
+
+        assertThat(out).hasToString("<p>Asha, order 42 for Asha</p>");
+        assertThatThrownBy(() -> template.slot("missing")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void orderConfirmationEscapesItemNames() {
+        String html = EmailService.renderOrderConfirmation(OrderConfirmation.builder()
+                .orderId(1007L)
+                .customerEmail("buyer@example.com")
+                .totalAmount(new BigDecimal("899.5"))
+                .items(List.of(OrderConfirmation.Line.builder()
+                        .name("Rose & <b>Oud</b>")
+                        .qty(2)
+                        .subtotal(new BigDecimal("899.5"))
+                        .build()))
+                .build());
+
+        assertThat(html)
+                .contains("<h2>Order #1007</h2>")
+                .contains("<strong>Rose &amp; &lt;b&gt;Oud&lt;/b&gt;</strong>")
+                .contains("Qty: 2")
+                .contains("₹899.50")
+                .contains("width: 100%;")
+                .doesNotContain("{{");
+    }
+}
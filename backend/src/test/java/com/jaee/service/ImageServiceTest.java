@@ -0,0 +1,42 @@
+package com.jaee.service;
+
+import com.jaee.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ImageServiceTest {
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13, 'I', 'H', 'D', 'R'};
+    private static final byte[] WEBP = {'R', 'I', 'F', 'F', 0x24, 0, 0, 0, 'W', 'E', 'B', 'P', 'V', 'P', '8', ' '};
+
+    private final ImageService imageService = new ImageService(null, "jaee");
+
+    @Test
+    void typeComesFromTheBytesNotTheHeader() {
+        assertThat(imageService.uploadProductImage(
+                new MockMultipartFile("file", "candle.png", "application/octet-stream", PNG)))
+                .startsWith("https://placehold.co/")
+                .endsWith("candle");
+        assertThat(imageService.uploadCategoryImage(
+                new MockMultipartFile("file", "wax.webp", "image/jpeg", WEBP)))
+                .endsWith("wax");
+    }
+
+    @Test
+    void markupLabelledAsAnImageIsRejected() {
+        MockMultipartFile disguised = new MockMultipartFile("file", "logo.png", "image/png",
+                "<svg onload=alert(1)>".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> imageService.uploadImage(disguised, "general"))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("Invalid file type");
+        assertThatThrownBy(() -> imageService.uploadImage(
+                new MockMultipartFile("file", "tiny.png", "image/png", new byte[]{(byte) 0x89, 'P'}), "general"))
+                .isInstanceOf(BadRequestException.class);
+    }
+}
@@ -0,0 +1,84 @@
+package com.jaee.service;
+
+import com.jaee.exception.TooManyRequestsException;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InMemoryOtpStoreTest {
+
+    private static final String NUMBER = "+919800000000";
+    private static final byte[] CODE = {1, 2, 3};
+    private static final byte[] WRONG = {3, 2, 1};
+
+    private final InMemoryOtpStore store = new InMemoryOtpStore(5, 2, 60, 100);
+
+    @Test
+    void matchingCodeVerifiesOnce() {
+        store.issue(NUMBER, CODE, Instant.now().plusSeconds(300));
+
+        assertThat(store.verify(NUMBER, CODE).outcome()).isEqualTo(OtpStore.Outcome.VERIFIED);
+        assertThat(store.verify(NUMBER, CODE).outcome()).isEqualTo(OtpStore.Outcome.MISSING);
+    }
+
+    @Test
+    void failedAttemptsLockTheCode() {
+        store.issue(NUMBER, CODE, Instant.now().plusSeconds(300));
+
+        assertThat(store.verify(NUMBER, WRONG)).isEqualTo(new OtpStore.Verification(OtpStore.Outcome.INVALID, 1));
+        assertThat(store.verify(NUMBER, WRONG)).isEqualTo(new OtpStore.Verification(OtpStore.Outcome.INVALID, 0));
+        assertThat(store.verify(NUMBER, CODE).outcome()).isEqualTo(OtpStore.Outcome.LOCKED);
+    }
+
+    @Test
+    void expiredCodeIsRejected() {
+        store.issue(NUMBER, CODE, Instant.now().minusSeconds(1));
+
+        assertThat(store.verify(NUMBER, CODE).outcome()).isEqualTo(OtpStore.Outcome.EXPIRED);
+    }
+
+    @Test
+    void resendWithinCooldownIsRefused() {
+        store.issue(NUMBER, CODE, Instant.now().plusSeconds(300));
+
+        assertThatThrownBy(() -> store.issue(NUMBER, WRONG, Instant.now().plusSeconds(300)))
+                .isInstanceOf(TooManyRequestsException.class);
+        assertThat(store.verify(NUMBER, CODE).outcome()).isEqualTo(OtpStore.Outcome.VERIFIED);
+    }
+
+    @Test
+    void rolledBackIssueRestoresThePreviousCode() {
+        InMemoryOtpStore cooledDown = new InMemoryOtpStore(5, 2, 0, 100);
+        cooledDown.issue(NUMBER, CODE, Instant.now().plusSeconds(300));
+
+        inRolledBackTransaction(() -> cooledDown.issue(NUMBER, WRONG, Instant.now().plusSeconds(300)));
+        assertThat(cooledDown.verify(NUMBER, WRONG).outcome()).isEqualTo(OtpStore.Outcome.INVALID);
+        assertThat(cooledDown.verify(NUMBER, CODE).outcome()).isEqualTo(OtpStore.Outcome.VERIFIED);
+    }
+
+    @Test
+    void rolledBackFirstIssueLeavesNoCodeOrCooldown() {
+        inRolledBackTransaction(() -> store.issue(NUMBER, CODE, Instant.now().plusSeconds(300)));
+
+        assertThat(store.verify(NUMBER, CODE).outcome()).isEqualTo(OtpStore.Outcome.MISSING);
+        store.issue(NUMBER, WRONG, Instant.now().plusSeconds(300));
+        assertThat(store.verify(NUMBER, WRONG).outcome()).isEqualTo(OtpStore.Outcome.VERIFIED);
+    }
+
+    private static void inRolledBackTransaction(Runnable work) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
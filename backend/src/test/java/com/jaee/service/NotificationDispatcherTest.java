@@ -0,0 +1,138 @@
+package com.jaee.service;
+
+import com.jaee.dto.order.OrderConfirmation;
+import com.jaee.entity.OutboxMessage;
+import com.jaee.exception.SmsThrottledException;
+import com.jaee.repository.OutboxMessageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mail.MailSendException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Sent messages leave the outbox; failed ones stay PENDING with a backoff,
+ * until the attempt limit marks them FAILED. A FAILED OTP keeps no code.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class NotificationDispatcherTest {
+
+    @Autowired
+    private NotificationOutbox notificationOutbox;
+
+    @Autowired
+    private NotificationDispatcher notificationDispatcher;
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @MockBean
+    private EmailService emailService;
+
+    @MockBean
+    private SmsService smsService;
+
+    @BeforeEach
+    void clearOutbox() {
+        outboxMessageRepository.deleteAll();
+    }
+
+    @Test
+    void sentMessageIsDeleted() {
+        OrderConfirmation confirmation = OrderConfirmation.builder()
+                .orderId(42L)
+                .customerEmail("buyer@example.com")
+                .totalAmount(new BigDecimal("1250.00"))
+                .items(List.of(OrderConfirmation.Line.builder()
+                        .name("Candle").qty(2).subtotal(new BigDecimal("1250.00")).build()))
+                .build();
+
+        notificationOutbox.enqueueOrderConfirmation(confirmation);
+        notificationDispatcher.dispatchDue();
+
+        awaitTrue(() -> outboxMessageRepository.count() == 0);
+        verify(emailService).sendOrderConfirmation(confirmation);
+    }
+
+    @Test
+    void failedMessageIsRetriedLater() {
+        doThrow(new MailSendException("451 try later")).when(emailService).sendOrderConfirmation(any());
+        notificationOutbox.enqueueOrderConfirmation(OrderConfirmation.builder()
+                .orderId(7L)
+                .customerEmail("buyer@example.com")
+                .totalAmount(BigDecimal.TEN)
+                .items(List.of())
+                .build());
+        notificationDispatcher.dispatchDue();
+
+        awaitTrue(() -> outboxMessageRepository.findAll().get(0).getAttempts() == 1);
+        OutboxMessage message = outboxMessageRepository.findAll().get(0);
+        assertThat(message.getStatus()).isEqualTo(OutboxMessage.Status.PENDING);
+        assertThat(message.getLastError()).contains("451 try later");
+        assertThat(message.getNextAttemptAt()).isAfter(LocalDateTime.now().plusSeconds(1));
+    }
+
+    @Test
+    void otpIsGivenUpAfterItsAttemptLimit() {
+        when(smsService.sendOtpAsync(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("carrier down")));
+        outboxMessageRepository.save(OutboxMessage.builder()
+                .type(OutboxMessage.Type.OTP_SMS)
+                .recipient("+919999999999")
+                .payload("123456")
+                .attempts(2)
+                .build());
+        notificationDispatcher.dispatchDue();
+
+        awaitTrue(() -> outboxMessageRepository.findAll().get(0).getStatus() == OutboxMessage.Status.FAILED);
+        assertThat(outboxMessageRepository.countByStatus(OutboxMessage.Status.PENDING)).isZero();
+        assertThat(outboxMessageRepository.findAll().get(0).getPayload()).isEmpty();
+    }
+
+    @Test
+    void throttledOtpIsPutBackWithoutUsingAnAttempt() {
+        when(smsService.sendOtpAsync(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new SmsThrottledException("stub", 3000)));
+        outboxMessageRepository.save(OutboxMessage.builder()
+                .type(OutboxMessage.Type.OTP_SMS)
+                .recipient("+919999999998")
+                .payload("654321")
+                .build());
+        notificationDispatcher.dispatchDue();
+
+        awaitTrue(() -> outboxMessageRepository.findAll().get(0).getNextAttemptAt()
+                .isBefore(LocalDateTime.now().plusSeconds(10)));
+        OutboxMessage message = outboxMessageRepository.findAll().get(0);
+        assertThat(message.getAttempts()).isZero();
+        assertThat(message.getStatus()).isEqualTo(OutboxMessage.Status.PENDING);
+        assertThat(message.getNextAttemptAt()).isAfter(LocalDateTime.now().plusSeconds(1));
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 5s").isLessThan(deadline);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.jaee.service;
+
+import com.jaee.entity.Money;
+import com.jaee.entity.Order;
+import com.jaee.entity.OrderItem;
+import com.jaee.entity.User;
+import com.jaee.repository.OrderRepository;
+import com.jaee.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderExportServiceTest {
+
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    void exportsOneRowPerLineItemAsGzippedCsv() throws Exception {
+        User user = userRepository.save(User.builder()
+                .name("Finance")
+                .email("finance@export.test")
+                .passwordHash("unused")
+                .build());
+        // Far in the past so other tests' orders fall outside the export window
+        LocalDateTime createdAt = LocalDateTime.of(2001, 3, 14, 10, 30);
+        Order order = Order.builder()
+                .user(user)
+                .status(Order.OrderStatus.PAID)
+                .totalAmount(Money.of(new BigDecimal("350.00"), Money.DEFAULT_CURRENCY))
+                .customerEmail("=cmd@export.test")
+                .customerPhone("+91 98765 43210")
+                .createdAt(createdAt)
+                .build();
+        order.addItem(item("Candle, \"Rose\"", "100.00", 2));
+        order.addItem(item("Diffuser", "150.00", 1));
+        orderRepository.save(order);
+        orderRepository.save(Order.builder()
+                .user(user)
+                .totalAmount(Money.zero(Money.DEFAULT_CURRENCY))
+                .createdAt(createdAt.plusHours(1))
+                .build());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = orderExportService.writeOrdersCsv(LocalDate.of(2001, 3, 1), LocalDate.of(2001, 4, 1), true, out);
+
+        String csv;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        List<String> lines = csv.lines().toList();
+        assertThat(rows).isEqualTo(3);
+        assertThat(lines).hasSize(4);
+        assertThat(lines.get(0)).startsWith("order_id,created_at,paid_at,status");
+        assertThat(lines.get(1))
+                .contains(",2001-03-14T10:30,,PAID,'=cmd@export.test,+91 98765 43210,INR,")
+                .contains(",\"Candle, \"\"Rose\"\"\",100.00,2,200.00");
+        assertThat(lines.get(2)).endsWith(",Diffuser,150.00,1,150.00");
+        assertThat(lines.get(3)).contains(",PENDING,").endsWith(",,,,,,");
+    }
+
+    @Test
+    void onlyValuesThatWouldEvaluateAreEscaped() {
+        assertThat(OrderExportService.field("+919876543210")).isEqualTo("+919876543210");
+        assertThat(OrderExportService.field("-12.50")).isEqualTo("-12.50");
+        assertThat(OrderExportService.field("+1+cmd|' /C calc'!A0")).isEqualTo("'+1+cmd|' /C calc'!A0");
+        assertThat(OrderExportService.field("-2+3")).isEqualTo("'-2+3");
+        assertThat(OrderExportService.field("@SUM(A1)")).isEqualTo("'@SUM(A1)");
+        assertThat(OrderExportService.field("=HYPERLINK(\"x\",\"y\")")).isEqualTo("\"'=HYPERLINK(\"\"x\"\",\"\"y\"\")\"");
+        assertThat(OrderExportService.field("\t=1+2")).isEqualTo("'\t=1+2");
+        assertThat(OrderExportService.field("\r=1+2")).isEqualTo("\"'\r=1+2\"");
+        assertThat(OrderExportService.field("Rose - large")).isEqualTo("Rose - large");
+    }
+
+    private static OrderItem item(String name, String price, int qty) {
+        return OrderItem.builder()
+                .nameSnapshot(name)
+                .priceSnapshot(Money.of(new BigDecimal(price), Money.DEFAULT_CURRENCY))
+                .qty(qty)
+                .build();
+    }
+}
@@ -0,0 +1,116 @@
+package com.jaee.service;
+
+import com.jaee.dto.common.CursorPageResponse;
+import com.jaee.dto.common.PageResponse;
+import com.jaee.dto.order.OrderSummaryDto;
+import com.jaee.entity.Money;
+import com.jaee.entity.Order;
+import com.jaee.entity.OrderItem;
+import com.jaee.entity.User;
+import com.jaee.repository.OrderRepository;
+import com.jaee.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderServiceTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    void listSummarisesLineItems() {
+        User user = saveUser("summary@orders.test");
+        LocalDateTime now = LocalDateTime.now();
+        saveOrder(user, now.minusDays(1), "Rose Candle", 2, "Lavender Candle", 1);
+        Order empty = saveOrder(user, now);
+
+        PageResponse<OrderSummaryDto> page = orderService.getUserOrders(user, 0, 10);
+
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        OrderSummaryDto newest = page.getContent().get(0);
+        assertThat(newest.getId()).isEqualTo(empty.getId());
+        assertThat(newest.getLineCount()).isZero();
+        assertThat(newest.getFirstItemName()).isNull();
+
+        OrderSummaryDto withItems = page.getContent().get(1);
+        assertThat(withItems.getLineCount()).isEqualTo(2);
+        assertThat(withItems.getItemCount()).isEqualTo(3);
+        assertThat(withItems.getFirstItemName()).isEqualTo("Rose Candle");
+        assertThat(withItems.getFirstImageUrl()).isEqualTo("/img/rose-candle.jpg");
+        assertThat(withItems.getTotalAmount()).isEqualByComparingTo("300.00");
+    }
+
+    @Test
+    void historyCursorWalksEveryOrderOnce() {
+        User user = saveUser("history@orders.test");
+        // Several orders share a timestamp so the id tie-break is exercised
+        LocalDateTime createdAt = LocalDateTime.now().withNano(0);
+        List<Order> saved = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            saved.add(saveOrder(user, createdAt.minusMinutes(i / 3), "Candle " + i, 1));
+        }
+        List<Long> expected = saved.stream()
+                .sorted(Comparator.comparing(Order::getCreatedAt).thenComparing(Order::getId).reversed())
+                .map(Order::getId)
+                .toList();
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPageResponse<OrderSummaryDto> page = orderService.getUserOrderHistory(user, cursor, 3);
+            page.getContent().forEach(order -> seen.add(order.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(seen).isEqualTo(expected);
+    }
+
+    private User saveUser(String email) {
+        return userRepository.save(User.builder()
+                .name("Order Lister")
+                .email(email)
+                .passwordHash("unused")
+                .build());
+    }
+
+    private Order saveOrder(User user, LocalDateTime createdAt, Object... items) {
+        Order order = Order.builder()
+                .user(user)
+                .status(Order.OrderStatus.PAID)
+                .totalAmount(Money.zero(Money.DEFAULT_CURRENCY))
+                .createdAt(createdAt)
+                .build();
+        Money total = Money.zero(Money.DEFAULT_CURRENCY);
+        for (int i = 0; i < items.length; i += 2) {
+            String name = (String) items[i];
+            OrderItem item = OrderItem.builder()
+                    .nameSnapshot(name)
+                    .priceSnapshot(Money.of(new BigDecimal("100.00"), Money.DEFAULT_CURRENCY))
+                    .qty((Integer) items[i + 1])
+                    .imageUrl("/img/" + name.toLowerCase().replace(' ', '-') + ".jpg")
+                    .build();
+            order.addItem(item);
+            total = total.plus(item.getSubtotal());
+        }
+        order.setTotalAmount(total);
+        return orderRepository.save(order);
+    }
+}
@@ -0,0 +1,61 @@
+package com.jaee.service;
+
+import com.jaee.dto.auth.OtpRequestDto;
+import com.jaee.repository.OtpCodeRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+
+/**
+ * An OTP and its outbox row commit together: when the SMS cannot be queued
+ * the code is rolled back, so the number is not stuck in the cooldown.
+ */
+@SpringBootTest(properties = "app.otp.store=database")
+@ActiveProfiles("test")
+class OtpServiceTest {
+
+    private static final String NUMBER = "+919800000077";
+
+    @Autowired
+    private OtpService otpService;
+
+    @Autowired
+    private OtpCodeRepository otpCodeRepository;
+
+    @MockBean
+    private SmsService smsService;
+
+    @MockBean
+    private NotificationOutbox notificationOutbox;
+
+    @Test
+    void codeIsRolledBackWhenItsSmsCannotBeQueued() {
+        when(smsService.isDeliverable()).thenReturn(true);
+        doThrow(new DataAccessResourceFailureException("outbox unavailable"))
+                .when(notificationOutbox).enqueueOtp(any(), any());
+
+        assertThatThrownBy(() -> otpService.requestOtp(request()))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+        assertThat(otpCodeRepository.findFirstByMobileNumberOrderByCreatedAtDesc(NUMBER)).isEmpty();
+
+        doNothing().when(notificationOutbox).enqueueOtp(any(), any());
+        otpService.requestOtp(request());
+        assertThat(otpCodeRepository.findFirstByMobileNumberOrderByCreatedAtDesc(NUMBER)).isPresent();
+    }
+
+    private static OtpRequestDto request() {
+        OtpRequestDto request = new OtpRequestDto();
+        request.setMobileNumber(NUMBER);
+        return request;
+    }
+}
@@ -0,0 +1,161 @@
+package com.jaee.service;
+
+import com.jaee.entity.Money;
+import com.jaee.entity.Order;
+import com.jaee.entity.OrderItem;
+import com.jaee.entity.Product;
+import com.jaee.entity.User;
+import com.jaee.repository.OrderRepository;
+import com.jaee.repository.ProductRepository;
+import com.jaee.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The client callback and webhook race for the same order; exactly one of
+ * them may finalize it. Payments for cancelled orders and stock shortfalls
+ * are flagged rather than dropped.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class PaymentFinalizerTest {
+
+    private static final int CALLERS = 16;
+
+    @Autowired
+    private PaymentFinalizer paymentFinalizer;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void concurrentCallbacksFinalizeOnce() throws Exception {
+        Product product = product("race-candle", 10);
+        Order saved = pendingOrder("racer", product, 2);
+        Long orderId = saved.getId();
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<PaymentFinalizer.Outcome>> outcomes = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CALLERS; i++) {
+                String source = i % 2 == 0 ? "verify" : "webhook";
+                outcomes.add(executor.submit(() -> {
+                    start.await();
+                    return paymentFinalizer.finalizePayment(saved, "pay_race", source);
+                }));
+            }
+            start.countDown();
+        }
+
+        int finalized = 0;
+        for (Future<PaymentFinalizer.Outcome> outcome : outcomes) {
+            if (outcome.get() == PaymentFinalizer.Outcome.FINALIZED) {
+                finalized++;
+            }
+        }
+
+        assertThat(finalized).isEqualTo(1);
+        assertThat(productRepository.findById(product.getId()).orElseThrow().getStockQty()).isEqualTo(8);
+        Order paid = orderRepository.findById(orderId).orElseThrow();
+        assertThat(paid.getStatus()).isEqualTo(Order.OrderStatus.PAID);
+        assertThat(paid.getRazorpayPaymentId()).isEqualTo("pay_race");
+        assertThat(paid.getPaidAt()).isNotNull();
+    }
+
+    @Test
+    void paymentForCancelledOrderIsFlaggedOnce() {
+        Product product = product("late-candle", 10);
+        Order order = pendingOrder("late", product, 1);
+        transactionTemplate.executeWithoutResult(status -> orderRepository.updateStatusIfCurrent(
+                order, Order.OrderStatus.PENDING, Order.OrderStatus.CANCELLED));
+        double flaggedBefore = attentionCount(Order.Attention.PAID_AFTER_CANCEL);
+
+        assertThat(paymentFinalizer.finalizePayment(order, "pay_late", "webhook"))
+                .isEqualTo(PaymentFinalizer.Outcome.PAID_AFTER_CANCEL);
+        assertThat(paymentFinalizer.finalizePayment(order, "pay_late", "verify"))
+                .isEqualTo(PaymentFinalizer.Outcome.PAID_AFTER_CANCEL);
+
+        Order cancelled = orderRepository.findById(order.getId()).orElseThrow();
+        assertThat(cancelled.getStatus()).isEqualTo(Order.OrderStatus.CANCELLED);
+        assertThat(cancelled.getRazorpayPaymentId()).isEqualTo("pay_late");
+        assertThat(cancelled.getAttention()).isEqualTo(Order.Attention.PAID_AFTER_CANCEL);
+        assertThat(attentionCount(Order.Attention.PAID_AFTER_CANCEL)).isEqualTo(flaggedBefore + 1);
+        assertThat(productRepository.findById(product.getId()).orElseThrow().getStockQty()).isEqualTo(10);
+    }
+
+    @Test
+    void stockShortfallIsFlagged() {
+        Product product = product("short-candle", 1);
+        Order order = pendingOrder("short", product, 2);
+
+        assertThat(paymentFinalizer.finalizePayment(order, "pay_short", "verify"))
+                .isEqualTo(PaymentFinalizer.Outcome.FINALIZED);
+
+        Order paid = orderRepository.findById(order.getId()).orElseThrow();
+        assertThat(paid.getStatus()).isEqualTo(Order.OrderStatus.PAID);
+        assertThat(paid.getAttention()).isEqualTo(Order.Attention.STOCK_SHORTFALL);
+        assertThat(productRepository.findById(product.getId()).orElseThrow().getStockQty()).isEqualTo(1);
+    }
+
+    private Product product(String slug, int stock) {
+        return productRepository.save(Product.builder()
+                .name("Finalizer Candle " + slug)
+                .slug(slug)
+                .price(new BigDecimal("250.00"))
+                .stockQty(stock)
+                .build());
+    }
+
+    private Order pendingOrder(String customer, Product product, int qty) {
+        User user = userRepository.save(User.builder()
+                .name(customer)
+                .email(customer + "@finalizer.test")
+                .passwordHash("unused")
+                .build());
+        Order order = Order.builder()
+                .user(user)
+                .status(Order.OrderStatus.PENDING)
+                .totalAmount(Money.of(product.getPrice().multiply(BigDecimal.valueOf(qty)), "INR"))
+                .currency("INR")
+                .build();
+        order.addItem(OrderItem.builder()
+                .product(product)
+                .nameSnapshot(product.getName())
+                .priceSnapshot(Money.of(product.getPrice(), product.getCurrency()))
+                .qty(qty)
+                .build());
+        return orderRepository.save(order);
+    }
+
+    private double attentionCount(Order.Attention reason) {
+        Counter counter = meterRegistry.find("checkout.attention").tag("reason", reason.name()).counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
@@ -0,0 +1,131 @@
+package com.jaee.service;
+
+import com.jaee.entity.Money;
+import com.jaee.entity.Order;
+import com.jaee.entity.User;
+import com.jaee.repository.OrderRepository;
+import com.jaee.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Abandoned checkouts are cancelled, everything else is left alone, and a
+ * payment racing the expiry either wins or is flagged for refund.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class PendingOrderExpiryJobTest {
+
+    private static final int RACES = 20;
+
+    @Autowired
+    private PendingOrderExpiryJob pendingOrderExpiryJob;
+
+    @Autowired
+    private PaymentFinalizer paymentFinalizer;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    void expiresOnlyStalePendingOrders() {
+        User user = user("abandoner");
+        LocalDateTime now = LocalDateTime.now();
+        Order stale = order(user, Order.OrderStatus.PENDING, now.minusHours(3));
+        Order recent = order(user, Order.OrderStatus.PENDING, now.minusMinutes(10));
+        Order paid = order(user, Order.OrderStatus.PAID, now.minusHours(3));
+        Order forgotten = order(user, Order.OrderStatus.PENDING, now.minusDays(5));
+
+        pendingOrderExpiryJob.expireStalePendingOrders(now.minusHours(50), now.minusHours(2));
+
+        assertThat(status(stale)).isEqualTo(Order.OrderStatus.CANCELLED);
+        assertThat(status(recent)).isEqualTo(Order.OrderStatus.PENDING);
+        assertThat(status(paid)).isEqualTo(Order.OrderStatus.PAID);
+        // Outside the lookback; left for the daily sweep
+        assertThat(status(forgotten)).isEqualTo(Order.OrderStatus.PENDING);
+
+        pendingOrderExpiryJob.sweep();
+
+        assertThat(status(forgotten)).isEqualTo(Order.OrderStatus.CANCELLED);
+        assertThat(status(recent)).isEqualTo(Order.OrderStatus.PENDING);
+        assertThat(status(paid)).isEqualTo(Order.OrderStatus.PAID);
+    }
+
+    @Test
+    void latePaymentRacingExpiryIsPaidOrFlagged() throws Exception {
+        User user = user("latecomer");
+        LocalDateTime now = LocalDateTime.now();
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < RACES; i++) {
+            orders.add(order(user, Order.OrderStatus.PENDING, now.minusHours(3)));
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<PaymentFinalizer.Outcome>> outcomes = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(() -> {
+                start.await();
+                return pendingOrderExpiryJob.expireStalePendingOrders(now.minusHours(50), now.minusHours(2));
+            });
+            for (Order order : orders) {
+                outcomes.add(executor.submit(() -> {
+                    start.await();
+                    return paymentFinalizer.finalizePayment(order, "pay_late_" + order.getId(), "webhook");
+                }));
+            }
+            start.countDown();
+        }
+
+        for (int i = 0; i < RACES; i++) {
+            Order order = orderRepository.findById(orders.get(i).getId()).orElseThrow();
+            assertThat(order.getRazorpayPaymentId()).isEqualTo("pay_late_" + order.getId());
+            if (outcomes.get(i).get() == PaymentFinalizer.Outcome.FINALIZED) {
+                assertThat(order.getStatus()).isEqualTo(Order.OrderStatus.PAID);
+                assertThat(order.getAttention()).isNull();
+            } else {
+                assertThat(outcomes.get(i).get()).isEqualTo(PaymentFinalizer.Outcome.PAID_AFTER_CANCEL);
+                assertThat(order.getStatus()).isEqualTo(Order.OrderStatus.CANCELLED);
+                assertThat(order.getAttention()).isEqualTo(Order.Attention.PAID_AFTER_CANCEL);
+            }
+        }
+    }
+
+    private User user(String name) {
+        return userRepository.save(User.builder()
+                .name(name)
+                .email(name + "@expiry.test")
+                .passwordHash("unused")
+                .build());
+    }
+
+    private Order order(User user, Order.OrderStatus status, LocalDateTime createdAt) {
+        return orderRepository.save(Order.builder()
+                .user(user)
+                .status(status)
+                .totalAmount(Money.of(new BigDecimal("250.00"), "INR"))
+                .currency("INR")
+                .createdAt(createdAt.truncatedTo(ChronoUnit.MICROS))
+                .build());
+    }
+
+    private Order.OrderStatus status(Order order) {
+        return orderRepository.findStatus(order).orElseThrow();
+    }
+}
@@ -0,0 +1,121 @@
+package com.jaee.service;
+
+import com.jaee.dto.stats.RollupRebuildResult;
+import com.jaee.dto.stats.SalesStatsDto;
+import com.jaee.entity.Money;
+import com.jaee.entity.Order;
+import com.jaee.entity.OrderItem;
+import com.jaee.entity.Product;
+import com.jaee.entity.ProductSalesRollup;
+import com.jaee.entity.User;
+import com.jaee.repository.OrderRepository;
+import com.jaee.repository.ProductRepository;
+import com.jaee.repository.ProductSalesRollupRepository;
+import com.jaee.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SalesRollupServiceTest {
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductSalesRollupRepository productSalesRollupRepository;
+
+    @Test
+    void rebuildThenIncrementalUpdates() {
+        User user = userRepository.save(User.builder()
+                .name("Rollup Buyer")
+                .email("buyer@rollup.test")
+                .passwordHash("unused")
+                .build());
+        Product candle = saveProduct("Rollup Candle", "100.00");
+        Product diffuser = saveProduct("Rollup Diffuser", "250.00");
+        LocalDateTime threeDaysAgo = LocalDateTime.now().minusDays(3);
+        Order early = saveOrder(user, Order.OrderStatus.PAID, threeDaysAgo, candle, 2);
+        saveOrder(user, Order.OrderStatus.FULFILLED, threeDaysAgo.plusMinutes(5), diffuser, 1);
+        saveOrder(user, Order.OrderStatus.PENDING, null, candle, 5);
+
+        assertThat(salesRollupService.startRebuild().getStatus()).isEqualTo("RUNNING");
+        await().atMost(Duration.ofSeconds(10))
+                .until(() -> !"RUNNING".equals(salesRollupService.rebuildStatus().getStatus()));
+        RollupRebuildResult result = salesRollupService.rebuildStatus();
+
+        assertThat(result.getStatus()).isEqualTo("SUCCEEDED");
+        assertThat(result.getPaidOrders()).isGreaterThanOrEqualTo(2);
+        SalesStatsDto.DailySales day = salesRollupService.getStats(7).getDaily().stream()
+                .filter(d -> d.getDate().equals(threeDaysAgo.toLocalDate()))
+                .findFirst()
+                .orElseThrow();
+        assertThat(day.getPaidOrders()).isEqualTo(2);
+        assertThat(day.getUnits()).isEqualTo(3);
+        assertThat(day.getRevenue()).isEqualByComparingTo("450.00");
+        assertThat(rollupOf(candle).getUnits()).isEqualTo(2);
+        assertThat(rollupOf(diffuser).getRevenueMinor()).isEqualTo(25_000);
+
+        // Paid before the watermark, which is read from the database, so e.g. a
+        // late event from another node does not count it twice
+        salesRollupService.recordPaid(early.getId());
+        // Paid after the rebuild's watermark, so the incremental path owns it
+        Order late = saveOrder(user, Order.OrderStatus.PAID, LocalDateTime.now().plusSeconds(1), candle, 3);
+        salesRollupService.recordPaid(late.getId());
+
+        await().atMost(Duration.ofSeconds(5))
+                .untilAsserted(() -> assertThat(rollupOf(candle).getUnits()).isEqualTo(5));
+        assertThat(rollupOf(candle).getPaidOrders()).isEqualTo(2);
+        assertThat(salesRollupService.getStats(7).getDaily())
+                .anySatisfy(d -> assertThat(d.getDate()).isEqualTo(LocalDate.now()));
+    }
+
+    private ProductSalesRollup rollupOf(Product product) {
+        return productSalesRollupRepository.findById(product.getId()).orElseThrow();
+    }
+
+    private Product saveProduct(String name, String price) {
+        return productRepository.save(Product.builder()
+                .name(name)
+                .slug(name.toLowerCase().replace(' ', '-'))
+                .price(new BigDecimal(price))
+                .stockQty(100)
+                .build());
+    }
+
+    private Order saveOrder(User user, Order.OrderStatus status, LocalDateTime paidAt, Product product, int qty) {
+        Money price = Money.of(product.getPrice(), Money.DEFAULT_CURRENCY);
+        Order order = Order.builder()
+                .user(user)
+                .status(status)
+                .totalAmount(price.times(qty))
+                .paidAt(paidAt)
+                .build();
+        order.addItem(OrderItem.builder()
+                .product(product)
+                .nameSnapshot(product.getName())
+                .priceSnapshot(price)
+                .qty(qty)
+                .build());
+        return orderRepository.save(order);
+    }
+}
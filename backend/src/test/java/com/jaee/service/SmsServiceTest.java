@@ -0,0 +1,49 @@
+package com.jaee.service;
+
+import com.jaee.exception.SmsThrottledException;
+import com.jaee.security.InMemoryRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SmsServiceTest {
+
+    private final StubSmsProvider provider = new StubSmsProvider();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void burstBeyondTheBucketIsHandedBackWhenItCannotWait() {
+        SmsService smsService = smsService(0);
+        for (int i = 0; i < 5; i++) {
+            smsService.sendOtp("+91999999000" + i, "123456");
+        }
+
+        assertThatThrownBy(() -> smsService.sendOtp("+919999990009", "123456"))
+                .isInstanceOfSatisfying(SmsThrottledException.class,
+                        e -> assertThat(e.getRetryAfterMs()).isPositive());
+        assertThat(provider.sentCount()).isEqualTo(5);
+        assertThat(meterRegistry.get("sms.throttled").tag("provider", "stub").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void burstBeyondTheBucketWaitsForATokenWhenAllowed() throws Exception {
+        SmsService smsService = smsService(2000);
+        for (int i = 0; i < 7; i++) {
+            smsService.sendOtpAsync("+91999999000" + i, "12345" + i).get();
+        }
+
+        assertThat(provider.sentCount()).isEqualTo(7);
+        assertThat(provider.lastSentTo("+919999990006")).hasValueSatisfying(
+                message -> assertThat(message.body()).contains("123456"));
+        assertThat(meterRegistry.get("sms.send").tags("provider", "stub", "outcome", "success").timer().count())
+                .isEqualTo(7);
+    }
+
+    /** 5 per second with a burst of 5 */
+    private SmsService smsService(long maxWaitMs) {
+        return new SmsService(provider, new InMemoryRateLimiter(1000, 15), meterRegistry,
+                true, 5, 5, maxWaitMs, 8);
+    }
+}
@@ -0,0 +1,59 @@
+package com.jaee.service;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TotpServiceTest {
+
+    private final TotpService totpService = new TotpService(100);
+
+    @Test
+    void codeIsAcceptedOncePerUser() throws Exception {
+        String secret = totpService.generateSecret();
+        String code = codeFor(secret, currentTimeStep());
+
+        assertThat(totpService.verifyCode(1L, secret, code)).isTrue();
+        assertThat(totpService.verifyCode(1L, secret, code)).isFalse();
+        // Another user's replay cache is separate
+        assertThat(totpService.verifyCode(2L, secret, code)).isTrue();
+    }
+
+    @Test
+    void adjacentStepsAreAcceptedButNotOlderOnesAfterANewerOne() throws Exception {
+        String secret = totpService.generateSecret();
+        long now = currentTimeStep();
+
+        assertThat(totpService.verifyCode(1L, secret, codeFor(secret, now + 1))).isTrue();
+        assertThat(totpService.verifyCode(1L, secret, codeFor(secret, now - 1))).isFalse();
+        assertThat(totpService.verifyCode(1L, secret, codeFor(secret, now - 2))).isFalse();
+    }
+
+    @Test
+    void malformedCodesAreRejected() {
+        String secret = totpService.generateSecret();
+
+        assertThat(totpService.verifyCode(1L, secret, "12345")).isFalse();
+        assertThat(totpService.verifyCode(1L, secret, "abcdef")).isFalse();
+        assertThat(totpService.verifyCode(1L, null, "123456")).isFalse();
+    }
+
+    private static long currentTimeStep() {
+        return System.currentTimeMillis() / 1000 / 30;
+    }
+
+    // RFC 6238 reference computation
+    private static String codeFor(String secret, long timeStep) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA1");
+        mac.init(new SecretKeySpec(Base64.getDecoder().decode(secret), "HmacSHA1"));
+        byte[] hash = mac.doFinal(ByteBuffer.allocate(8).putLong(timeStep).array());
+        int offset = hash[hash.length - 1] & 0xf;
+        int binary = ByteBuffer.wrap(hash, offset, 4).getInt() & 0x7fffffff;
+        return String.format("%06d", binary % 1_000_000);
+    }
+}
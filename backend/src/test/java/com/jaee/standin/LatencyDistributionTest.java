@@ -0,0 +1,61 @@
+package com.jaee.standin;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Sampled latencies land on the median and p99 they were configured with.
+ */
+class LatencyDistributionTest {
+
+    private static final int SAMPLES = 50_000;
+
+    @Test
+    void lognormalHitsItsMedianAndP99() {
+        long[] samples = sample(LatencyDistribution.LOGNORMAL, 150, 1200);
+
+        assertThat((double) percentile(samples, 50)).isCloseTo(150, within(15.0));
+        assertThat((double) percentile(samples, 99)).isCloseTo(1200, within(200.0));
+        // The tail is capped at four times the p99
+        assertThat(samples[samples.length - 1]).isLessThanOrEqualTo(4800);
+    }
+
+    @Test
+    void otherShapesKeepTheirMedian() {
+        assertThat(sample(LatencyDistribution.NONE, 150, 1200)).containsOnly(0L);
+        assertThat(sample(LatencyDistribution.FIXED, 150, 1200)).containsOnly(150L);
+
+        long[] uniform = sample(LatencyDistribution.UNIFORM, 150, 1200);
+        assertThat(uniform[0]).isGreaterThanOrEqualTo(0);
+        assertThat(uniform[uniform.length - 1]).isLessThanOrEqualTo(300);
+        assertThat((double) percentile(uniform, 50)).isCloseTo(150, within(10.0));
+
+        long[] exponential = sample(LatencyDistribution.EXPONENTIAL, 150, 1200);
+        assertThat((double) percentile(exponential, 50)).isCloseTo(150, within(15.0));
+        assertThat(exponential[exponential.length - 1]).isLessThanOrEqualTo(4800);
+    }
+
+    @Test
+    void zeroMedianMeansNoDelay() {
+        for (LatencyDistribution distribution : LatencyDistribution.values()) {
+            assertThat(distribution.sampleMillis(0, 0)).isZero();
+        }
+    }
+
+    private static long[] sample(LatencyDistribution distribution, long medianMs, long p99Ms) {
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            samples[i] = distribution.sampleMillis(medianMs, p99Ms);
+        }
+        Arrays.sort(samples);
+        return samples;
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        return sorted[sorted.length * percentile / 100];
+    }
+}
@@ -0,0 +1,157 @@
+package com.jaee.standin;
+
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The stand-in delays API calls by the configured latency, answers the
+ * configured fraction with a 5xx, and signs callbacks and webhooks with the
+ * real secrets.
+ */
+class RazorpayStandInServerTest {
+
+    private static final String KEY_ID = "rzp_test_standin";
+    private static final String KEY_SECRET = "key-secret";
+    private static final String WEBHOOK_SECRET = "webhook-secret";
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final List<AutoCloseable> cleanup = new ArrayList<>();
+
+    @AfterEach
+    void stop() throws Exception {
+        for (AutoCloseable closeable : cleanup) {
+            closeable.close();
+        }
+    }
+
+    @Test
+    void apiCallsTakeTheConfiguredLatency() throws Exception {
+        RazorpayStandInServer server = start(settings()
+                .latency(LatencyDistribution.FIXED)
+                .latencyMedianMs(200));
+
+        long started = System.nanoTime();
+        HttpResponse<String> created = call(server, "POST", "/v1/orders",
+                "{\"amount\":25000,\"currency\":\"INR\",\"receipt\":\"202610-1\"}", true);
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+        assertThat(created.statusCode()).isEqualTo(200);
+        assertThat(elapsedMs).isGreaterThanOrEqualTo(200);
+        JSONObject order = new JSONObject(created.body());
+        assertThat(order.getString("id")).startsWith("order_");
+        assertThat(order.getLong("amount_due")).isEqualTo(25000);
+        assertThat(order.getString("receipt")).isEqualTo("202610-1");
+
+        HttpResponse<String> fetched = call(server, "GET", "/v1/orders/" + order.getString("id"), null, true);
+        assertThat(new JSONObject(fetched.body()).getString("status")).isEqualTo("created");
+
+        // Rejected before any latency is applied
+        assertThat(call(server, "POST", "/v1/orders", "{\"amount\":1}", false).statusCode()).isEqualTo(401);
+    }
+
+    @Test
+    void injectsFailuresAtTheConfiguredRate() throws Exception {
+        RazorpayStandInServer failing = start(settings().errorRate(1.0));
+        for (int i = 0; i < 5; i++) {
+            HttpResponse<String> response = call(failing, "POST", "/v1/orders", "{\"amount\":100}", true);
+            assertThat(response.statusCode()).isEqualTo(502);
+            assertThat(new JSONObject(response.body()).getJSONObject("error").getString("code")).isEqualTo("SERVER_ERROR");
+        }
+        JSONObject stats = new JSONObject(call(failing, "GET", "/v1/standin/stats", null, false).body());
+        assertThat(stats.getLong("apiRequests")).isEqualTo(5);
+        assertThat(stats.getLong("injectedErrors")).isEqualTo(5);
+        assertThat(stats.getInt("orders")).isZero();
+
+        RazorpayStandInServer healthy = start(settings());
+        for (int i = 0; i < 5; i++) {
+            assertThat(call(healthy, "POST", "/v1/orders", "{\"amount\":100}", true).statusCode()).isEqualTo(200);
+        }
+    }
+
+    @Test
+    void paymentCallbackAndWebhooksAreSigned() throws Exception {
+        BlockingQueue<String[]> received = new LinkedBlockingQueue<>();
+        HttpServer receiver = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        receiver.createContext("/webhooks/razorpay", exchange -> {
+            try (exchange; InputStream body = exchange.getRequestBody()) {
+                received.add(new String[]{new String(body.readAllBytes(), StandardCharsets.UTF_8),
+                        exchange.getRequestHeaders().getFirst("X-Razorpay-Signature")});
+                exchange.sendResponseHeaders(200, -1);
+            }
+        });
+        receiver.start();
+        cleanup.add(() -> receiver.stop(0));
+
+        RazorpayStandInServer server = start(settings()
+                .webhookUrl("http://localhost:" + receiver.getAddress().getPort() + "/webhooks/razorpay")
+                .webhookDuplicateRate(0)
+                .webhookReorderRate(0));
+        String orderId = new JSONObject(call(server, "POST", "/v1/orders",
+                "{\"amount\":25000,\"notes\":{\"order_ref\":\"202610-7\"}}", true).body()).getString("id");
+
+        JSONObject callback = new JSONObject(call(server, "POST", "/v1/standin/orders/" + orderId + "/pay", "", false).body());
+        String paymentId = callback.getString("razorpay_payment_id");
+        assertThat(callback.getString("razorpay_signature"))
+                .isEqualTo(RazorpayStandInServer.hmacSha256Hex(orderId + "|" + paymentId, KEY_SECRET));
+
+        List<String> events = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            String[] webhook = received.poll(10, TimeUnit.SECONDS);
+            assertThat(webhook).isNotNull();
+            assertThat(webhook[1]).isEqualTo(RazorpayStandInServer.hmacSha256Hex(webhook[0], WEBHOOK_SECRET));
+            JSONObject event = new JSONObject(webhook[0]);
+            assertThat(event.getJSONObject("payload").getJSONObject("payment").getJSONObject("entity")
+                    .getJSONObject("notes").getString("order_ref")).isEqualTo("202610-7");
+            events.add(event.getString("event"));
+        }
+        // Sent in order, but delivered asynchronously
+        assertThat(events).containsExactlyInAnyOrder("payment.authorized", "payment.captured", "order.paid");
+    }
+
+    private static RazorpayStandInServer.Settings.SettingsBuilder settings() {
+        return RazorpayStandInServer.Settings.builder()
+                .port(0)
+                .keyId(KEY_ID)
+                .keySecret(KEY_SECRET)
+                .webhookSecret(WEBHOOK_SECRET)
+                .latency(LatencyDistribution.NONE)
+                .webhookDelayMedianMs(0);
+    }
+
+    private RazorpayStandInServer start(RazorpayStandInServer.Settings.SettingsBuilder settings) throws Exception {
+        RazorpayStandInServer server = new RazorpayStandInServer(settings.build());
+        server.start();
+        cleanup.add(server::stop);
+        return server;
+    }
+
+    private HttpResponse<String> call(RazorpayStandInServer server, String method, String path,
+                                      String body, boolean authenticated) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(server.getBaseUrl() + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+                .header("Content-Type", "application/json");
+        if (authenticated) {
+            request.header("Authorization", "Basic " + Base64.getEncoder().encodeToString(
+                    (KEY_ID + ":" + KEY_SECRET).getBytes(StandardCharsets.UTF_8)));
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
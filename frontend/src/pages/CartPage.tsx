@@ -86,8 +86,14 @@ export default function CartPage() {
     mutationFn: checkoutService.verifyPayment,
     onSuccess: (data) => {
       queryClient.invalidateQueries({ queryKey: ['cart'] })
+      if (!data.success) {
+        // e.g. the order expired before the payment came through
+        toast.error(data.message)
+        setCheckoutLoading(false)
+        return
+      }
       toast.success('Payment successful!')
-      navigate(`/order-success?orderId=${data.orderId}`)
+      navigate(`/order-success?orderId=${data.orderReference ?? data.orderId}`)
     },
     onError: () => {
       toast.error('Payment verification failed')
@@ -143,6 +149,7 @@ export default function CartPage() {
           razorpayOrderId: orderData.orderId,
           razorpayPaymentId: mockPaymentId,
           razorpaySignature: mockSignature,
+          orderReference: orderData.orderReference,
         })
         return
       }
@@ -164,6 +171,9 @@ export default function CartPage() {
         description: 'Order Payment',
         image: '/logo.png',
         order_id: orderData.orderId,
+        notes: {
+          order_ref: orderData.orderReference,
+        },
         prefill: {
           name: orderData.prefill.name,
           email: orderData.prefill.email,
@@ -178,6 +188,7 @@ export default function CartPage() {
             razorpayOrderId: response.razorpay_order_id,
             razorpayPaymentId: response.razorpay_payment_id,
             razorpaySignature: response.razorpay_signature,
+            orderReference: orderData.orderReference,
           })
         },
         modal: {
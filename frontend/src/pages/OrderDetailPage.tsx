@@ -12,7 +12,7 @@ export default function OrderDetailPage() {
 
   const { data: order, isLoading, error } = useQuery({
     queryKey: ['order', orderId],
-    queryFn: () => orderService.getOrderById(Number(orderId)),
+    queryFn: () => orderService.getOrderById(orderId!),
     enabled: !!orderId,
   })
 
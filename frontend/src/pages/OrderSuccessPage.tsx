@@ -14,7 +14,7 @@ export default function OrderSuccessPage() {
 
   const { data: order, isLoading } = useQuery({
     queryKey: ['order', orderId],
-    queryFn: () => orderService.getOrderById(Number(orderId)),
+    queryFn: () => orderService.getOrderById(orderId!),
     enabled: !!orderId,
     retry: 3,
     retryDelay: 1000,
@@ -76,34 +76,31 @@ export default function OrdersPage() {
                 {/* Order Items Preview */}
                 <div className="p-4">
                   <div className="flex items-center gap-4">
-                    {/* Show first 3 items */}
                     <div className="flex -space-x-3">
-                      {order.items.slice(0, 3).map((item, idx) => (
-                        <img
-                          key={idx}
-                          src={item.imageUrl || 'https://images.unsplash.com/photo-1602523961359-24a68d4e5a9b?w=100'}
-                          alt={item.name}
-                          className="w-12 h-12 rounded-lg border-2 border-soft-white object-cover"
-                        />
-                      ))}
-                      {order.items.length > 3 && (
+                      <img
+                        src={order.firstImageUrl || 'https://images.unsplash.com/photo-1602523961359-24a68d4e5a9b?w=100'}
+                        alt={order.firstItemName || `Order #${order.id}`}
+                        className="w-12 h-12 rounded-lg border-2 border-soft-white object-cover"
+                      />
+                      {order.lineCount > 1 && (
                         <div className="w-12 h-12 rounded-lg border-2 border-soft-white bg-blush flex items-center justify-center">
                           <span className="text-xs font-medium text-charcoal">
-                            +{order.items.length - 3}
+                            +{order.lineCount - 1}
                           </span>
                         </div>
                       )}
                     </div>
                     <div className="flex-1">
                       <p className="text-sm text-charcoal">
-                        {order.items.map((item) => item.name).join(', ')}
+                        {order.firstItemName}
+                        {order.lineCount > 1 && ` and ${order.lineCount - 1} more`}
                       </p>
                       <p className="text-xs text-warm-gray mt-1">
-                        {order.items.reduce((sum, item) => sum + item.qty, 0)} items
+                        {order.itemCount} items
                       </p>
                     </div>
                     <Link
-                      to={`/orders/${order.id}`}
+                      to={`/orders/${order.reference}`}
                       className="text-rose hover:text-rose-dark transition-colors"
                     >
                       <ChevronRight className="w-5 h-5" />
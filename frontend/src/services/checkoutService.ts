@@ -7,6 +7,7 @@ export interface RazorpayOrderData {
   currency: string
   keyId: string
   internalOrderId: number
+  orderReference: string  // Month-qualified id, e.g. 202610-1234; lets the backend find the order's partition
   testMode: boolean  // When true, payment is simulated without Razorpay
   prefill: {
     name: string
@@ -19,11 +20,13 @@ export interface PaymentVerificationData {
   razorpayOrderId: string
   razorpayPaymentId: string
   razorpaySignature: string
+  orderReference?: string
 }
 
 export interface PaymentVerificationResult {
   success: boolean
   orderId: number
+  orderReference: string
   message: string
 }
 
@@ -1,13 +1,13 @@
 import { api } from '@/lib/api'
-import type { ApiResponse, PageResponse, Order } from '@/types'
+import type { ApiResponse, PageResponse, Order, OrderSummary } from '@/types'
 
 export const orderService = {
-  getOrders: async (page: number = 0, size: number = 10): Promise<PageResponse<Order>> => {
-    const response = await api.get<ApiResponse<PageResponse<Order>>>(`/orders?page=${page}&size=${size}`)
+  getOrders: async (page: number = 0, size: number = 10): Promise<PageResponse<OrderSummary>> => {
+    const response = await api.get<ApiResponse<PageResponse<OrderSummary>>>(`/orders?page=${page}&size=${size}`)
     return response.data.data
   },
 
-  getOrderById: async (orderId: number): Promise<Order> => {
+  getOrderById: async (orderId: string | number): Promise<Order> => {
     const response = await api.get<ApiResponse<Order>>(`/orders/${orderId}`)
     return response.data.data
   },
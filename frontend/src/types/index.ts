@@ -109,6 +109,7 @@ export interface OrderItem {
 
 export interface Order {
   id: number
+  reference: string
   status: 'PENDING' | 'PAID' | 'CANCELLED' | 'SHIPPED' | 'FULFILLED'
   totalAmount: number
   currency: string
@@ -120,6 +121,20 @@ export interface Order {
   paidAt: string | null
 }
 
+export interface OrderSummary {
+  id: number
+  reference: string
+  status: Order['status']
+  totalAmount: number
+  currency: string
+  lineCount: number
+  itemCount: number
+  firstItemName: string | null
+  firstImageUrl: string | null
+  createdAt: string
+  paidAt: string | null
+}
+
 // Form types
 export interface LoginFormData {
   email: string